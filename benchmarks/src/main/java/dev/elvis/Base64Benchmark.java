@@ -0,0 +1,94 @@
+package dev.elvis;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Base64Codec} on its vector and scalar paths against {@link java.util.Base64}, from a sensitive field
+ * up to MB-scale ciphertexts. The fork gets {@code --add-modules jdk.incubator.vector}, so {@code codec*}
+ * runs the {@link VectorBase64} loops (checked in setup) while {@code scalar*} forces the fallback in the same JVM.
+ * <p>
+ * {@code jdkEncode} writes into a preallocated array like the codec does; {@code jdkDecode} has no String-to-buffer
+ * variant and allocates its result, as {@code DecryptionService} used to. HotSpot intrinsifies both JDK loops with
+ * SIMD on x86 and AArch64, so this measures the codec against a vectorized baseline, not a naive one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class Base64Benchmark {
+
+    @Param({"64", "1024", "16384", "262144", "1048576"})
+    int size;
+
+    private byte[] data;
+    private byte[] encoded;
+    private String text;
+    private byte[] decoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        encoded = new byte[Base64Codec.encodedLength(size)];
+        text = Base64.getEncoder().encodeToString(data);
+        decoded = new byte[Base64Codec.maxDecodedLength(text.length())];
+        if (!Base64Codec.VECTORIZED) {
+            System.out.printf("%nWARNING: Base64Codec runs scalar in this fork (module missing or %s=false)%n",
+                    Base64Codec.VECTOR_PROPERTY);
+        }
+    }
+
+    @Benchmark
+    public int jdkEncode() {
+        return Base64.getEncoder().encode(data, encoded);
+    }
+
+    @Benchmark
+    public int codecEncode() {
+        return Base64Codec.encode(data, 0, size, encoded, 0);
+    }
+
+    @Benchmark
+    public int scalarEncode() {
+        return Base64Codec.encodeScalar(data, 0, size, encoded, 0);
+    }
+
+    @Benchmark
+    public byte[] jdkDecode() {
+        return Base64.getDecoder().decode(text);
+    }
+
+    @Benchmark
+    public int jdkDecodeBytes() {
+        // Lower bound for the JDK: the caller already holds ASCII bytes, not a String
+        return Base64.getDecoder().decode(text.getBytes(StandardCharsets.ISO_8859_1), decoded);
+    }
+
+    @Benchmark
+    public int codecDecode() {
+        return Base64Codec.decode(text, decoded, 0);
+    }
+
+    @Benchmark
+    public int scalarDecode() {
+        return Base64Codec.decodeScalar(text, 0, decoded, 0);
+    }
+}
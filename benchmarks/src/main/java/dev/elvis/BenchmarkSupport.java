@@ -0,0 +1,74 @@
+package dev.elvis;
+
+import io.micronaut.context.ApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/** Shared setup for the JMH benchmarks: an offline application context and size-controlled payloads. */
+final class BenchmarkSupport {
+
+    // Benchmark-only key, never use outside this module
+    static final String BENCHMARK_KEY = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+
+    // Approximate JSON overhead of SomeSpecificObject without sensitiveData
+    private static final int JSON_OVERHEAD = 60;
+    private static final String[] WORDS = {"customer", "order", "status", "ACTIVE", "PENDING", "amount", "currency",
+            "EUR", "created", "2024-01-01T00:00:00Z", "account", "reference", "priority", "normal", "region", "eu-west"};
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ".toCharArray();
+
+    private BenchmarkSupport() {
+    }
+
+    /** Starts the application context with a fixed key and no broker connection. */
+    static ApplicationContext startContext() {
+        return startContext(Map.of());
+    }
+
+    /** Like {@link #startContext()}, with extra properties on top. */
+    static ApplicationContext startContext(Map<String, Object> properties) {
+        Map<String, Object> all = new HashMap<>(properties);
+        all.put("crypto.aes-gcm.key", BENCHMARK_KEY);
+        all.put("rabbitmq.enabled", false);
+        return ApplicationContext.run(all);
+    }
+
+    /** Builds an object whose CAMEL_CASE JSON form is roughly {@code jsonBytes} long. */
+    static SomeSpecificObject payloadOfSize(int jsonBytes) {
+        return new SomeSpecificObject("id-bench", "benchmark value", 42, randomText(Math.max(1, jsonBytes - JSON_OVERHEAD)));
+    }
+
+    /** Like {@link #payloadOfSize(int)} but with sensitiveData Base64 encoded, as the RPC listener expects. */
+    static SomeSpecificObject encodedPayloadOfSize(int jsonBytes) {
+        // Base64 inflates by 4/3, so shrink the raw text to keep the wire size comparable
+        String text = randomText(Math.max(1, (jsonBytes - JSON_OVERHEAD) * 3 / 4));
+        return new SomeSpecificObject("id-bench", "benchmark value", 42,
+                Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Like {@link #payloadOfSize(int)} but with repetitive, JSON-like text that compresses the way real
+     * business payloads do, rather than near-incompressible random characters.
+     */
+    static SomeSpecificObject compressiblePayloadOfSize(int jsonBytes) {
+        StringBuilder text = new StringBuilder(jsonBytes);
+        Random random = new Random(jsonBytes);
+        while (text.length() < Math.max(1, jsonBytes - JSON_OVERHEAD)) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        text.setLength(Math.max(1, jsonBytes - JSON_OVERHEAD));
+        return new SomeSpecificObject("id-bench", "benchmark value", 42, text.toString());
+    }
+
+    private static String randomText(int length) {
+        Random random = new Random(length); // Seeded so every run sees identical payloads
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,80 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compress-before-encrypt crossover: the same envelope round trip with and without deflate, from payloads
+ * smaller than a packet up to 1 MB. Besides time per op, every trial prints the Base64 size that goes on the
+ * wire, so the point where compression pays off in CPU and in bandwidth can both be read off.
+ * Compression runs with {@code min-size: 0} here so the threshold itself does not hide the small sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"false", "true"})
+    boolean compression;
+
+    @Param({"128", "256", "512", "1024", "2048", "4096", "16384", "102400", "1048576"})
+    int payloadSize;
+
+    private ApplicationContext context;
+    private EncryptionService encryptionService;
+    private DecryptionService decryptionService;
+    private ObjectMapper mapper;
+    private SomeSpecificObject payload;
+    private CryptoWrapper encryptedPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ApplicationContext.run(Map.of(
+                "crypto.aes-gcm.key", BenchmarkSupport.BENCHMARK_KEY,
+                "rabbitmq.enabled", false,
+                "crypto.compression.enabled", compression,
+                "crypto.compression.min-size", 0));
+        encryptionService = context.getBean(EncryptionService.class);
+        decryptionService = context.getBean(DecryptionService.class);
+        mapper = context.getBean(ObjectMapper.class, Qualifiers.byName("externalServiceObjectMapper"));
+        payload = BenchmarkSupport.compressiblePayloadOfSize(payloadSize);
+        encryptedPayload = encryptionService.serializeAndEncryptEnvelope(payload, mapper).block();
+        System.out.printf("%nwire size: %d bytes Base64 for %d bytes of JSON (encoding: %s)%n",
+                encryptedPayload.data().length(), payloadSize, encryptedPayload.encoding());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CryptoWrapper serializeAndEncrypt() {
+        return encryptionService.serializeAndEncryptEnvelope(payload, mapper).block();
+    }
+
+    @Benchmark
+    public DecryptionResult<SomeSpecificObject> decryptAndDeserialize() {
+        return decryptionService.decryptAndDeserialize(encryptedPayload, SomeSpecificObject.class, mapper).block();
+    }
+}
@@ -0,0 +1,70 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Full service-level encrypt and decrypt paths, including the reactive scheduler hop. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoPipelineBenchmark {
+
+    @Param({"100", "1024", "10240", "102400", "1048576"})
+    int payloadSize;
+
+    // crypto.buffers.enabled; compare gc.alloc.rate.norm with -prof gc
+    @Param({"true", "false"})
+    boolean pooledBuffers;
+
+    private ApplicationContext context;
+    private EncryptionService encryptionService;
+    private DecryptionService decryptionService;
+    private ObjectMapper mapper;
+    private SomeSpecificObject payload;
+    private String encryptedPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startContext(Map.of("crypto.buffers.enabled", pooledBuffers));
+        encryptionService = context.getBean(EncryptionService.class);
+        decryptionService = context.getBean(DecryptionService.class);
+        mapper = context.getBean(ObjectMapper.class, Qualifiers.byName("externalServiceObjectMapper"));
+        payload = BenchmarkSupport.payloadOfSize(payloadSize);
+        encryptedPayload = encryptionService.serializeAndEncrypt(payload, mapper).block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String serializeAndEncrypt() {
+        return encryptionService.serializeAndEncrypt(payload, mapper).block();
+    }
+
+    @Benchmark
+    public DecryptionResult<SomeSpecificObject> decryptAndDeserialize() {
+        return decryptionService.decryptAndDeserialize(encryptedPayload, SomeSpecificObject.class, mapper).block();
+    }
+}
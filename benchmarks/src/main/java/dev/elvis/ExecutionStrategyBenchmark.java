@@ -0,0 +1,108 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of {@code crypto.execution.strategy} under concurrent callers. Runs with more
+ * benchmark threads than cores so queueing shows up; sample mode reports the latency percentiles.
+ * The pool and queue are sized so the 16 callers overrun BOUNDED (4 workers + 4 queued) and it actually sheds.
+ * A shed call returns at once, so it would inflate the primary score: read the {@code completed} and {@code shed}
+ * counters instead, which split every run's calls between the two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ExecutionStrategyBenchmark {
+
+    @Param({"inline", "parallel", "virtual", "bounded"})
+    String strategy;
+
+    @Param({"1024", "102400"})
+    int payloadSize;
+
+    private ApplicationContext context;
+    private EncryptionService encryptionService;
+    private DecryptionService decryptionService;
+    private ObjectMapper mapper;
+    private SomeSpecificObject payload;
+    private String encryptedPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ApplicationContext.run(Map.of(
+                "crypto.aes-gcm.key", BenchmarkSupport.BENCHMARK_KEY,
+                "rabbitmq.enabled", false,
+                "crypto.execution.strategy", strategy,
+                "crypto.execution.parallelism", 4,
+                "crypto.execution.queue-capacity", 4));
+        encryptionService = context.getBean(EncryptionService.class);
+        decryptionService = context.getBean(DecryptionService.class);
+        mapper = context.getBean(ObjectMapper.class, Qualifiers.byName("externalServiceObjectMapper"));
+        payload = BenchmarkSupport.payloadOfSize(payloadSize);
+        encryptedPayload = encryptionService.serializeAndEncrypt(payload, mapper).block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Per-thread call outcomes, reported next to the primary score. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long completed;
+        public long shed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            completed = 0;
+            shed = 0;
+        }
+    }
+
+    @Benchmark
+    public void serializeAndEncrypt(Outcomes outcomes, Blackhole blackhole) {
+        try {
+            blackhole.consume(encryptionService.serializeAndEncrypt(payload, mapper).block());
+            outcomes.completed++;
+        } catch (CryptoOverloadedException e) {
+            outcomes.shed++;
+        }
+    }
+
+    @Benchmark
+    public void decryptAndDeserialize(Outcomes outcomes, Blackhole blackhole) {
+        try {
+            blackhole.consume(decryptionService.decryptAndDeserialize(encryptedPayload, SomeSpecificObject.class, mapper).block());
+            outcomes.completed++;
+        } catch (CryptoOverloadedException e) {
+            outcomes.shed++;
+        }
+    }
+}
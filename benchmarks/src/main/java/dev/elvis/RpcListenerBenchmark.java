@@ -0,0 +1,107 @@
+package dev.elvis;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.json.JsonMapper;
+import io.micronaut.rabbitmq.bind.RabbitAcknowledgement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end RPC handling as the broker would drive it: SNAKE_CASE body bytes are bound with the
+ * Serde mapper, then {@link MyRpcListener#processRpcRequestAutoDeserializeSnake} decodes, re-serializes
+ * (CAMEL_CASE) and encrypts the reply.
+ * <p>
+ * {@code processRpcBatch} drives {@link RpcBatchConsumer} against an in-process channel stand-in that discards
+ * publishes and acks; its score is per message, so it compares directly with {@code processRpcRequest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RpcListenerBenchmark {
+
+    private static final int BATCH_SIZE = 32;
+
+    @Param({"100", "1024", "10240", "102400", "1048576"})
+    int payloadSize;
+
+    private ApplicationContext context;
+    private MyRpcListener listener;
+    private JsonMapper snakeCaseSerdeMapper;
+    private AMQP.BasicProperties properties;
+    private RabbitAcknowledgement acknowledgement;
+    private byte[] requestBody;
+    private RpcBatchConsumer batchConsumer;
+    private Channel channel;
+    private List<Delivery> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkSupport.startContext();
+        listener = context.getBean(MyRpcListener.class);
+        snakeCaseSerdeMapper = context.getBean(JsonMapper.class);
+        properties = new AMQP.BasicProperties.Builder()
+                .correlationId("corr-bench")
+                .replyTo("bench-reply-queue")
+                .build();
+        // The listener settles through this; without a broker there is nothing to settle
+        acknowledgement = (RabbitAcknowledgement) Proxy.newProxyInstance(RabbitAcknowledgement.class.getClassLoader(),
+                new Class<?>[]{RabbitAcknowledgement.class}, (proxy, method, args) -> null);
+        requestBody = snakeCaseSerdeMapper.writeValueAsBytes(BenchmarkSupport.encodedPayloadOfSize(payloadSize));
+
+        // The batch consumer bean needs a broker, so wire one by hand around a no-op channel
+        batchConsumer = new RpcBatchConsumer();
+        batchConsumer.requestHandler = context.getBean(RpcRequestHandler.class);
+        batchConsumer.jsonMapper = snakeCaseSerdeMapper;
+        batchConsumer.configuration = context.getBean(RpcConsumerConfiguration.class);
+        channel = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.FALSE
+                        : method.getReturnType() == int.class ? Integer.valueOf(0)
+                        : method.getReturnType() == long.class ? Long.valueOf(0) : null);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int tag = 1; tag <= BATCH_SIZE; tag++) {
+            batch.add(new Delivery(new Envelope(tag, false, "", MyRpcListener.REQUEST_QUEUE), properties, requestBody));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CryptoWrapper processRpcRequest() throws IOException {
+        SomeSpecificObject request = snakeCaseSerdeMapper.readValue(requestBody, SomeSpecificObject.class);
+        return listener.processRpcRequestAutoDeserializeSnake(request, properties, acknowledgement).block();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void processRpcBatch() {
+        batchConsumer.processBatch(channel, batch).block();
+    }
+}
@@ -0,0 +1,127 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.core.type.Argument;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two serialization stacks side by side: the reflective CAMEL_CASE Jackson mapper from
+ * {@link ObjectMapperFactory} versus the Micronaut Serde (SNAKE_CASE) mapper used by the listener.
+ * The {@code *Codec*} methods run the {@link PayloadCodec} path of the crypto pipeline (parse once, then bind),
+ * for the Serde CAMEL_CASE codec and the Jackson adapter; {@code *Bound*} use a {@link PayloadCodec.Binding} resolved
+ * in setup, as the typed {@code Encoder}/{@code Decoder} handles of the services do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "1024", "10240", "102400", "1048576"})
+    int payloadSize;
+
+    private ApplicationContext context;
+    private ObjectMapper camelCaseMapper;
+    private JsonMapper snakeCaseSerdeMapper;
+    private PayloadCodec camelCaseSerdeCodec;
+    private PayloadCodec camelCaseJacksonCodec;
+    private PayloadCodec.Binding<SomeSpecificObject> camelCaseJacksonBinding;
+    private SomeSpecificObject payload;
+    private byte[] camelCaseJson;
+    private byte[] snakeCaseJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkSupport.startContext();
+        camelCaseMapper = context.getBean(ObjectMapper.class, Qualifiers.byName("externalServiceObjectMapper"));
+        snakeCaseSerdeMapper = context.getBean(JsonMapper.class);
+        camelCaseSerdeCodec = context.getBean(PayloadCodec.class, Qualifiers.byName("externalService"));
+        camelCaseJacksonCodec = new JacksonPayloadCodec(camelCaseMapper);
+        camelCaseJacksonBinding = camelCaseJacksonCodec.bind(Argument.of(SomeSpecificObject.class));
+        payload = BenchmarkSupport.payloadOfSize(payloadSize);
+        camelCaseJson = camelCaseMapper.writeValueAsBytes(payload);
+        snakeCaseJson = snakeCaseSerdeMapper.writeValueAsBytes(payload);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] camelCaseJacksonWrite() throws IOException {
+        return camelCaseMapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public SomeSpecificObject camelCaseJacksonRead() throws IOException {
+        return camelCaseMapper.readValue(camelCaseJson, SomeSpecificObject.class);
+    }
+
+    @Benchmark
+    public byte[] snakeCaseSerdeWrite() throws IOException {
+        return snakeCaseSerdeMapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public SomeSpecificObject snakeCaseSerdeRead() throws IOException {
+        return snakeCaseSerdeMapper.readValue(snakeCaseJson, SomeSpecificObject.class);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream camelCaseSerdeCodecWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(camelCaseJson.length);
+        camelCaseSerdeCodec.write(out, payload);
+        return out;
+    }
+
+    @Benchmark
+    public SomeSpecificObject camelCaseSerdeCodecRead() throws IOException {
+        return camelCaseSerdeCodec.readTree(camelCaseJson, 0, camelCaseJson.length).bind(SomeSpecificObject.class);
+    }
+
+    @Benchmark
+    public SomeSpecificObject camelCaseJacksonCodecRead() throws IOException {
+        return camelCaseJacksonCodec.readTree(camelCaseJson, 0, camelCaseJson.length).bind(SomeSpecificObject.class);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream camelCaseJacksonCodecWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(camelCaseJson.length);
+        camelCaseJacksonCodec.write(out, payload);
+        return out;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream camelCaseJacksonBoundWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(camelCaseJson.length);
+        camelCaseJacksonBinding.write(out, payload);
+        return out;
+    }
+
+    @Benchmark
+    public SomeSpecificObject camelCaseJacksonBoundRead() throws IOException {
+        return camelCaseJacksonBinding.read(camelCaseJacksonCodec.readTree(camelCaseJson, 0, camelCaseJson.length));
+    }
+}
@@ -0,0 +1,111 @@
+package dev.elvis;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stand-in for the external service: answers every id with the same pre-encrypted resource after
+ * {@code baseLatency} plus an exponentially distributed extra with mean {@code tailLatency}, which gives the
+ * long right tail real services have.
+ * <p>
+ * In-process it is the application's {@link MyExternalServiceClient} itself (no sockets, isolates our own
+ * pipeline); with {@link #startHttp()} it serves {@code /resources} on loopback for {@link HttpExternalServiceClient},
+ * so the HTTP client, pool, limiter and hedging are part of the measurement.
+ */
+final class FakeUpstream implements MyExternalServiceClient, AutoCloseable {
+
+    private final Duration baseLatency;
+    private final Duration tailLatency;
+    private volatile CryptoWrapper resource;
+    private volatile byte[] resourceJson;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    FakeUpstream(Duration baseLatency, Duration tailLatency) {
+        this.baseLatency = baseLatency;
+        this.tailLatency = tailLatency;
+    }
+
+    /** The resource every GET returns, and its JSON form for the HTTP mode. */
+    void setResource(CryptoWrapper resource, byte[] json) {
+        this.resource = resource;
+        this.resourceJson = json;
+    }
+
+    /** Starts the HTTP mode on an ephemeral loopback port and returns its base url. */
+    String startHttp() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start fake upstream", e);
+        }
+        // Virtual threads: a sleeping request costs no platform thread, so latency does not cap throughput
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/resources", this::handle);
+        server.start();
+        return "http://" + server.getAddress().getHostString() + ':' + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public Mono<CryptoWrapper> getEncryptedResource(String id) {
+        return Mono.delay(nextLatency()).map(tick -> resource);
+    }
+
+    @Override
+    public Flux<ByteBuffer> getEncryptedResourceStream(String id) {
+        return Flux.error(new UnsupportedOperationException("The load test does not stream"));
+    }
+
+    @Override
+    public Mono<Void> postEncryptedResource(CryptoWrapper encryptedPayload) {
+        return Mono.delay(nextLatency()).then();
+    }
+
+    @Override
+    public Mono<BulkPostResult> postEncryptedResources(CryptoWrapper envelope, int recordCount) {
+        return Mono.delay(nextLatency()).thenReturn(BulkPostResult.ACCEPTED);
+    }
+
+    private Duration nextLatency() {
+        double extra = tailLatency.isZero() ? 0 : -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * tailLatency.toNanos();
+        return baseLatency.plusNanos((long) extra);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Thread.sleep(nextLatency());
+            if ("POST".equals(exchange.getRequestMethod())) {
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+            byte[] body = resourceJson;
+            exchange.getResponseHeaders().add("Content-Type", WireFormat.JSON);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Shutting down
+        }
+    }
+}
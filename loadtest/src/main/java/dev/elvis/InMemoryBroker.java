@@ -0,0 +1,300 @@
+package dev.elvis;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import io.micronaut.rabbitmq.connect.ChannelPool;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory AMQP stand-in for the RPC consumers: a {@link ChannelPool} whose channels implement the subset of
+ * {@link Channel} they use (qos, consume, cancel, publish, ack, nack). Like a broker it round-robins a queue's
+ * messages over its consumers, stops delivering to a channel once it holds {@code prefetch} unacked messages,
+ * calls each consumer from one thread in delivery order, and requeues or dead-letters nacked messages.
+ * Publishes to a queue nobody consumes go to the listener registered with {@link #onMessage}.
+ */
+final class InMemoryBroker implements ChannelPool {
+
+    record Message(AMQP.BasicProperties properties, byte[] body) {
+    }
+
+    private final Map<String, BrokerQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, BiConsumer<AMQP.BasicProperties, byte[]>> listeners = new ConcurrentHashMap<>();
+    private final AtomicInteger channelNumbers = new AtomicInteger();
+    private final List<ExecutorService> dispatchers = new ArrayList<>();
+    private volatile BiConsumer<AMQP.BasicProperties, byte[]> deadLetters = (properties, body) -> { };
+
+    @Override
+    public Channel getChannel() {
+        ChannelState state = new ChannelState(channelNumbers.incrementAndGet());
+        synchronized (dispatchers) {
+            dispatchers.add(state.dispatcher);
+        }
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> state.invoke(proxy, method, args));
+    }
+
+    @Override
+    public void returnChannel(Channel channel) {
+        // Channels stay open for the whole run
+    }
+
+    @Override
+    public String getName() {
+        return "in-memory";
+    }
+
+    /** Publishes to the default exchange, i.e. straight to the queue named {@code routingKey}. */
+    void publish(String routingKey, AMQP.BasicProperties properties, byte[] body) {
+        BiConsumer<AMQP.BasicProperties, byte[]> listener = listeners.get(routingKey);
+        if (listener != null) {
+            listener.accept(properties, body);
+        } else {
+            queue(routingKey).enqueue(new Message(properties, body));
+        }
+    }
+
+    /** Receives everything published to {@code routingKey} synchronously, e.g. a reply queue. */
+    void onMessage(String routingKey, BiConsumer<AMQP.BasicProperties, byte[]> listener) {
+        listeners.put(routingKey, listener);
+    }
+
+    /** Receives messages that were nacked or rejected without requeue. */
+    void onDeadLetter(BiConsumer<AMQP.BasicProperties, byte[]> listener) {
+        this.deadLetters = listener;
+    }
+
+    int depth(String queue) {
+        return queue(queue).depth();
+    }
+
+    void shutdown() {
+        synchronized (dispatchers) {
+            dispatchers.forEach(ExecutorService::shutdownNow);
+        }
+    }
+
+    private BrokerQueue queue(String name) {
+        return queues.computeIfAbsent(name, BrokerQueue::new);
+    }
+
+    /** Ready messages plus the consumers competing for them; dispatch is serialised on the queue. */
+    private final class BrokerQueue {
+        private final String name;
+        private final Deque<Message> ready = new ArrayDeque<>();
+        private final List<Subscription> subscriptions = new ArrayList<>();
+        private int nextSubscription;
+
+        BrokerQueue(String name) {
+            this.name = name;
+        }
+
+        synchronized void enqueue(Message message) {
+            ready.addLast(message);
+            dispatch();
+        }
+
+        synchronized void requeue(Message message) {
+            ready.addFirst(message);
+            dispatch();
+        }
+
+        synchronized void subscribe(Subscription subscription) {
+            subscriptions.add(subscription);
+            dispatch();
+        }
+
+        synchronized void unsubscribe(Subscription subscription) {
+            subscriptions.remove(subscription);
+        }
+
+        synchronized int depth() {
+            return ready.size();
+        }
+
+        synchronized void dispatch() {
+            while (!ready.isEmpty() && !subscriptions.isEmpty()) {
+                Subscription target = null;
+                for (int i = 0; i < subscriptions.size() && target == null; i++) {
+                    Subscription candidate = subscriptions.get((nextSubscription + i) % subscriptions.size());
+                    if (candidate.channel.hasCredit()) {
+                        target = candidate;
+                        nextSubscription = (nextSubscription + i + 1) % subscriptions.size();
+                    }
+                }
+                if (target == null) {
+                    return; // Every consumer is at its prefetch limit; acks resume dispatching
+                }
+                target.deliver(ready.pollFirst());
+            }
+        }
+    }
+
+    private record Subscription(String consumerTag, BrokerQueue queue, ChannelState channel, Consumer consumer, boolean autoAck) {
+
+        void deliver(Message message) {
+            long tag = channel.deliveryTags.incrementAndGet();
+            if (!autoAck) {
+                channel.unacked.put(tag, new Unacked(queue, message));
+            }
+            Envelope envelope = new Envelope(tag, false, "", queue.name);
+            channel.dispatcher.execute(() -> {
+                try {
+                    consumer.handleDelivery(consumerTag, envelope, message.properties(), message.body());
+                } catch (Exception e) {
+                    throw new IllegalStateException("Consumer " + consumerTag + " failed on delivery " + tag, e);
+                }
+            });
+        }
+    }
+
+    private record Unacked(BrokerQueue queue, Message message) {
+    }
+
+    private final class ChannelState {
+        private final int number;
+        // One thread per channel, so each consumer sees its deliveries sequentially like with the real client
+        private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-broker-channel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final AtomicLong deliveryTags = new AtomicLong();
+        private final NavigableMap<Long, Unacked> unacked = new ConcurrentSkipListMap<>();
+        private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+        private volatile int prefetch;
+
+        ChannelState(int number) {
+            this.number = number;
+        }
+
+        boolean hasCredit() {
+            return prefetch == 0 || unacked.size() < prefetch;
+        }
+
+        Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "basicQos" -> prefetch = (Integer) args[args.length == 3 ? 1 : 0];
+                case "basicConsume" -> {
+                    return consume(args);
+                }
+                case "basicCancel" -> {
+                    Subscription subscription = subscriptions.remove((String) args[0]);
+                    if (subscription != null) {
+                        subscription.queue().unsubscribe(subscription);
+                    }
+                }
+                case "basicPublish" -> publish(args);
+                case "basicAck" -> settle((Long) args[0], (Boolean) args[1], true, false);
+                case "basicNack" -> settle((Long) args[0], (Boolean) args[1], false, (Boolean) args[2]);
+                case "basicReject" -> settle((Long) args[0], false, false, (Boolean) args[1]);
+                case "getChannelNumber" -> {
+                    return number;
+                }
+                case "isOpen" -> {
+                    return true;
+                }
+                case "toString" -> {
+                    return "InMemoryChannel(" + number + ")";
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                default -> {
+                    // close(), confirmSelect(), ...: nothing to do in memory
+                }
+            }
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class) {
+                return false;
+            }
+            if (type == int.class) {
+                return 0;
+            }
+            if (type == long.class) {
+                return 0L;
+            }
+            return null;
+        }
+
+        private String consume(Object[] args) {
+            // basicConsume has many overloads; all start with the queue and end with the Consumer callback
+            String queueName = (String) args[0];
+            boolean autoAck = args.length > 1 && args[1] instanceof Boolean flag && flag;
+            Consumer consumer = null;
+            for (Object arg : args) {
+                if (arg instanceof Consumer callback) {
+                    consumer = callback;
+                }
+            }
+            if (consumer == null) {
+                throw new UnsupportedOperationException("InMemoryBroker only supports basicConsume with a Consumer");
+            }
+            String consumerTag = "in-memory-" + number + '-' + subscriptions.size();
+            BrokerQueue queue = queue(queueName);
+            Subscription subscription = new Subscription(consumerTag, queue, this, consumer, autoAck);
+            subscriptions.put(consumerTag, subscription);
+            consumer.handleConsumeOk(consumerTag);
+            queue.subscribe(subscription);
+            return consumerTag;
+        }
+
+        private void publish(Object[] args) {
+            AMQP.BasicProperties properties = null;
+            byte[] body = null;
+            for (Object arg : args) {
+                if (arg instanceof AMQP.BasicProperties props) {
+                    properties = props;
+                } else if (arg instanceof byte[] bytes) {
+                    body = bytes;
+                }
+            }
+            InMemoryBroker.this.publish((String) args[1], properties, body);
+        }
+
+        private void settle(long tag, boolean multiple, boolean ack, boolean requeue) {
+            Map<Long, Unacked> settled = multiple ? unacked.headMap(tag, true) : Map.of();
+            List<Unacked> messages = new ArrayList<>();
+            if (multiple) {
+                messages.addAll(settled.values());
+                settled.clear();
+            } else {
+                Unacked single = unacked.remove(tag);
+                if (single != null) {
+                    messages.add(single);
+                }
+            }
+            for (Unacked message : messages) {
+                if (ack) {
+                    continue;
+                }
+                if (requeue) {
+                    message.queue().requeue(message.message());
+                } else {
+                    deadLetters.accept(message.message().properties(), message.message().body());
+                }
+            }
+            // Freed credit: let every queue with consumers on this channel deliver again
+            subscriptions.values().forEach(subscription -> subscription.queue().dispatch());
+        }
+    }
+}
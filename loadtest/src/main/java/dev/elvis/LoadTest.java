@@ -0,0 +1,302 @@
+package dev.elvis;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sustained-load test of the whole application, entirely offline: the RPC consumers read
+ * {@code rpc.request.queue.v3} from an {@link InMemoryBroker} and {@link MyBusinessService#getDecryptedData} fetches
+ * from a {@link FakeUpstream}. Each scenario warms up, then steps an open-loop request rate up by
+ * {@code step-factor} until a step misses the p99 SLO, exceeds the error budget or cannot keep up with the
+ * offered rate. The last passing rate is the maximum sustainable throughput; every step prints its latency
+ * percentiles and writes the full HdrHistogram distribution ({@code .hgrm}) to {@code output}.
+ * <p>
+ * Options are {@code --name=value}; {@code --app.<property>=value} passes an application property through,
+ * e.g. {@code --app.crypto.execution.strategy=bounded}.
+ */
+public final class LoadTest {
+
+    // Load-test-only key, never use outside this module
+    static final String LOADTEST_KEY = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+    static final String REPLY_QUEUE = "loadtest.replies";
+
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ".toCharArray();
+
+    private final Map<String, String> options;
+    private final Map<String, Object> appProperties = new HashMap<>();
+
+    private LoadTest(String[] args) {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("scenario", "all");            // fetch | rpc | all
+        defaults.put("rate", "0");                  // > 0: run this one rate instead of searching
+        defaults.put("start-rate", "200");
+        defaults.put("step-factor", "1.5");
+        defaults.put("max-rate", "100000");
+        defaults.put("warmup", "10s");
+        defaults.put("step-duration", "10s");
+        defaults.put("slo-p99", "100ms");
+        defaults.put("error-budget", "0.01");      // Failed, dropped and timed-out requests per request offered
+        defaults.put("payload-size", "1024");
+        defaults.put("rpc-mode", "listener");       // listener (MyRpcListener) | batch (RpcBatchConsumer)
+        defaults.put("upstream", "in-process");     // in-process | http
+        defaults.put("upstream-latency", "2ms");
+        defaults.put("upstream-tail", "1ms");       // Mean of the exponential extra latency
+        defaults.put("max-outstanding", "20000");
+        defaults.put("drain-timeout", "5s");
+        defaults.put("output", "target/loadtest");
+        options = new LinkedHashMap<>(defaults);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            if (name.startsWith("app.")) {
+                appProperties.put(name.substring(4), value);
+            } else if (defaults.containsKey(name)) {
+                options.put(name, value);
+            } else {
+                throw new IllegalArgumentException("Unknown option --" + name + ", known: " + defaults.keySet());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(args).run();
+        System.exit(0); // Reactor and broker threads are daemons, but the HTTP client's event loop is not
+    }
+
+    private void run() throws IOException {
+        boolean http = "http".equals(options.get("upstream"));
+        boolean batch = "batch".equals(options.get("rpc-mode"));
+        InMemoryBroker broker = new InMemoryBroker();
+        FakeUpstream upstream = new FakeUpstream(duration("upstream-latency"), duration("upstream-tail"));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("crypto.aes-gcm.key", LOADTEST_KEY);
+        properties.put("rabbitmq.enabled", false);
+        properties.put("rpc.consumer.batch-enabled", batch);
+        properties.put("external-service.transport", http ? "http" : "in-process");
+        if (http) {
+            properties.put("micronaut.http.services.external-service.url", upstream.startHttp());
+        }
+        properties.putAll(appProperties);
+
+        List<Object> singletons = new ArrayList<>(List.of(broker));
+        if (!http) {
+            singletons.add(upstream);
+        }
+        System.out.printf("Load test: %s%n  application overrides: %s%n", options, appProperties);
+        try (ApplicationContext context = ApplicationContext.builder().properties(properties).singletons(singletons.toArray()).start()) {
+            JsonMapper jsonMapper = context.getBean(JsonMapper.class);
+            int payloadSize = Integer.parseInt(options.get("payload-size"));
+
+            // Every upstream GET answers with this resource, encrypted the way the application decrypts it
+            CryptoWrapper resource = context.getBean(EncryptionService.class)
+                    .serializeAndEncryptEnvelope(payload(payloadSize, false), context.getBean(PayloadCodec.class, Qualifiers.byName("externalService")))
+                    .block();
+            upstream.setResource(resource, jsonMapper.writeValueAsBytes(resource));
+            if (!batch) {
+                bindListener(context, broker, jsonMapper);
+            }
+
+            List<OpenLoopDriver.StepResult> best = new ArrayList<>();
+            String scenario = options.get("scenario");
+            if (scenario.equals("fetch") || scenario.equals("all")) {
+                MyBusinessService service = context.getBean(MyBusinessService.class);
+                best.add(search("fetch", (sequence, completion) -> service.getDecryptedData("id-" + sequence % 1000)
+                        .subscribe(value -> completion.success(), completion::failure)));
+            }
+            if (scenario.equals("rpc") || scenario.equals("all")) {
+                best.add(search("rpc-" + options.get("rpc-mode"), rpcRequests(broker, jsonMapper.writeValueAsBytes(payload(payloadSize, true)))));
+            }
+
+            System.out.println();
+            System.out.println("Maximum sustainable throughput (p99 <= " + options.get("slo-p99") + ", error budget " + options.get("error-budget") + "):");
+            for (OpenLoopDriver.StepResult result : best) {
+                System.out.printf("  %-14s %s%n", result.scenario(), result.offeredRate() > 0
+                        ? String.format(Locale.ROOT, "%.0f req/s (p99 %.2f ms)", result.throughput(), result.latencyMicros().getValueAtPercentile(99) / 1000.0)
+                        : "none - the start rate already failed");
+            }
+        } finally {
+            upstream.close();
+            broker.shutdown();
+        }
+    }
+
+    /** Warms up, then raises the rate until a step fails; returns the last passing step (offered rate 0 if none). */
+    private OpenLoopDriver.StepResult search(String scenario, OpenLoopDriver.Request request) throws IOException {
+        OpenLoopDriver driver = new OpenLoopDriver(Integer.parseInt(options.get("max-outstanding")), duration("drain-timeout"));
+        double fixedRate = Double.parseDouble(options.get("rate"));
+        double rate = fixedRate > 0 ? fixedRate : Double.parseDouble(options.get("start-rate"));
+        double maxRate = fixedRate > 0 ? fixedRate : Double.parseDouble(options.get("max-rate"));
+
+        System.out.printf("%n%s: warming up at %.0f req/s for %s%n", scenario, rate, options.get("warmup"));
+        driver.run(scenario, rate, duration("warmup"), request);
+
+        OpenLoopDriver.StepResult best = new OpenLoopDriver.StepResult(scenario, 0, 0, 0, 0, 0, 0, 0, null, Map.of());
+        while (rate <= maxRate) {
+            OpenLoopDriver.StepResult result = driver.run(scenario, rate, duration("step-duration"), request);
+            boolean passed = passed(result);
+            report(result, passed);
+            if (!passed) {
+                break;
+            }
+            best = result;
+            rate *= Double.parseDouble(options.get("step-factor"));
+        }
+        return best;
+    }
+
+    private boolean passed(OpenLoopDriver.StepResult result) {
+        long offered = result.sent() + result.dropped();
+        return result.latencyMicros().getValueAtPercentile(99) <= duration("slo-p99").toNanos() / 1000
+                && result.errorCount() <= Double.parseDouble(options.get("error-budget")) * offered
+                && result.throughput() >= 0.95 * result.offeredRate();
+    }
+
+    private void report(OpenLoopDriver.StepResult result, boolean passed) throws IOException {
+        var latency = result.latencyMicros();
+        System.out.printf(Locale.ROOT, "%-14s offered %8.0f/s achieved %8.0f/s | ok %8d failed %6d dropped %6d timed-out %6d"
+                        + " | p50 %7.2f p90 %7.2f p99 %7.2f p99.9 %7.2f max %8.2f ms | %s%s%n",
+                result.scenario(), result.offeredRate(), result.throughput(),
+                result.succeeded(), result.failed(), result.dropped(), result.timedOut(),
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, latency.getValueAtPercentile(99.9) / 1000.0,
+                latency.getMaxValue() / 1000.0, passed ? "PASS" : "FAIL", result.errors().isEmpty() ? "" : " " + result.errors());
+        Path output = Path.of(options.get("output"));
+        Files.createDirectories(output);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(output.resolve(String.format(Locale.ROOT, "%s-%.0f.hgrm",
+                result.scenario(), result.offeredRate()))), false, StandardCharsets.UTF_8)) {
+            latency.outputPercentileDistribution(out, 1000.0); // Microseconds recorded, milliseconds printed
+        }
+    }
+
+    /** Publishes RPC requests to the request queue and completes them from the reply (or dead-letter) callback. */
+    private static OpenLoopDriver.Request rpcRequests(InMemoryBroker broker, byte[] body) {
+        Map<String, OpenLoopDriver.Completion> pending = new ConcurrentHashMap<>();
+        broker.onMessage(REPLY_QUEUE, (properties, reply) -> {
+            OpenLoopDriver.Completion completion = pending.remove(properties.getCorrelationId());
+            if (completion != null) {
+                completion.success();
+            }
+        });
+        broker.onDeadLetter((properties, message) -> {
+            OpenLoopDriver.Completion completion = pending.remove(properties.getCorrelationId());
+            if (completion != null) {
+                completion.failure(new DeadLetteredException());
+            }
+        });
+        return (sequence, completion) -> {
+            String correlationId = "lt-" + sequence + '-' + System.nanoTime();
+            pending.put(correlationId, completion);
+            broker.publish(MyRpcListener.REQUEST_QUEUE, new AMQP.BasicProperties.Builder()
+                    .correlationId(correlationId)
+                    .replyTo(REPLY_QUEUE)
+                    .contentType(WireFormat.JSON)
+                    .build(), body);
+        };
+    }
+
+    /**
+     * With rabbitmq disabled nothing binds the {@code @Queue} method, so this does what micronaut-rabbitmq would:
+     * {@code rpc.consumer.consumers} channels with {@link MyRpcListener#PREFETCH}, each delivery bound with the
+     * default mapper, the returned reply published to {@code replyTo}, failures rejected without requeue.
+     */
+    private static void bindListener(ApplicationContext context, InMemoryBroker broker, JsonMapper jsonMapper) throws IOException {
+        MyRpcListener listener = context.getBean(MyRpcListener.class);
+        int consumers = Math.max(1, context.getBean(RpcConsumerConfiguration.class).getConsumers());
+        for (int i = 0; i < consumers; i++) {
+            Channel channel = broker.getChannel();
+            channel.basicQos(MyRpcListener.PREFETCH);
+            channel.basicConsume(MyRpcListener.REQUEST_QUEUE, false, new DefaultConsumer(channel) {
+                @Override
+                public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+                    long tag = envelope.getDeliveryTag();
+                    SomeSpecificObject request = jsonMapper.readValue(body, SomeSpecificObject.class);
+                    listener.processRpcRequestAutoDeserializeSnake(request, properties).subscribe(
+                            reply -> {
+                                try {
+                                    channel.basicPublish("", properties.getReplyTo(), WireFormat.jsonReplyProperties(properties.getCorrelationId()),
+                                            jsonMapper.writeValueAsBytes(reply));
+                                    channel.basicAck(tag, false);
+                                } catch (IOException e) {
+                                    throw new IllegalStateException("In-memory publish failed", e);
+                                }
+                            },
+                            error -> {
+                                try {
+                                    channel.basicNack(tag, false, false);
+                                } catch (IOException e) {
+                                    throw new IllegalStateException("In-memory nack failed", e);
+                                }
+                            },
+                            () -> { });
+                }
+            });
+        }
+    }
+
+    /** A payload whose JSON form is roughly {@code jsonBytes} long; RPC requests carry Base64 sensitiveData. */
+    static SomeSpecificObject payload(int jsonBytes, boolean base64) {
+        Random random = new Random(jsonBytes); // Seeded so every run sees identical payloads
+        int length = Math.max(1, (jsonBytes - 60) * (base64 ? 3 : 4) / 4);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        String text = new String(chars);
+        return new SomeSpecificObject("id-load", "load test value", 42,
+                base64 ? Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8)) : text);
+    }
+
+    private Duration duration(String option) {
+        return parseDuration(option, options.get(option));
+    }
+
+    /** {@code 500us}, {@code 100ms}, {@code 10s} or {@code 2m}. */
+    static Duration parseDuration(String option, String text) {
+        String value = text.trim().toLowerCase(Locale.ROOT);
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("us")) {
+            return Duration.ofNanos(Long.parseLong(value.substring(0, value.length() - 2)) * 1000);
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("--" + option + " needs a unit (us, ms, s, m), got " + value);
+        };
+    }
+
+    /** An RPC request was rejected without requeue, so its requester never gets a reply. */
+    static final class DeadLetteredException extends RuntimeException {
+        DeadLetteredException() {
+            super("RPC request dead-lettered", null, false, false);
+        }
+    }
+}
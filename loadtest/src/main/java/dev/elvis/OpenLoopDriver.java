@@ -0,0 +1,116 @@
+package dev.elvis;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: requests start on a fixed schedule regardless of how many are still outstanding,
+ * the way independent clients arrive. Latency is measured from each request's <em>intended</em> start time,
+ * so a stalled system is charged for the requests it delayed (no coordinated omission).
+ * <p>
+ * Requests beyond {@code maxOutstanding} are dropped and counted instead of sent, so an overloaded run fails
+ * the step rather than the JVM.
+ */
+final class OpenLoopDriver {
+
+    /** One request; must eventually call exactly one of the completion methods. */
+    interface Request {
+        void start(long sequence, Completion completion);
+    }
+
+    interface Completion {
+        void success();
+
+        void failure(Throwable error);
+    }
+
+    record StepResult(String scenario, double offeredRate, long sent, long succeeded, long failed, long dropped,
+                      long timedOut, double throughput, Histogram latencyMicros, Map<String, Long> errors) {
+
+        long errorCount() {
+            return failed + dropped + timedOut;
+        }
+    }
+
+    private final int maxOutstanding;
+    private final Duration drainTimeout;
+
+    OpenLoopDriver(int maxOutstanding, Duration drainTimeout) {
+        this.maxOutstanding = maxOutstanding;
+        this.drainTimeout = drainTimeout;
+    }
+
+    StepResult run(String scenario, double ratePerSecond, Duration duration, Request request) {
+        Recorder recorder = new Recorder(3);
+        AtomicLong outstanding = new AtomicLong();
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLong lastCompletion = new AtomicLong();
+        Map<String, Long> errors = new ConcurrentHashMap<>();
+        long sent = 0;
+        long dropped = 0;
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long startedAt = System.nanoTime();
+        long endAt = startedAt + duration.toNanos();
+        for (long sequence = 0; ; sequence++) {
+            long intendedAt = startedAt + sequence * intervalNanos;
+            if (intendedAt >= endAt) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intendedAt) {
+                LockSupport.parkNanos(intendedAt - now);
+            }
+            if (outstanding.get() >= maxOutstanding) {
+                dropped++;
+                continue;
+            }
+            outstanding.incrementAndGet();
+            sent++;
+            request.start(sequence, new Completion() {
+                @Override
+                public void success() {
+                    complete(null);
+                }
+
+                @Override
+                public void failure(Throwable error) {
+                    complete(error);
+                }
+
+                private void complete(Throwable error) {
+                    long completedAt = System.nanoTime();
+                    recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(completedAt - intendedAt)));
+                    if (error == null) {
+                        succeeded.increment();
+                    } else {
+                        failed.increment();
+                        errors.merge(error.getClass().getSimpleName(), 1L, Long::sum);
+                    }
+                    lastCompletion.accumulateAndGet(completedAt, Math::max);
+                    outstanding.decrementAndGet();
+                }
+            });
+        }
+
+        long drainUntil = System.nanoTime() + drainTimeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < drainUntil) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        long timedOut = outstanding.get();
+        // Late completions after this point are not counted; the next step starts from fresh counters
+        long finishedAt = Math.max(lastCompletion.get(), endAt);
+        double throughput = succeeded.sum() / ((finishedAt - startedAt) / 1e9);
+        return new StepResult(scenario, ratePerSecond, sent, succeeded.sum(), failed.sum(), dropped, timedOut,
+                throughput, recorder.getIntervalHistogram(), Map.copyOf(errors));
+    }
+}
@@ -0,0 +1,83 @@
+package dev.elvis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient concurrency limit (after Netflix's Gradient2): the limit follows the ratio between a long-term
+ * average round trip time and the latest sample. While the upstream answers as fast as usual the limit grows
+ * by about {@code sqrt(limit)} per sample; once latency rises above {@code tolerance} times the average, queueing
+ * is building up upstream and the limit shrinks proportionally, down to half per sample. Drops (timeouts,
+ * 5xx, 429) cut it by {@code backoffRatio}. The limit only grows while at least half of it is in use, so an
+ * idle period does not leave it inflated.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    // Long-term RTT average over roughly this many samples
+    private static final double LONG_WINDOW = 600;
+
+    private final ExternalServiceConfiguration.Limiter configuration;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Written under this, read lock-free by tryAcquire
+    private volatile double limit;
+    private double longRttNanos;
+
+    AdaptiveConcurrencyLimiter(ExternalServiceConfiguration.Limiter configuration) {
+        if (configuration.getMinLimit() < 1 || configuration.getMaxLimit() < configuration.getMinLimit()) {
+            throw new IllegalArgumentException("external-service.limiter needs 1 <= min-limit <= max-limit");
+        }
+        this.configuration = configuration;
+        this.limit = clamp(configuration.getInitialLimit());
+    }
+
+    /** Takes a slot if fewer than {@link #limit()} calls are in flight. Pair with {@link #release()}. */
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /** Successful round trip of a call that started with {@code inFlightAtStart} calls in flight (itself included). */
+    synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+            // After a slow phase the average lags far behind a recovered upstream; pull it down faster
+            if (longRttNanos > 2.0 * rttNanos) {
+                longRttNanos *= 0.95;
+            }
+        }
+        if (inFlightAtStart < limit / 2) {
+            return; // Not using the limit, so the sample says nothing about a higher one
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, configuration.getTolerance() * longRttNanos / Math.max(1, rttNanos)));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - configuration.getSmoothing()) + target * configuration.getSmoothing());
+    }
+
+    /** The upstream timed out or signalled overload. */
+    synchronized void onDropped() {
+        limit = clamp(limit * configuration.getBackoffRatio());
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private double clamp(double value) {
+        return Math.max(configuration.getMinLimit(), Math.min(configuration.getMaxLimit(), value));
+    }
+}
@@ -0,0 +1,179 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AES-256-GCM engine. Wire format: {@code nonce(12) || ciphertext || tag(16)}.
+ * <p>
+ * {@link Cipher} lookups are expensive, so every thread keeps its own initialised instance
+ * (plus nonce state) and only re-inits it per message. Nonces are a random per-thread 64-bit
+ * prefix followed by a 32-bit counter, so no shared lock or {@link SecureRandom} call sits on the hot path.
+ * <p>
+ * Virtual threads are the exception: the {@code virtual} execution strategy starts one per task, so a per-thread
+ * instance would be built, used once and dropped. They borrow a cipher from a small shared pool instead.
+ */
+@Singleton
+@Requires(property = "crypto.engine", value = "aes-gcm", defaultValue = "aes-gcm")
+public class AesGcmCryptoEngine implements CryptoEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AesGcmCryptoEngine.class);
+
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    static final int NONCE_LENGTH = 12;
+    static final int TAG_LENGTH = 16;
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    // Crypto work does not block, so about one cipher per carrier thread is ever borrowed at a time
+    private static final int VIRTUAL_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final SecretKeySpec key;
+    private final AtomicInteger cipherStatesCreated = new AtomicInteger();
+    private final ThreadLocal<CipherState> cipherState = ThreadLocal.withInitial(this::newCipherState);
+    private final BlockingQueue<CipherState> virtualThreadStates = new ArrayBlockingQueue<>(VIRTUAL_POOL_SIZE);
+
+    public AesGcmCryptoEngine(@Value("${crypto.aes-gcm.key}") String base64Key) {
+        this(toKey(base64Key));
+        log.info("AES-256-GCM crypto engine initialised");
+    }
+
+    /** Engine for an already decoded key, e.g. an envelope data key from {@link DataKeyCache}. */
+    AesGcmCryptoEngine(SecretKeySpec key) {
+        this.key = key;
+    }
+
+    private static SecretKeySpec toKey(String base64Key) {
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(base64Key);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("crypto.aes-gcm.key must be Base64 encoded", e);
+        }
+        if (keyBytes.length != 32) {
+            throw new IllegalArgumentException("crypto.aes-gcm.key must be a 256-bit key, got " + keyBytes.length * 8 + " bits");
+        }
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+
+    @Override
+    public int encryptedLength(int plaintextLength) {
+        return NONCE_LENGTH + plaintextLength + TAG_LENGTH;
+    }
+
+    @Override
+    public int maxDecryptedLength(int ciphertextLength) {
+        return Math.max(0, ciphertextLength - NONCE_LENGTH - TAG_LENGTH);
+    }
+
+    @Override
+    public int encrypt(ByteBuffer plaintext, ByteBuffer ciphertextOut, @Nullable byte[] associatedData) {
+        CipherState state = acquire();
+        byte[] nonce = state.nextNonce();
+        try {
+            state.cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            if (associatedData != null) {
+                state.cipher.updateAAD(associatedData);
+            }
+            ciphertextOut.put(nonce);
+            return NONCE_LENGTH + state.cipher.doFinal(plaintext, ciphertextOut);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("AES-GCM encryption failed", e);
+        } finally {
+            release(state);
+        }
+    }
+
+    @Override
+    public int decrypt(ByteBuffer ciphertext, ByteBuffer plaintextOut, @Nullable byte[] associatedData) {
+        if (ciphertext.remaining() < NONCE_LENGTH + TAG_LENGTH) {
+            throw new CryptoException("Ciphertext too short: " + ciphertext.remaining() + " bytes");
+        }
+        CipherState state = acquire();
+        ciphertext.get(state.peerNonce);
+        try {
+            state.cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, state.peerNonce));
+            if (associatedData != null) {
+                state.cipher.updateAAD(associatedData);
+            }
+            return state.cipher.doFinal(ciphertext, plaintextOut);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("AES-GCM decryption failed", e);
+        } finally {
+            release(state);
+        }
+    }
+
+    /** Number of ciphers built so far; should stay near the number of threads doing crypto work. */
+    int cipherStatesCreated() {
+        return cipherStatesCreated.get();
+    }
+
+    private CipherState acquire() {
+        if (!Thread.currentThread().isVirtual()) {
+            return cipherState.get();
+        }
+        CipherState state = virtualThreadStates.poll();
+        return state != null ? state : newCipherState();
+    }
+
+    private void release(CipherState state) {
+        if (Thread.currentThread().isVirtual()) {
+            virtualThreadStates.offer(state); // Dropped if the pool is already full
+        }
+    }
+
+    private CipherState newCipherState() {
+        cipherStatesCreated.incrementAndGet();
+        return new CipherState();
+    }
+
+    /**
+     * Cipher and nonce generator, owned by one platform thread or lent to one virtual thread at a time,
+     * so it needs no synchronisation.
+     */
+    private static final class CipherState {
+        private final Cipher cipher;
+        // GCMParameterSpec copies its IV, so both arrays are reused across messages.
+        // nonce holds this thread's prefix + counter; peerNonce is scratch for incoming ciphertexts.
+        private final byte[] nonce = new byte[NONCE_LENGTH];
+        private final byte[] peerNonce = new byte[NONCE_LENGTH];
+        private int counter;
+
+        CipherState() {
+            try {
+                this.cipher = Cipher.getInstance(TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new CryptoException("AES-GCM is not available in this JVM", e);
+            }
+            SECURE_RANDOM.nextBytes(nonce);
+        }
+
+        byte[] nextNonce() {
+            if (++counter == 0) { // 2^32 messages on this prefix, draw a fresh one
+                SECURE_RANDOM.nextBytes(nonce);
+                counter = 1;
+            }
+            // Bytes 0-7 keep the random prefix, bytes 8-11 carry the counter
+            nonce[8] = (byte) (counter >>> 24);
+            nonce[9] = (byte) (counter >>> 16);
+            nonce[10] = (byte) (counter >>> 8);
+            nonce[11] = (byte) counter;
+            return nonce;
+        }
+    }
+}
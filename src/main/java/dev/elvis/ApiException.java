@@ -1,10 +1,10 @@
 package dev.elvis;
 
-public class ApiException extends RuntimeException {
+public class ApiException extends PipelineException {
     private final ErrorDto errorDetails;
     public ApiException(ErrorDto errorDetails) {
-        super(errorDetails.message() != null ? errorDetails.message() : "API Error");
+        super(Code.API_ERROR, errorDetails.message() != null ? errorDetails.message() : "API Error", null);
         this.errorDetails = errorDetails;
     }
     public ErrorDto getErrorDetails() { return errorDetails; }
-}
\ No newline at end of file
+}
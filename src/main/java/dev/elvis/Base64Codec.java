@@ -0,0 +1,227 @@
+package dev.elvis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * RFC 4648 Base64 (standard alphabet, padded output) that reads and writes caller-supplied buffers.
+ * {@link java.util.Base64} only encodes or decodes whole arrays into fresh ones, which costs one or two
+ * throwaway arrays per message; here Strings are read in place and output goes to a (pooled) buffer.
+ * <p>
+ * Decoding matches {@link java.util.Base64#getDecoder()}: padding is optional but must be correct if present,
+ * and any character outside the alphabet fails with {@link IllegalArgumentException}.
+ * <p>
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector}, inputs of {@value #VECTOR_THRESHOLD} bytes or
+ * characters and more go through the SIMD loops of {@link VectorBase64} first; the scalar loops here finish the
+ * tail and the padding, and report illegal characters. {@code -Ddev.elvis.base64.vector=false} keeps everything
+ * scalar. Without the module the vector class is never loaded.
+ */
+public final class Base64Codec {
+
+    private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int[] DECODE = new int[256];
+
+    static final String VECTOR_PROPERTY = "dev.elvis.base64.vector";
+    // Below this the scalar loops win, the vector loops need a few vectors of input to pay for their setup
+    static final int VECTOR_THRESHOLD = 256;
+    // Characters of a String copied and narrowed to ASCII per vector decoding step
+    private static final int DECODE_CHUNK = 4096;
+    // Chunk buffers of decodeVectorized; a shared queue rather than a ThreadLocal, which virtual threads would defeat
+    private static final BlockingQueue<Scratch> SCRATCH = new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+    static final boolean VECTORIZED = vectorized();
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base64Codec() {
+    }
+
+    private static boolean vectorized() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorBase64.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /** Exact encoded length of {@code length} bytes, padding included. */
+    public static int encodedLength(int length) {
+        return (length + 2) / 3 * 4;
+    }
+
+    /**
+     * Exact decoded length of valid Base64 {@code src}, padded or not, so it can be decoded straight into a right-sized
+     * array. Invalid input still fails in {@link #decode} before anything is written past this length.
+     */
+    public static int decodedLength(CharSequence src) {
+        int end = src.length();
+        for (int padding = 0; padding < 2 && end > 0 && src.charAt(end - 1) == '='; padding++) {
+            end--;
+        }
+        return end / 4 * 3 + Math.max(0, end % 4 - 1);
+    }
+
+    /** Upper bound of the decoded length of {@code length} Base64 characters. */
+    public static int maxDecodedLength(int length) {
+        return (length + 3) / 4 * 3;
+    }
+
+    /**
+     * Encodes the remaining bytes of {@code src} into {@code dst}, advancing both. Both buffers must be array-backed.
+     * @return number of characters written.
+     */
+    public static int encode(ByteBuffer src, ByteBuffer dst) {
+        int length = src.remaining();
+        int written = encode(src.array(), src.arrayOffset() + src.position(), length, dst.array(), dst.arrayOffset() + dst.position());
+        src.position(src.limit());
+        dst.position(dst.position() + written);
+        return written;
+    }
+
+    /** Encodes {@code src[off, off + len)} into {@code dst} at {@code dstOff}; returns the number of characters written. */
+    public static int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int done = VECTORIZED && len >= VECTOR_THRESHOLD ? VectorBase64.encodeBlocks(src, off, len, dst, dstOff) : 0;
+        int written = done / 3 * 4;
+        return written + encodeScalar(src, off + done, len - done, dst, dstOff + written);
+    }
+
+    static int encodeScalar(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int end = off + len - len % 3;
+        int d = dstOff;
+        for (int s = off; s < end; s += 3) {
+            int bits = (src[s] & 0xFF) << 16 | (src[s + 1] & 0xFF) << 8 | (src[s + 2] & 0xFF);
+            dst[d++] = ALPHABET[bits >>> 18];
+            dst[d++] = ALPHABET[(bits >>> 12) & 0x3F];
+            dst[d++] = ALPHABET[(bits >>> 6) & 0x3F];
+            dst[d++] = ALPHABET[bits & 0x3F];
+        }
+        int rest = len % 3;
+        if (rest > 0) {
+            int bits = (src[end] & 0xFF) << 16 | (rest == 2 ? (src[end + 1] & 0xFF) << 8 : 0);
+            dst[d++] = ALPHABET[bits >>> 18];
+            dst[d++] = ALPHABET[(bits >>> 12) & 0x3F];
+            dst[d++] = rest == 2 ? ALPHABET[(bits >>> 6) & 0x3F] : (byte) '=';
+            dst[d++] = '=';
+        }
+        return d - dstOff;
+    }
+
+    /** Encodes the remaining bytes of {@code src} into a String, using a pooled scratch buffer instead of a throwaway array. */
+    public static String encodeToString(ByteBuffer src, BufferPool pool) {
+        try (PooledBuffer encoded = pool.acquire(encodedLength(src.remaining()))) {
+            int length = encode(src, encoded.buffer());
+            return new String(encoded.array(), 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Decodes {@code src} into the array-backed {@code dst}, advancing it.
+     * @return number of bytes written.
+     * @throws IllegalArgumentException if {@code src} is not valid Base64.
+     */
+    public static int decode(CharSequence src, ByteBuffer dst) {
+        int written = decode(src, dst.array(), dst.arrayOffset() + dst.position());
+        dst.position(dst.position() + written);
+        return written;
+    }
+
+    /** Decodes {@code src} into {@code dst} at {@code dstOff}, which needs {@link #maxDecodedLength} bytes of room. */
+    public static int decode(CharSequence src, byte[] dst, int dstOff) {
+        int from = VECTORIZED && src instanceof String string && string.length() >= VECTOR_THRESHOLD
+                ? decodeVectorized(string, dst, dstOff) : 0;
+        int written = from / 4 * 3;
+        return written + decodeScalar(src, from, dst, dstOff + written);
+    }
+
+    /** Decodes the leading whole blocks of {@code src} with {@link VectorBase64}; returns the number of characters consumed. */
+    private static int decodeVectorized(String src, byte[] dst, int dstOff) {
+        Scratch scratch = SCRATCH.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        int from = 0;
+        try {
+            // Chunks overlap a little: each stops one or two vectors short of its end, the next one resumes there
+            for (int consumed = -1; consumed != 0; from += consumed) {
+                int length = Math.min(DECODE_CHUNK, src.length() - from);
+                src.getChars(from, from + length, scratch.chars, 0);
+                if (!VectorBase64.narrow(scratch.chars, length, scratch.ascii)) {
+                    break; // Not ASCII, so not Base64; the scalar loop reports where
+                }
+                consumed = VectorBase64.decodeBlocks(scratch.ascii, 0, length, dst, dstOff + from / 4 * 3);
+            }
+        } finally {
+            SCRATCH.offer(scratch); // Dropped when the queue is full
+        }
+        return from;
+    }
+
+    private static final class Scratch {
+        final char[] chars = new char[DECODE_CHUNK];
+        final byte[] ascii = new byte[DECODE_CHUNK];
+    }
+
+    /** Scalar decoding of {@code src} from index {@code from}, a multiple of 4 before any padding. */
+    static int decodeScalar(CharSequence src, int from, byte[] dst, int dstOff) {
+        int end = src.length();
+        int padding = 0;
+        while (padding < 2 && end > 0 && src.charAt(end - 1) == '=') {
+            padding++;
+            end--;
+        }
+        int rest = end % 4;
+        if (rest == 1 || (padding > 0 && (end + padding) % 4 != 0)) {
+            throw new IllegalArgumentException("Invalid Base64 length or padding");
+        }
+        int fullEnd = end - rest;
+        int d = dstOff;
+        for (int s = from; s < fullEnd; s += 4) {
+            int bits = value(src.charAt(s)) << 18 | value(src.charAt(s + 1)) << 12
+                    | value(src.charAt(s + 2)) << 6 | value(src.charAt(s + 3));
+            if (bits < 0) {
+                throw illegalCharacter(src, s, 4);
+            }
+            dst[d++] = (byte) (bits >>> 16);
+            dst[d++] = (byte) (bits >>> 8);
+            dst[d++] = (byte) bits;
+        }
+        if (rest > 0) {
+            int bits = value(src.charAt(fullEnd)) << 18 | value(src.charAt(fullEnd + 1)) << 12
+                    | (rest == 3 ? value(src.charAt(fullEnd + 2)) << 6 : 0);
+            if (bits < 0) {
+                throw illegalCharacter(src, fullEnd, rest);
+            }
+            dst[d++] = (byte) (bits >>> 16);
+            if (rest == 3) {
+                dst[d++] = (byte) (bits >>> 8);
+            }
+        }
+        return d - dstOff;
+    }
+
+    // -1 for anything outside the alphabet; shifted into a block it makes the whole block negative
+    private static int value(char c) {
+        return c < 256 ? DECODE[c] : -1;
+    }
+
+    private static IllegalArgumentException illegalCharacter(CharSequence src, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (value(src.charAt(i)) < 0) {
+                return new IllegalArgumentException("Illegal Base64 character '" + src.charAt(i) + "' at index " + i);
+            }
+        }
+        return new IllegalArgumentException("Illegal Base64 input");
+    }
+}
@@ -0,0 +1,64 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/** Fan-out settings for the batch APIs of {@link DecryptionService} and {@link MyBusinessService}. */
+@ConfigurationProperties("batch")
+public class BatchConfiguration {
+
+    /** Maximum number of concurrent upstream fetches in {@link MyBusinessService#getDecryptedDataBatch}. */
+    private int fetchConcurrency = 32;
+
+    /** Number of parallel rails doing CPU-bound decryption/deserialization. */
+    private int decryptConcurrency = Runtime.getRuntime().availableProcessors();
+
+    /** Emit results in input order (slightly more buffering) rather than completion order. */
+    private boolean preserveOrder = true;
+
+    private Send send = new Send();
+
+    public int getFetchConcurrency() { return fetchConcurrency; }
+    public void setFetchConcurrency(int fetchConcurrency) { this.fetchConcurrency = fetchConcurrency; }
+
+    public int getDecryptConcurrency() { return decryptConcurrency; }
+    public void setDecryptConcurrency(int decryptConcurrency) { this.decryptConcurrency = decryptConcurrency; }
+
+    public boolean isPreserveOrder() { return preserveOrder; }
+    public void setPreserveOrder(boolean preserveOrder) { this.preserveOrder = preserveOrder; }
+
+    public Send getSend() { return send; }
+    public void setSend(Send send) { this.send = send; }
+
+    /**
+     * Envelopes of {@link MyBusinessService#sendEncryptedDataBatch}: records are grouped until one of the limits
+     * is reached, then the group is encrypted and posted as one multi-record envelope.
+     */
+    @ConfigurationProperties("send")
+    public static class Send {
+
+        private int maxRecords = 500;
+
+        /** Estimated plaintext JSON per envelope; a single larger record still gets an envelope of its own. */
+        private int maxBytes = 1024 * 1024;
+
+        /** Longest a record waits for its envelope to fill up. */
+        private Duration maxWait = Duration.ofMillis(50);
+
+        /** Envelope POSTs in flight; records are only pulled from the source as these complete. */
+        private int concurrency = 4;
+
+        public int getMaxRecords() { return maxRecords; }
+        public void setMaxRecords(int maxRecords) { this.maxRecords = maxRecords; }
+
+        public int getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(int maxBytes) { this.maxBytes = maxBytes; }
+
+        public Duration getMaxWait() { return maxWait; }
+        public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+
+        public int getConcurrency() { return concurrency; }
+        public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+    }
+}
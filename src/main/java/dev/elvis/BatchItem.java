@@ -0,0 +1,21 @@
+package dev.elvis;
+
+/**
+ * Per-item outcome of a batch call. Exactly one of {@code result} and {@code failure} is set, so a single
+ * bad item never fails the whole batch. {@code index} is the position in the input and {@code key} the
+ * caller's identifier (null if there is none), which keeps unordered batches correlatable.
+ */
+public record BatchItem<T>(int index, String key, DecryptionResult<T> result, Throwable failure) {
+
+    public static <T> BatchItem<T> of(int index, String key, DecryptionResult<T> result) {
+        return new BatchItem<>(index, key, result, null);
+    }
+
+    public static <T> BatchItem<T> failed(int index, String key, Throwable failure) {
+        return new BatchItem<>(index, key, null, failure);
+    }
+
+    public boolean isFailure() {
+        return failure != null;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Raw-bytes counterpart of {@link CryptoWrapper}. Used inside the service so ciphertext stays binary
+ * end to end; Base64 is only applied when converting to/from the JSON transport wrapper, with {@link Base64Codec}
+ * writing straight into the right-sized array or String instead of the JDK codec's intermediate copies.
+ * The array is not copied - callers must not mutate it after handing it over.
+ */
+public record BinaryCryptoWrapper(byte[] data, @Nullable KeyId key, @Nullable String encoding) {
+
+    public BinaryCryptoWrapper(byte[] data) {
+        this(data, null, null);
+    }
+
+    public static BinaryCryptoWrapper fromCryptoWrapper(CryptoWrapper wrapper) {
+        byte[] data = new byte[Base64Codec.decodedLength(wrapper.data())];
+        Base64Codec.decode(wrapper.data(), data, 0);
+        return new BinaryCryptoWrapper(data, wrapper.key(), wrapper.encoding());
+    }
+
+    public CryptoWrapper toCryptoWrapper() {
+        byte[] encoded = new byte[Base64Codec.encodedLength(data.length)];
+        Base64Codec.encode(data, 0, data.length, encoded, 0);
+        return new CryptoWrapper(new String(encoded, StandardCharsets.ISO_8859_1), key, encoding);
+    }
+}
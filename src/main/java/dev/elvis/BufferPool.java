@@ -0,0 +1,107 @@
+package dev.elvis;
+
+import jakarta.inject.Singleton;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of scratch buffers for the per-message arrays of the crypto pipeline (Base64 output, serialized JSON,
+ * plaintext, ciphertext). Buffers come in power-of-two size classes and are handed out as {@link PooledBuffer}
+ * leases.
+ * <p>
+ * Ownership: whoever acquires a lease owns it and must close it exactly once, on the same synchronous code path.
+ * Leases never cross a reactive operator boundary; whatever leaves the pipeline (a String, an exactly-sized
+ * ciphertext array, a deserialized object) is copied out before the lease is closed, so a cancelled or failed
+ * Mono cannot strand a buffer. Closing twice throws, as that would hand one array to two owners.
+ * <p>
+ * Buffers are heap arrays, not direct ones: Jackson and the cipher both work on arrays, so a direct buffer would
+ * only add a copy. A lease that is never closed is not a memory leak (the array is garbage collected), but it
+ * defeats pooling; {@code crypto.buffers.leak-detection} records acquisition sites so tests can catch that.
+ */
+@Singleton
+public class BufferPool {
+
+    private final BufferPoolConfiguration configuration;
+    private final int minShift;
+    private final int maxPooledSize;
+    private final BlockingQueue<byte[]>[] classes;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // Only populated with leak detection on
+    private final Map<PooledBuffer, Throwable> acquisitionSites = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public BufferPool(BufferPoolConfiguration configuration) {
+        this.configuration = configuration;
+        this.minShift = shift(Math.max(16, configuration.getMinSize()));
+        this.maxPooledSize = 1 << Math.max(minShift, shift(configuration.getMaxPooledSize()));
+        this.classes = new BlockingQueue[shift(maxPooledSize) - minShift + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new ArrayBlockingQueue<>(Math.max(1, configuration.getMaxPerClass()));
+        }
+    }
+
+    /**
+     * Leases a buffer with room for at least {@code capacity} bytes. The returned buffer's position is 0
+     * and its limit is {@code capacity}; it is array-backed and may contain stale zeroes beyond what is written.
+     */
+    public PooledBuffer acquire(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative buffer capacity: " + capacity);
+        }
+        int sizeClass = configuration.isEnabled() && capacity <= maxPooledSize ? sizeClass(capacity) : -1;
+        byte[] array = sizeClass >= 0 ? classes[sizeClass].poll() : null;
+        if (array == null) {
+            array = new byte[sizeClass >= 0 ? 1 << (sizeClass + minShift) : capacity];
+        }
+        PooledBuffer lease = new PooledBuffer(this, array, capacity, sizeClass);
+        outstanding.incrementAndGet();
+        if (configuration.isLeakDetection()) {
+            acquisitionSites.put(lease, new Throwable("Buffer of " + capacity + " bytes acquired here"));
+        }
+        return lease;
+    }
+
+    void release(PooledBuffer lease, byte[] array, int used) {
+        outstanding.decrementAndGet();
+        if (configuration.isLeakDetection()) {
+            acquisitionSites.remove(lease);
+        }
+        if (lease.sizeClass() < 0) {
+            return;
+        }
+        if (configuration.isScrub()) {
+            Arrays.fill(array, 0, used, (byte) 0);
+        }
+        classes[lease.sizeClass()].offer(array); // Pool full: leave it to the GC
+    }
+
+    /** Leases acquired and not yet closed. */
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    /** Acquisition stack traces of the outstanding leases; empty unless leak detection is on. */
+    public String leakReport() {
+        StringWriter report = new StringWriter();
+        PrintWriter out = new PrintWriter(report);
+        out.println(outstanding() + " outstanding buffer lease(s)");
+        acquisitionSites.values().forEach(site -> site.printStackTrace(out));
+        return report.toString();
+    }
+
+    private int sizeClass(int capacity) {
+        return Math.max(0, shift(capacity) - minShift);
+    }
+
+    // log2 of the next power of two >= n
+    private static int shift(int n) {
+        return n <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(n - 1);
+    }
+}
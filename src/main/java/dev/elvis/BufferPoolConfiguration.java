@@ -0,0 +1,44 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/** Settings for the pooled scratch buffers of the crypto hot path, see {@link BufferPool}. */
+@ConfigurationProperties("crypto.buffers")
+public class BufferPoolConfiguration {
+
+    /** false: every lease allocates a fresh array, e.g. to compare GC behaviour with and without pooling. */
+    private boolean enabled = true;
+
+    /** Smallest size class; rounded up to a power of two. */
+    private int minSize = 1024;
+
+    /** Largest pooled size class; bigger requests are allocated per use. Rounded up to a power of two. */
+    private int maxPooledSize = 1024 * 1024;
+
+    /** Idle buffers kept per size class. */
+    private int maxPerClass = Runtime.getRuntime().availableProcessors() * 4;
+
+    /** Zero the used region on release, so no plaintext lingers in idle buffers. */
+    private boolean scrub = true;
+
+    /** Record where every outstanding lease was acquired; costs a stack trace per lease, meant for tests. */
+    private boolean leakDetection = false;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMinSize() { return minSize; }
+    public void setMinSize(int minSize) { this.minSize = minSize; }
+
+    public int getMaxPooledSize() { return maxPooledSize; }
+    public void setMaxPooledSize(int maxPooledSize) { this.maxPooledSize = maxPooledSize; }
+
+    public int getMaxPerClass() { return maxPerClass; }
+    public void setMaxPerClass(int maxPerClass) { this.maxPerClass = maxPerClass; }
+
+    public boolean isScrub() { return scrub; }
+    public void setScrub(boolean scrub) { this.scrub = scrub; }
+
+    public boolean isLeakDetection() { return leakDetection; }
+    public void setLeakDetection(boolean leakDetection) { this.leakDetection = leakDetection; }
+}
@@ -0,0 +1,25 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.util.List;
+
+/**
+ * Response of the external service's bulk endpoint ({@link MyExternalServiceClient#postEncryptedResources}):
+ * the records it rejected, by their index in the envelope. Every other record of the envelope was stored.
+ */
+@Serdeable
+public record BulkPostResult(@Nullable List<Rejection> rejected) {
+
+    /** Every record accepted; also what an empty response body means. */
+    public static final BulkPostResult ACCEPTED = new BulkPostResult(List.of());
+
+    public List<Rejection> rejectedOrEmpty() {
+        return rejected != null ? rejected : List.of();
+    }
+
+    @Serdeable
+    public record Rejection(int index, ErrorDto error) {
+    }
+}
@@ -0,0 +1,120 @@
+package dev.elvis;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. CLOSED tracks the outcome of the last {@code window} calls and opens once at least
+ * {@code minimumCalls} were seen and the failure rate reaches the threshold. OPEN refuses every call for
+ * {@code openDuration}, then HALF_OPEN lets {@code halfOpenCalls} trial calls through: all succeed and it closes,
+ * any fails and it opens again. Results of calls started in an earlier state are ignored once the state changed.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final ExternalServiceConfiguration.Breaker configuration;
+    private final LongSupplier nanoClock;
+    private final long openNanos;
+
+    // All guarded by this
+    private final boolean[] failures;
+    private int next;
+    private int recorded;
+    private int failed;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    CircuitBreaker(ExternalServiceConfiguration.Breaker configuration, LongSupplier nanoClock) {
+        this.configuration = configuration;
+        this.nanoClock = nanoClock;
+        this.openNanos = configuration.getOpenDuration().toNanos();
+        this.failures = new boolean[Math.max(1, configuration.getWindow())];
+    }
+
+    /** The state a call acquired now would run in, or null if the call is refused. */
+    synchronized State tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                return null;
+            }
+            state = State.HALF_OPEN;
+            trialPermits = configuration.getHalfOpenCalls();
+            trialSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialPermits == 0) {
+                return null;
+            }
+            trialPermits--;
+        }
+        return state;
+    }
+
+    synchronized void onSuccess(State acquiredIn) {
+        if (acquiredIn != state) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++trialSuccesses >= configuration.getHalfOpenCalls()) {
+                reset(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure(State acquiredIn) {
+        if (acquiredIn != state) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= configuration.getMinimumCalls() && failed >= configuration.getFailureRateThreshold() * recorded) {
+                open();
+            }
+        }
+    }
+
+    /** The call was cancelled before it had an outcome; hands a trial permit back. */
+    synchronized void onCancel(State acquiredIn) {
+        if (acquiredIn == State.HALF_OPEN && state == State.HALF_OPEN) {
+            trialPermits++;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            // Window full: the oldest outcome drops out
+            if (failures[next]) {
+                failed--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failed++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        next = 0;
+        recorded = 0;
+        failed = 0;
+    }
+}
@@ -0,0 +1,37 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/** Settings for the optional compress-before-encrypt stage, see {@link PayloadCompressor}. */
+@ConfigurationProperties("crypto.compression")
+public class CompressionConfiguration {
+
+    private boolean enabled = false;
+
+    /** Serialized payloads smaller than this are sent uncompressed; below it deflate costs more than it saves. */
+    private int minSize = 1024;
+
+    /** Deflate level, 1 (fastest) to 9 (smallest). */
+    private int level = 1;
+
+    /** Upper bound for an inflated payload, so a forged flag or bomb cannot exhaust the heap. */
+    private int maxInflatedSize = 16 * 1024 * 1024;
+
+    /** Deflater/Inflater instances kept for reuse; each holds native zlib memory. */
+    private int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMinSize() { return minSize; }
+    public void setMinSize(int minSize) { this.minSize = minSize; }
+
+    public int getLevel() { return level; }
+    public void setLevel(int level) { this.level = level; }
+
+    public int getMaxInflatedSize() { return maxInflatedSize; }
+    public void setMaxInflatedSize(int maxInflatedSize) { this.maxInflatedSize = maxInflatedSize; }
+
+    public int getPoolSize() { return poolSize; }
+    public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+}
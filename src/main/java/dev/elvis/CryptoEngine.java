@@ -0,0 +1,70 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Pluggable cipher used by {@link EncryptionService} and {@link DecryptionService}.
+ * The active implementation is selected with the {@code crypto.engine} property, so call sites never
+ * reference a concrete engine. Implementations must be thread-safe.
+ * <p>
+ * The {@link ByteBuffer} methods are the primitive operations: they write straight into a caller-supplied
+ * buffer so the services can size the output once and avoid intermediate copies. The {@code byte[]}
+ * variants are conveniences on top of them.
+ * <p>
+ * Associated data is authenticated but not encrypted or transmitted: it binds a ciphertext to its context
+ * (a field name, a record id, a header), and decryption fails unless the same bytes are supplied again.
+ */
+public interface CryptoEngine {
+
+    /** Exact ciphertext size produced for a plaintext of the given length. */
+    int encryptedLength(int plaintextLength);
+
+    /** Upper bound of the plaintext size recovered from a ciphertext of the given length. */
+    int maxDecryptedLength(int ciphertextLength);
+
+    /**
+     * Encrypts the remaining bytes of {@code plaintext} into {@code ciphertextOut}
+     * (nonce and tag included, if any), advancing both buffers.
+     * @param associatedData bytes to authenticate along with the ciphertext, or {@code null} for none
+     * @return number of bytes written to {@code ciphertextOut}.
+     */
+    int encrypt(ByteBuffer plaintext, ByteBuffer ciphertextOut, @Nullable byte[] associatedData);
+
+    /**
+     * Reverses {@link #encrypt(ByteBuffer, ByteBuffer, byte[])}, advancing both buffers.
+     * @param associatedData the bytes given to {@code encrypt}, or {@code null} if none were
+     * @return number of bytes written to {@code plaintextOut}.
+     * @throws CryptoException if the ciphertext is malformed or fails authentication.
+     */
+    int decrypt(ByteBuffer ciphertext, ByteBuffer plaintextOut, @Nullable byte[] associatedData);
+
+    /** {@link #encrypt(ByteBuffer, ByteBuffer, byte[])} without associated data. */
+    default int encrypt(ByteBuffer plaintext, ByteBuffer ciphertextOut) {
+        return encrypt(plaintext, ciphertextOut, null);
+    }
+
+    /** {@link #decrypt(ByteBuffer, ByteBuffer, byte[])} without associated data. */
+    default int decrypt(ByteBuffer ciphertext, ByteBuffer plaintextOut) {
+        return decrypt(ciphertext, plaintextOut, null);
+    }
+
+    /** Encrypts the plaintext into a self-contained ciphertext (nonce and tag included, if any). */
+    default byte[] encrypt(byte[] plaintext) {
+        byte[] out = new byte[encryptedLength(plaintext.length)];
+        encrypt(ByteBuffer.wrap(plaintext), ByteBuffer.wrap(out));
+        return out;
+    }
+
+    /**
+     * Reverses {@link #encrypt(byte[])}.
+     * @throws CryptoException if the ciphertext is malformed or fails authentication.
+     */
+    default byte[] decrypt(byte[] ciphertext) {
+        byte[] out = new byte[maxDecryptedLength(ciphertext.length)];
+        int length = decrypt(ByteBuffer.wrap(ciphertext), ByteBuffer.wrap(out));
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.elvis;
+
+public class CryptoException extends PipelineException {
+    public CryptoException(String message, Throwable cause) {
+        super(Code.CRYPTO, message, cause);
+    }
+    public CryptoException(String message) {
+        super(Code.CRYPTO, message, null);
+    }
+}
@@ -0,0 +1,36 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/** Where {@link EncryptionService} and {@link DecryptionService} run their CPU-bound serde and crypto work. */
+@ConfigurationProperties("crypto.execution")
+public class CryptoExecutionConfiguration {
+
+    public enum Strategy {
+        /** Run on the subscribing thread, no hop at all. Best for small payloads on an already non-blocking caller. */
+        INLINE,
+        /** Reactor parallel scheduler with one worker per core, sized for CPU-bound work. */
+        PARALLEL,
+        /** One virtual thread per task (JDK 21). Ciphers come from a shared pool, not from the short-lived threads. */
+        VIRTUAL,
+        /** Fixed pool with a bounded queue; work is rejected with {@link CryptoOverloadedException} once it is full. */
+        BOUNDED
+    }
+
+    private Strategy strategy = Strategy.PARALLEL;
+
+    /** Worker threads for PARALLEL and BOUNDED. */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Tasks waiting for a worker before BOUNDED starts shedding load. */
+    private int queueCapacity = 1024;
+
+    public Strategy getStrategy() { return strategy; }
+    public void setStrategy(Strategy strategy) { this.strategy = strategy; }
+
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+}
@@ -0,0 +1,8 @@
+package dev.elvis;
+
+/** Crypto work was shed because the bounded execution queue is full; callers should back off or answer 503. */
+public class CryptoOverloadedException extends PipelineException {
+    public CryptoOverloadedException(String message, Throwable cause) {
+        super(Code.OVERLOADED, message, cause);
+    }
+}
@@ -0,0 +1,97 @@
+package dev.elvis;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.ParallelFlux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link Scheduler} for CPU-bound crypto and serde work, chosen by {@code crypto.execution.strategy}.
+ * Replaces {@code boundedElastic()}, which is sized for blocking I/O and oversubscribes the cores with
+ * CPU-bound tasks. The helpers below also translate a rejection from the BOUNDED queue into
+ * {@link CryptoOverloadedException}, so shed load is distinguishable from a real failure.
+ */
+@Singleton
+public class CryptoScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CryptoScheduler.class);
+
+    private final CryptoExecutionConfiguration.Strategy strategy;
+    private final Scheduler scheduler;
+
+    public CryptoScheduler(CryptoExecutionConfiguration configuration) {
+        this.strategy = configuration.getStrategy();
+        int parallelism = Math.max(1, configuration.getParallelism());
+        this.scheduler = switch (strategy) {
+            case INLINE -> Schedulers.immediate();
+            case PARALLEL -> Schedulers.newParallel("crypto", parallelism, true);
+            case VIRTUAL -> Schedulers.fromExecutorService(
+                    Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("crypto-vt-", 0).factory()), "crypto-virtual");
+            case BOUNDED -> Schedulers.fromExecutorService(boundedExecutor(parallelism, configuration.getQueueCapacity()), "crypto-bounded");
+        };
+        log.info("Crypto work runs with the {} execution strategy", strategy);
+    }
+
+    public CryptoExecutionConfiguration.Strategy getStrategy() {
+        return strategy;
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /** Subscribes {@code work} on the crypto scheduler. */
+    public <T> Mono<T> subscribeOn(Mono<T> work) {
+        return work.subscribeOn(scheduler).onErrorMap(CryptoScheduler::isRejection, CryptoScheduler::overloaded);
+    }
+
+    /** Moves downstream processing of {@code source} onto the crypto scheduler. */
+    public <T> Flux<T> publishOn(Flux<T> source) {
+        return source.publishOn(scheduler).onErrorMap(CryptoScheduler::isRejection, CryptoScheduler::overloaded);
+    }
+
+    /** Runs the rails of {@code rails} on the crypto scheduler. */
+    public <T> ParallelFlux<T> runOn(ParallelFlux<T> rails) {
+        return rails.runOn(scheduler);
+    }
+
+    static boolean isRejection(Throwable e) {
+        return e instanceof RejectedExecutionException || Exceptions.unwrap(e) instanceof RejectedExecutionException;
+    }
+
+    static CryptoOverloadedException overloaded(Throwable e) {
+        return new CryptoOverloadedException("Crypto execution queue is full, request shed", e);
+    }
+
+    @PreDestroy
+    void close() {
+        scheduler.dispose();
+    }
+
+    private static ThreadPoolExecutor boundedExecutor(int parallelism, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "crypto-bounded-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+        return executor;
+    }
+}
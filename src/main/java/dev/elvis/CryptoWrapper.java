@@ -1,7 +1,30 @@
 package dev.elvis;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.serde.annotation.Serdeable;
 
+/**
+ * Transport wrapper for Base64 ciphertext. {@code keyId}/{@code keyVersion} name the envelope data key the
+ * payload was encrypted under; both are absent for payloads encrypted with the engine's static key.
+ * {@code encoding} names the compression applied before encryption ({@link PayloadCompressor#DEFLATE}), if any,
+ * and is authenticated with the ciphertext.
+ */
 @Serdeable
-public record CryptoWrapper(String data) {
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CryptoWrapper(String data, @Nullable String keyId, @Nullable Integer keyVersion, @Nullable String encoding) {
+
+    public CryptoWrapper(String data) {
+        this(data, null, null, null);
+    }
+
+    public CryptoWrapper(String data, @Nullable KeyId key, @Nullable String encoding) {
+        this(data, key != null ? key.id() : null, key != null ? key.version() : null, encoding);
+    }
+
+    /** The data key named by this wrapper, or null if it was encrypted without envelope encryption. */
+    @Nullable
+    public KeyId key() {
+        return keyId != null ? new KeyId(keyId, keyVersion != null ? keyVersion : 0) : null;
+    }
 }
@@ -0,0 +1,86 @@
+package dev.elvis;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Arrays;
+
+/**
+ * Unwrapped envelope data keys, held as ready-to-use {@link CryptoEngine}s so decrypting a message is a
+ * map lookup rather than a key-service round trip.
+ * <p>
+ * Keys expire after {@code crypto.envelope.ttl}; once a key in use is older than {@code refresh-ahead} it is
+ * re-fetched in the background while the cached engine keeps serving, so hot keys never block on the provider.
+ * Any number of key versions can be cached at once, which keeps old messages decryptable during a rotation.
+ */
+@Singleton
+@Requires(beans = KeyProvider.class)
+public class DataKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DataKeyCache.class);
+    private static final String ACTIVE = "active";
+
+    private final KeyProvider keyProvider;
+    private final LoadingCache<KeyId, CryptoEngine> engines;
+    // Single entry, refreshed in the background the same way, so a rotation is picked up without a restart
+    private final LoadingCache<String, KeyId> activeKey;
+
+    public DataKeyCache(KeyProvider keyProvider, EnvelopeConfiguration configuration, @Nullable MeterRegistry meterRegistry) {
+        this.keyProvider = keyProvider;
+        this.engines = Caffeine.newBuilder()
+                .maximumSize(configuration.getMaximumKeys())
+                .expireAfterWrite(configuration.getTtl())
+                .refreshAfterWrite(configuration.getRefreshAhead())
+                .recordStats()
+                .build(this::load);
+        this.activeKey = Caffeine.newBuilder()
+                .refreshAfterWrite(configuration.getActiveKeyRefresh())
+                .build(key -> keyProvider.activeKey());
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, engines, "data-keys");
+        }
+    }
+
+    /** The key new messages are encrypted under. */
+    public KeyId activeKey() {
+        return activeKey.get(ACTIVE);
+    }
+
+    /**
+     * Engine for {@code keyId}, loading the key from the {@link KeyProvider} on a miss.
+     * @throws CryptoException if the provider does not know the key.
+     */
+    public CryptoEngine engine(KeyId keyId) {
+        return engines.get(keyId);
+    }
+
+    public void invalidate(KeyId keyId) {
+        engines.invalidate(keyId);
+    }
+
+    public CacheStats stats() {
+        return engines.stats();
+    }
+
+    private CryptoEngine load(KeyId keyId) {
+        byte[] dataKey = keyProvider.dataKey(keyId);
+        try {
+            if (dataKey.length != 32) {
+                throw new CryptoException("Data key " + keyId + " is not a 256-bit key");
+            }
+            log.debug("Loaded data key {}", keyId);
+            return new AesGcmCryptoEngine(new SecretKeySpec(dataKey, "AES"));
+        } finally {
+            Arrays.fill(dataKey, (byte) 0); // SecretKeySpec keeps its own copy
+        }
+    }
+}
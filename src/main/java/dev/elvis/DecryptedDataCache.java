@@ -0,0 +1,101 @@
+package dev.elvis;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Bounded cache of decrypted {@link SomeSpecificObject}s keyed by id, used by {@link MyBusinessService}.
+ * <p>
+ * Entries are in-flight futures, so concurrent callers for the same id share a single upstream call and
+ * decryption (single-flight). {@link ApiException} outcomes are cached for {@code negative-ttl}; any other
+ * failure is shared with the callers already waiting but never cached.
+ */
+@Singleton
+@Requires(property = "decrypted-cache.enabled", value = "true")
+public class DecryptedDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DecryptedDataCache.class);
+
+    private final AsyncCache<String, Outcome> cache;
+
+    public DecryptedDataCache(DecryptedDataCacheConfiguration configuration, @Nullable MeterRegistry meterRegistry) {
+        long ttlNanos = configuration.getTtl().toNanos();
+        long negativeTtlNanos = configuration.getNegativeTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(configuration.getMaximumSize())
+                .expireAfter(new Expiry<String, Outcome>() {
+                    @Override
+                    public long expireAfterCreate(String id, Outcome outcome, long currentTime) {
+                        return outcome.errorDetails() != null ? negativeTtlNanos : ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, Outcome outcome, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, outcome, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, Outcome outcome, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "decrypted-data");
+        }
+        log.info("Decrypted data cache enabled (maximumSize={}, ttl={}, negativeTtl={})",
+                configuration.getMaximumSize(), configuration.getTtl(), configuration.getNegativeTtl());
+    }
+
+    /**
+     * Returns the cached object for {@code id}, or subscribes {@code loader} once and shares its result with
+     * every concurrent caller. Cancelling one caller never cancels the shared load.
+     */
+    public Mono<SomeSpecificObject> get(String id, Function<String, Mono<SomeSpecificObject>> loader) {
+        return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key)
+                                .map(Outcome::success)
+                                .onErrorResume(ApiException.class, e -> Mono.just(Outcome.failure(e.getErrorDetails())))
+                                .toFuture()), true)
+                // A fresh exception per caller, so cached errors never share mutable exception state across threads
+                .flatMap(outcome -> outcome.errorDetails() != null
+                        ? Mono.error(new ApiException(outcome.errorDetails()))
+                        : Mono.just(outcome.value()));
+    }
+
+    public void invalidate(String id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /** Hit, miss and eviction counters since startup. */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /** Cached value: either the decrypted object or the business error to replay. */
+    private record Outcome(SomeSpecificObject value, ErrorDto errorDetails) {
+        static Outcome success(SomeSpecificObject value) {
+            return new Outcome(value, null);
+        }
+
+        static Outcome failure(ErrorDto errorDetails) {
+            return new Outcome(null, errorDetails);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/** Settings for {@link DecryptedDataCache}; the cache only exists when {@code decrypted-cache.enabled} is true. */
+@ConfigurationProperties("decrypted-cache")
+public class DecryptedDataCacheConfiguration {
+
+    private boolean enabled = false;
+
+    /** Maximum number of cached ids before size-based eviction kicks in. */
+    private long maximumSize = 10_000;
+
+    /** Lifetime of a successfully decrypted object. */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /** Lifetime of a cached {@link ApiException}; short, just enough to absorb error storms. */
+    private Duration negativeTtl = Duration.ofSeconds(5);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getMaximumSize() { return maximumSize; }
+    public void setMaximumSize(long maximumSize) { this.maximumSize = maximumSize; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+    public Duration getNegativeTtl() { return negativeTtl; }
+    public void setNegativeTtl(Duration negativeTtl) { this.negativeTtl = negativeTtl; }
+}
@@ -1,79 +1,584 @@
 package dev.elvis;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.BeanProvider;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.ParallelFlux;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 @Singleton
 public class DecryptionService {
 
     private static final Logger log = LoggerFactory.getLogger(DecryptionService.class);
-    // Assume crypto helper configured internally
+    private static final String OPERATION = "decrypt";
+    private static final String BATCH_OPERATION = "decrypt-batch";
+    private static final String STREAM_OPERATION = "decrypt-stream";
+    private static final String FIELDS_OPERATION = "decrypt-fields";
+
+    @Inject CryptoEngine cryptoEngine;
+    @Inject BatchConfiguration batchConfiguration;
+    @Inject PipelineMetrics metrics;
+    @Inject CryptoScheduler cryptoScheduler;
+    // Only present when crypto.envelope.enabled=true
+    @Inject @Nullable DataKeyCache dataKeys;
+    @Inject PayloadCompressor compressor;
+    @Inject BufferPool bufferPool;
+    // Resolved lazily, only streaming callers need the segmented cipher
+    @Inject BeanProvider<StreamingAesGcm> streamingAead;
+
+    // Top-level fields whose presence marks a payload as an ErrorDto (camel and snake case by default)
+    @Value("${decryption.error-marker-fields:errorCode,error_code}")
+    List<String> errorMarkerFields = List.of("errorCode", "error_code");
 
     /**
      * Decrypts the Base64 encoded data and deserializes the resulting JSON
      * into either the target success type or a specific ErrorDto.
      */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            String encryptedBase64Data,
+            Class<T> successType,
+            PayloadCodec codec) {
+        return decoder(successType, codec).decrypt(encryptedBase64Data);
+    }
+
+    /** Jackson variant of {@link #decryptAndDeserialize(String, Class, PayloadCodec)}. */
     public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
             String encryptedBase64Data,
             Class<T> successType,
             ObjectMapper specificMapper) {
+        return decryptAndDeserialize(encryptedBase64Data, successType, jackson(specificMapper));
+    }
+
+    /**
+     * Transport wrapper variant: decrypts with the envelope data key the wrapper names (a cached lookup),
+     * or with the engine's static key if it names none, and reverses the compression named in {@code encoding}.
+     */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            CryptoWrapper wrapper,
+            Class<T> successType,
+            PayloadCodec codec) {
+        return decoder(successType, codec).decrypt(wrapper);
+    }
+
+    /** Jackson variant of {@link #decryptAndDeserialize(CryptoWrapper, Class, PayloadCodec)}. */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            CryptoWrapper wrapper,
+            Class<T> successType,
+            ObjectMapper specificMapper) {
+        return decryptAndDeserialize(wrapper, successType, jackson(specificMapper));
+    }
+
+    /** Binary counterpart of {@link #decryptAndDeserialize(CryptoWrapper, Class, PayloadCodec)}. */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            BinaryCryptoWrapper wrapper,
+            Class<T> successType,
+            PayloadCodec codec) {
+        return decoder(successType, codec).decrypt(wrapper);
+    }
+
+    /** Jackson variant of {@link #decryptAndDeserialize(BinaryCryptoWrapper, Class, PayloadCodec)}. */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            BinaryCryptoWrapper wrapper,
+            Class<T> successType,
+            ObjectMapper specificMapper) {
+        return decryptAndDeserialize(wrapper, successType, jackson(specificMapper));
+    }
+
+    /** Binary variant of {@link #decryptAndDeserialize(String, Class, PayloadCodec)} for raw ciphertext. */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            byte[] encryptedData,
+            Class<T> successType,
+            PayloadCodec codec) {
+        return decoder(successType, codec).decrypt(encryptedData);
+    }
+
+    /** Jackson variant of {@link #decryptAndDeserialize(byte[], Class, PayloadCodec)}. */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            byte[] encryptedData,
+            Class<T> successType,
+            ObjectMapper specificMapper) {
+        return decryptAndDeserialize(encryptedData, successType, jackson(specificMapper));
+    }
+
+    /**
+     * {@link ByteBuffer} variant; decrypts the buffer's remaining bytes. The buffer is consumed,
+     * so callers must not reuse it until the returned Mono completes.
+     */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            ByteBuffer encryptedData,
+            Class<T> successType,
+            PayloadCodec codec) {
+        return decoder(successType, codec).decrypt(encryptedData);
+    }
+
+    /** Jackson variant of {@link #decryptAndDeserialize(ByteBuffer, Class, PayloadCodec)}. */
+    public <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            ByteBuffer encryptedData,
+            Class<T> successType,
+            ObjectMapper specificMapper) {
+        return decryptAndDeserialize(encryptedData, successType, jackson(specificMapper));
+    }
+
+    /**
+     * Field-level counterpart of {@link EncryptionService#serializeWithEncryptedFields}: parses the JSON with a
+     * field-level codec, decrypting only the {@link Encrypted} properties of the success type. Error payloads
+     * are plain {@link ErrorDto}s, as in whole-object mode.
+     */
+    public <T> Mono<DecryptionResult<T>> deserializeWithEncryptedFields(
+            byte[] json,
+            Class<T> successType,
+            PayloadCodec fieldCodec) {
+
+        if (json == null || json.length == 0) {
+            return Mono.error(new IllegalArgumentException("Payload cannot be null or empty"));
+        }
+        PayloadCodec.Binding<T> success = fieldCodec.bind(Argument.of(successType));
+        return decryptAndDeserialize(FIELDS_OPERATION, () -> deserializePayload(ByteBuffer.wrap(json), success, fieldCodec),
+                success, fieldCodec);
+    }
+
+    /**
+     * Typed handle for repeated decryption into one type: the codec's reader for {@code successType} is resolved
+     * here, once, instead of on every call. Generic types work too, e.g. {@code Argument.listOf(SomeSpecificObject.class)}
+     * for a payload that is a JSON array.
+     */
+    public <T> Decoder<T> decoder(Argument<T> successType, PayloadCodec codec) {
+        if (codec == null) throw new IllegalArgumentException("Codec cannot be null");
+        return new Decoder<>(codec.bind(successType), codec);
+    }
+
+    /** {@link Class} variant of {@link #decoder(Argument, PayloadCodec)}. */
+    public <T> Decoder<T> decoder(Class<T> successType, PayloadCodec codec) {
+        return decoder(Argument.of(successType), codec);
+    }
+
+    /** Jackson variant of {@link #decoder(Argument, PayloadCodec)}, e.g. {@code new TypeReference<List<SomeSpecificObject>>() {}}. */
+    @SuppressWarnings("unchecked")
+    public <T> Decoder<T> decoder(TypeReference<T> successType, ObjectMapper specificMapper) {
+        return decoder((Argument<T>) Argument.of(successType.getType()), jackson(specificMapper));
+    }
+
+    /**
+     * Decryption into one type with the codec binding already resolved; see {@link #decoder(Argument, PayloadCodec)}.
+     * Thread-safe, meant to be created once and kept.
+     */
+    public final class Decoder<T> {
+        private final PayloadCodec.Binding<T> success;
+        private final PayloadCodec codec;
+
+        private Decoder(PayloadCodec.Binding<T> success, PayloadCodec codec) {
+            this.success = success;
+            this.codec = codec;
+        }
+
+        public Argument<T> type() {
+            return success.type();
+        }
+
+        /** See {@link DecryptionService#decryptAndDeserialize(String, Class, PayloadCodec)}. */
+        public Mono<DecryptionResult<T>> decrypt(String encryptedBase64Data) {
+            if (encryptedBase64Data == null || encryptedBase64Data.isEmpty()) {
+                return Mono.error(new IllegalArgumentException("Encrypted data cannot be null or empty"));
+            }
+            return decryptAndDeserialize(() -> {
+                try (PooledBuffer ciphertext = base64Decode(encryptedBase64Data)) {
+                    return decryptPayload(ciphertext.buffer(), null, null, success, codec);
+                }
+            }, success, codec);
+        }
+
+        /** See {@link DecryptionService#decryptAndDeserialize(CryptoWrapper, Class, PayloadCodec)}. */
+        public Mono<DecryptionResult<T>> decrypt(CryptoWrapper wrapper) {
+            if (wrapper == null || wrapper.data() == null || wrapper.data().isEmpty()) {
+                return Mono.error(new IllegalArgumentException("Encrypted data cannot be null or empty"));
+            }
+            return decryptAndDeserialize(() -> {
+                try (PooledBuffer ciphertext = base64Decode(wrapper.data())) {
+                    return decryptPayload(ciphertext.buffer(), wrapper.key(), wrapper.encoding(), success, codec);
+                }
+            }, success, codec);
+        }
+
+        /** See {@link DecryptionService#decryptAndDeserialize(BinaryCryptoWrapper, Class, PayloadCodec)}. */
+        public Mono<DecryptionResult<T>> decrypt(BinaryCryptoWrapper wrapper) {
+            if (wrapper == null || wrapper.data() == null || wrapper.data().length == 0) {
+                return Mono.error(new IllegalArgumentException("Encrypted data cannot be null or empty"));
+            }
+            return decryptAndDeserialize(() -> decryptPayload(ByteBuffer.wrap(wrapper.data()), wrapper.key(), wrapper.encoding(),
+                    success, codec), success, codec);
+        }
+
+        /** See {@link DecryptionService#decryptAndDeserialize(byte[], Class, PayloadCodec)}. */
+        public Mono<DecryptionResult<T>> decrypt(byte[] encryptedData) {
+            if (encryptedData == null || encryptedData.length == 0) {
+                return Mono.error(new IllegalArgumentException("Encrypted data cannot be null or empty"));
+            }
+            return decryptAndDeserialize(() -> decryptPayload(ByteBuffer.wrap(encryptedData), null, null, success, codec),
+                    success, codec);
+        }
+
+        /** See {@link DecryptionService#decryptAndDeserialize(ByteBuffer, Class, PayloadCodec)}. */
+        public Mono<DecryptionResult<T>> decrypt(ByteBuffer encryptedData) {
+            if (encryptedData == null || !encryptedData.hasRemaining()) {
+                return Mono.error(new IllegalArgumentException("Encrypted data cannot be null or empty"));
+            }
+            return decryptAndDeserialize(() -> decryptPayload(encryptedData, null, null, success, codec),
+                    success, codec);
+        }
+
+        /** See {@link DecryptionService#decryptAndDeserializeMany(Flux, Class, PayloadCodec, int, boolean)}. */
+        public Flux<BatchItem<T>> decryptMany(Flux<String> encryptedBase64Data, int concurrency, boolean preserveOrder) {
+            return decryptEntries(
+                    encryptedBase64Data.index().map(t -> new EncryptedEntry(t.getT1().intValue(), null, new CryptoWrapper(t.getT2()), null)),
+                    concurrency, preserveOrder);
+        }
 
-        if (encryptedBase64Data == null || encryptedBase64Data.isEmpty()) {
-            return Mono.error(new IllegalArgumentException("Encrypted data cannot be null or empty"));
+        Flux<BatchItem<T>> decryptEntries(Flux<EncryptedEntry> entries, int concurrency, boolean preserveOrder) {
+            return DecryptionService.this.decryptEntries(entries, success, codec, concurrency, preserveOrder);
         }
+    }
+
+    /**
+     * Runs {@code work} on the crypto scheduler. The work is synchronous and closes every buffer lease it takes,
+     * so pooled buffers never outlive the callable, whether the Mono completes, fails or is cancelled.
+     */
+    private <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            Callable<DecryptionResult<T>> work,
+            PayloadCodec.Binding<T> success,
+            PayloadCodec codec) {
+        return decryptAndDeserialize(OPERATION, work, success, codec);
+    }
+
+    private <T> Mono<DecryptionResult<T>> decryptAndDeserialize(
+            String operation,
+            Callable<DecryptionResult<T>> work,
+            PayloadCodec.Binding<T> success,
+            PayloadCodec codec) {
 
-        return Mono.fromCallable(() -> Base64.getDecoder().decode(encryptedBase64Data))
-                .flatMap(this::performDecryption)
-                .flatMap(decryptedBytes -> deserializePayload(decryptedBytes, successType, specificMapper))
-                .subscribeOn(Schedulers.boundedElastic())
-                .doOnError(e -> log.error("Decryption and deserialization process failed", e))
-                .onErrorMap(e -> !(e instanceof DeserializationException), e -> new RuntimeException("Decryption process failed", e));
+        Class<T> successType = success.type().getType();
+        return Mono.defer(() -> {
+                    long enqueuedAt = metrics.start();
+                    return cryptoScheduler.subscribeOn(Mono.fromCallable(() -> {
+                        metrics.recordQueueing(operation, enqueuedAt); // Runs on the worker
+                        return work.call();
+                    }));
+                })
+                .doOnNext(result -> recordOutcome(operation, result, successType, codec))
+                .doOnError(e -> recordFailure(operation, e, successType, codec))
+                .onErrorMap(DecryptionService::isUnexpected, e -> wrap("Decryption process failed", e));
     }
 
-    /** Internal helper for the core crypto decryption */
-    private Mono<byte[]> performDecryption(byte[] encryptedBytes) {
-        return Mono.fromCallable(() -> {
-                    // byte[] decryptedBytes = cryptoHelper.decryptBytes(encryptedBytes); // Actual decryption
-                    String temp = new String(encryptedBytes, StandardCharsets.UTF_8); // Placeholder
-                    if (!temp.startsWith("enc-")) {
-                        throw new RuntimeException("Decryption failed (placeholder check)");
+    /**
+     * Streaming variant for large payloads in the segmented {@link StreamingAesGcm} format. Ciphertext chunks
+     * may be split anywhere; each completed segment is decrypted and fed straight into a non-blocking JSON parser.
+     * A root object yields one result, a root array yields one result per element as soon as it is parsed,
+     * so peak memory depends on the segment size and the largest element, not on the payload size.
+     */
+    public <T> Flux<DecryptionResult<T>> decryptStream(
+            Flux<ByteBuffer> encryptedChunks,
+            Class<T> successType,
+            ObjectMapper specificMapper) {
+
+        // Serde has no incremental parser for byte chunks, so streaming stays on Jackson's non-blocking one
+        JacksonPayloadCodec codec = JacksonPayloadCodec.of(specificMapper);
+        PayloadCodec.Binding<T> success = codec.bind(Argument.of(successType));
+        return Flux.defer(() -> {
+                    StreamingAesGcm.Decryptor decryptor = streamingAead.get().newDecryptor();
+                    StreamingJsonDecoder decoder = new StreamingJsonDecoder(specificMapper);
+                    return cryptoScheduler.publishOn(encryptedChunks)
+                            .concatMapIterable(chunk -> {
+                                List<JsonNode> values = new ArrayList<>();
+                                decryptor.update(chunk, plaintext -> values.addAll(decoder.feed(plaintext)));
+                                return values;
+                            })
+                            .concatWith(Flux.defer(() -> {
+                                List<JsonNode> values = new ArrayList<>();
+                                decryptor.doFinal(plaintext -> values.addAll(decoder.feed(plaintext)));
+                                values.addAll(decoder.finish());
+                                return Flux.fromIterable(values);
+                            }));
+                })
+                .map(value -> {
+                    if (!value.isObject()) {
+                        throw new DeserializationException("Streamed value is not a JSON object");
+                    }
+                    try {
+                        return toResult(codec.tree(value), success);
+                    } catch (IOException | IllegalArgumentException e) {
+                        throw new DeserializationException("Cannot deserialize streamed value as " + successType.getSimpleName(), e);
                     }
-                    // Placeholder
-                    return temp.substring(4).getBytes(StandardCharsets.UTF_8);
                 })
-                .onErrorMap(e -> new RuntimeException("Core decryption failed", e));
+                .doOnNext(result -> recordOutcome(STREAM_OPERATION, result, successType, codec))
+                .doOnError(e -> recordFailure(STREAM_OPERATION, e, successType, codec))
+                .onErrorMap(DecryptionService::isUnexpected, e -> wrap("Streaming decryption failed", e));
     }
 
-    /** Internal helper to handle deserialization attempts */
-    private <T> Mono<DecryptionResult<T>> deserializePayload(
-            byte[] decryptedJsonBytes,
+    /**
+     * Batch variant of {@link #decryptAndDeserialize(String, Class, PayloadCodec)} using the configured
+     * concurrency and ordering ({@code batch.decrypt-concurrency}, {@code batch.preserve-order}).
+     */
+    public <T> Flux<BatchItem<T>> decryptAndDeserializeMany(
+            Flux<String> encryptedBase64Data,
+            Class<T> successType,
+            PayloadCodec codec) {
+
+        return decryptAndDeserializeMany(encryptedBase64Data, successType, codec,
+                batchConfiguration.getDecryptConcurrency(), batchConfiguration.isPreserveOrder());
+    }
+
+    /** Jackson variant of {@link #decryptAndDeserializeMany(Flux, Class, PayloadCodec)}. */
+    public <T> Flux<BatchItem<T>> decryptAndDeserializeMany(
+            Flux<String> encryptedBase64Data,
             Class<T> successType,
             ObjectMapper specificMapper) {
+        return decryptAndDeserializeMany(encryptedBase64Data, successType, jackson(specificMapper));
+    }
 
-        return Mono.fromCallable(() -> {
-            try { // Attempt 1: Success Type
-                T successData = specificMapper.readValue(decryptedJsonBytes, successType);
-                return new DecryptionResult.Success<>(successData);
-            } catch (IOException e) {
-                log.warn("Failed to deserialize as success type ({}), attempting error DTO. Reason: {}", successType.getName(), e.getMessage());
-                try { // Attempt 2: Error DTO
-                    ErrorDto errorData = specificMapper.readValue(decryptedJsonBytes, ErrorDto.class);
-                    return new DecryptionResult.Error<>(errorData);
-                } catch (IOException e2) {
-                    log.error("Failed to deserialize decrypted data as success OR error type. Payload (limited): {}",
-                            new String(decryptedJsonBytes, 0, Math.min(decryptedJsonBytes.length, 200), StandardCharsets.UTF_8), e2);
-                    throw new DeserializationException("Cannot deserialize decrypted payload as "
-                            + successType.getSimpleName() + " or " + ErrorDto.class.getSimpleName(), e2);
-                }
+    /**
+     * Decrypts a stream of Base64 payloads on {@code concurrency} parallel rails. Items are drained by each rail
+     * in bulk instead of being scheduled one by one, and every input yields a {@link BatchItem}, failures included.
+     * @param preserveOrder emit in input order; otherwise in completion order (correlate via {@link BatchItem#index()}).
+     */
+    public <T> Flux<BatchItem<T>> decryptAndDeserializeMany(
+            Flux<String> encryptedBase64Data,
+            Class<T> successType,
+            PayloadCodec codec,
+            int concurrency,
+            boolean preserveOrder) {
+
+        return decoder(successType, codec).decryptMany(encryptedBase64Data, concurrency, preserveOrder);
+    }
+
+    /** Jackson variant of {@link #decryptAndDeserializeMany(Flux, Class, PayloadCodec, int, boolean)}. */
+    public <T> Flux<BatchItem<T>> decryptAndDeserializeMany(
+            Flux<String> encryptedBase64Data,
+            Class<T> successType,
+            ObjectMapper specificMapper,
+            int concurrency,
+            boolean preserveOrder) {
+        return decryptAndDeserializeMany(encryptedBase64Data, successType, jackson(specificMapper), concurrency, preserveOrder);
+    }
+
+    /** One input of {@link #decryptEntries}; a non-null failure (e.g. from fetching) is passed through as is. */
+    record EncryptedEntry(int index, String key, CryptoWrapper encrypted, Throwable failure) {
+    }
+
+    private <T> Flux<BatchItem<T>> decryptEntries(
+            Flux<EncryptedEntry> entries,
+            PayloadCodec.Binding<T> success,
+            PayloadCodec codec,
+            int concurrency,
+            boolean preserveOrder) {
+
+        ParallelFlux<BatchItem<T>> rails = cryptoScheduler.runOn(entries.parallel(Math.max(1, concurrency)))
+                .map(entry -> decryptEntry(entry, success, codec));
+        // Every rail sees its entries in arrival order, so merging by index restores input order
+        // as long as the entries themselves arrive in order
+        return (preserveOrder ? rails.ordered(Comparator.comparingInt(BatchItem::index)) : rails.sequential())
+                .onErrorMap(CryptoScheduler::isRejection, CryptoScheduler::overloaded);
+    }
+
+    private <T> BatchItem<T> decryptEntry(EncryptedEntry entry, PayloadCodec.Binding<T> success, PayloadCodec codec) {
+        Class<T> successType = success.type().getType();
+        if (entry.failure() != null) {
+            return BatchItem.failed(entry.index(), entry.key(), entry.failure());
+        }
+        String data = entry.encrypted() != null ? entry.encrypted().data() : null;
+        if (data == null || data.isEmpty()) {
+            return BatchItem.failed(entry.index(), entry.key(), new IllegalArgumentException("Encrypted data cannot be null or empty"));
+        }
+        try (PooledBuffer ciphertext = base64Decode(data)) {
+            DecryptionResult<T> result = decryptPayload(ciphertext.buffer(), entry.encrypted().key(), entry.encrypted().encoding(),
+                    success, codec);
+            recordOutcome(BATCH_OPERATION, result, successType, codec);
+            return BatchItem.of(entry.index(), entry.key(), result);
+        } catch (RuntimeException e) {
+            recordFailure(BATCH_OPERATION, e, successType, codec);
+            return BatchItem.failed(entry.index(), entry.key(),
+                    e instanceof DeserializationException ? e : wrap("Decryption process failed", e));
+        }
+    }
+
+    /** Decrypt, decompress and deserialize; the plaintext lease is released before returning. */
+    private <T> DecryptionResult<T> decryptPayload(
+            ByteBuffer encryptedData,
+            @Nullable KeyId key,
+            @Nullable String encoding,
+            PayloadCodec.Binding<T> success,
+            PayloadCodec codec) {
+
+        try (PooledBuffer plaintext = performDecryption(encryptedData, key, encoding)) {
+            return deserializePayload(decompress(plaintext.buffer(), encoding), success, codec);
+        }
+    }
+
+    /**
+     * Internal helper for the core crypto decryption. Plaintext is written into a pooled buffer
+     * sized by the engine; the returned lease's buffer marks the valid region, so it is never trimmed or copied.
+     * The {@code encoding} is authenticated too, so a stripped or forged compression flag fails here.
+     */
+    private PooledBuffer performDecryption(ByteBuffer encryptedData, @Nullable KeyId key, @Nullable String encoding) {
+        long startedAt = metrics.start();
+        PooledBuffer plaintext = null;
+        try {
+            CryptoEngine engine = engineFor(key);
+            metrics.recordPayloadSize(OPERATION, PipelineMetrics.Payload.CIPHERTEXT, encryptedData.remaining());
+            plaintext = bufferPool.acquire(engine.maxDecryptedLength(encryptedData.remaining()));
+            engine.decrypt(encryptedData, plaintext.buffer(), PayloadCompressor.associatedData(encoding));
+            metrics.recordPayloadSize(OPERATION, PipelineMetrics.Payload.PLAINTEXT, plaintext.buffer().position());
+            plaintext.buffer().flip();
+            return plaintext;
+        } catch (RuntimeException e) {
+            if (plaintext != null) {
+                plaintext.close();
+            }
+            throw wrap("Core decryption failed", e);
+        } finally {
+            metrics.recordStage(PipelineMetrics.Stage.DECRYPT, startedAt);
+        }
+    }
+
+    private ByteBuffer decompress(ByteBuffer plaintext, @Nullable String encoding) {
+        if (encoding == null) {
+            return plaintext;
+        }
+        if (!PayloadCompressor.DEFLATE.equals(encoding)) {
+            throw new DeserializationException("Unsupported payload encoding: " + encoding);
+        }
+        long startedAt = metrics.start();
+        ByteBuffer inflated = compressor.decompress(plaintext);
+        metrics.recordStage(PipelineMetrics.Stage.DECOMPRESS, startedAt);
+        return inflated;
+    }
+
+    private CryptoEngine engineFor(@Nullable KeyId key) {
+        if (key == null) {
+            return cryptoEngine;
+        }
+        if (dataKeys == null) {
+            throw new CryptoException("Payload uses data key " + key + " but envelope encryption is disabled");
+        }
+        return dataKeys.engine(key);
+    }
+
+    // Decodes straight into a pooled buffer; the caller owns the returned lease
+    private PooledBuffer base64Decode(String encryptedBase64Data) {
+        long startedAt = metrics.start();
+        PooledBuffer decoded = bufferPool.acquire(Base64Codec.maxDecodedLength(encryptedBase64Data.length()));
+        try {
+            Base64Codec.decode(encryptedBase64Data, decoded.buffer());
+        } catch (IllegalArgumentException e) {
+            decoded.close();
+            throw e;
+        }
+        decoded.buffer().flip();
+        metrics.recordStage(PipelineMetrics.Stage.BASE64_DECODE, startedAt);
+        return decoded;
+    }
+
+    /**
+     * Internal helper to handle deserialization. The payload is parsed into a tree exactly once; the presence
+     * of any configured marker field (e.g. {@code errorCode}) selects {@link ErrorDto}, otherwise the success type.
+     * The normal error path therefore throws nothing and logs nothing. A root array is only accepted for
+     * collection and array success types.
+     */
+    private <T> DecryptionResult<T> deserializePayload(
+            ByteBuffer decryptedJson,
+            PayloadCodec.Binding<T> success,
+            PayloadCodec codec) {
+
+        long startedAt = metrics.start();
+        PayloadCodec.Tree tree;
+        try {
+            tree = codec.readTree(decryptedJson.array(), decryptedJson.arrayOffset() + decryptedJson.position(), decryptedJson.remaining());
+        } catch (IOException | RuntimeException e) {
+            throw deserializationFailure(decryptedJson, "JSON", e);
+        }
+        if (!tree.isObject() && !(tree.isArray() && isContainer(success.type()))) {
+            throw deserializationFailure(decryptedJson, "JSON object", null);
+        }
+        try {
+            return toResult(tree, success);
+        } catch (IOException | IllegalArgumentException e) {
+            throw deserializationFailure(decryptedJson,
+                    isErrorPayload(tree) ? ErrorDto.class.getSimpleName() : success.type().getTypeString(true), e);
+        } finally {
+            metrics.recordStage(PipelineMetrics.Stage.DESERIALIZE, startedAt);
+        }
+    }
+
+    private <T> DecryptionResult<T> toResult(PayloadCodec.Tree tree, PayloadCodec.Binding<T> success) throws IOException {
+        return isErrorPayload(tree)
+                ? new DecryptionResult.Error<>(tree.bind(ErrorDto.class))
+                : new DecryptionResult.Success<>(success.read(tree));
+    }
+
+    private static boolean isContainer(Argument<?> type) {
+        return type.isContainerType() || type.getType().isArray();
+    }
+
+    private DeserializationException deserializationFailure(ByteBuffer decryptedJson, String expected, Exception cause) {
+        // The failure itself is logged (rate-limited) by the caller; the plaintext excerpt is opt-in
+        if (log.isDebugEnabled()) {
+            log.debug("Failed to deserialize decrypted data as {}. Payload (limited): {}", expected,
+                    new String(decryptedJson.array(), decryptedJson.arrayOffset() + decryptedJson.position(),
+                            Math.min(decryptedJson.remaining(), 200), StandardCharsets.UTF_8));
+        }
+        return new DeserializationException("Cannot deserialize decrypted payload as " + expected, cause);
+    }
+
+    private void recordOutcome(String operation, DecryptionResult<?> result, Class<?> successType, PayloadCodec codec) {
+        metrics.recordOutcome(operation, result.isSuccess() ? PipelineMetrics.Outcome.SUCCESS : PipelineMetrics.Outcome.ERROR,
+                successType, codec);
+    }
+
+    private void recordFailure(String operation, Throwable e, Class<?> successType, PayloadCodec codec) {
+        PipelineMetrics.Outcome outcome = e instanceof DeserializationException ? PipelineMetrics.Outcome.DESERIALIZATION_FAILURE
+                : e instanceof CryptoOverloadedException ? PipelineMetrics.Outcome.REJECTED
+                : PipelineMetrics.Outcome.FAILURE;
+        metrics.recordOutcome(operation, outcome, successType, codec);
+    }
+
+    private static PayloadCodec jackson(ObjectMapper mapper) {
+        return mapper != null ? JacksonPayloadCodec.of(mapper) : null;
+    }
+
+    // Stackless, the cause already has a trace if it is worth one
+    private static PipelineException wrap(String message, Throwable cause) {
+        return new PipelineException(PipelineException.codeOf(cause), message, cause);
+    }
+
+    // Deserialization failures and shed load keep their type so callers can tell them apart
+    private static boolean isUnexpected(Throwable e) {
+        return !(e instanceof DeserializationException) && !(e instanceof CryptoOverloadedException);
+    }
+
+    private boolean isErrorPayload(PayloadCodec.Tree tree) {
+        if (!tree.isObject()) {
+            return false;
+        }
+        for (String marker : errorMarkerFields) {
+            if (tree.hasNonNull(marker)) {
+                return true;
             }
-        });
+        }
+        return false;
     }
 }
\ No newline at end of file
@@ -1,10 +1,10 @@
 package dev.elvis;
 
-public class DeserializationException extends RuntimeException {
+public class DeserializationException extends PipelineException {
     public DeserializationException(String message, Throwable cause) {
-        super(message, cause);
+        super(Code.DESERIALIZATION, message, cause);
     }
     public DeserializationException(String message) {
-        super(message);
+        super(Code.DESERIALIZATION, message, null);
     }
-}
\ No newline at end of file
+}
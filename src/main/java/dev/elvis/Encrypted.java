@@ -0,0 +1,28 @@
+package dev.elvis;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code String} property of a {@code @Serdeable} type as sensitive: Micronaut Serde writes it as the
+ * Base64 ciphertext of its UTF-8 value and decrypts it again when reading (see {@link EncryptedFieldSerde}).
+ * Every other property stays readable, so e.g. an {@code id} can be used for routing without any decryption.
+ * <p>
+ * Codecs used inside a whole-object ciphertext ({@link SerdePayloadCodec#create}) leave these fields plain,
+ * since the envelope already covers them; field-level codecs ({@link SerdePayloadCodec#createFieldLevel}) and
+ * the application's default Serde mapper encrypt them. Jackson mappers ignore the annotation.
+ * <p>
+ * Ciphertexts are bound to the property name and, under a field-level codec, to the record's {@code id}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@Serdeable.Serializable(using = EncryptedFieldSerde.class)
+@Serdeable.Deserializable(using = EncryptedFieldSerde.class)
+public @interface Encrypted {
+}
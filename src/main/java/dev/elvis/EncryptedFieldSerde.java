@@ -0,0 +1,121 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import io.micronaut.serde.Decoder;
+import io.micronaut.serde.Encoder;
+import io.micronaut.serde.Serde;
+import io.micronaut.serde.exceptions.SerdeException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Serde for {@link Encrypted} properties: the UTF-8 value is encrypted with the application's {@link CryptoEngine}
+ * and written as Base64, inline while the rest of the object is serialized. Runs on whichever thread serializes,
+ * so callers doing it in bulk should be on the crypto scheduler (as {@link EncryptionService} is).
+ * <p>
+ * Inside a whole-object ciphertext the field is written plain; the codec signals that through its Serde
+ * configuration ({@link SerdePayloadCodec.EnvelopeScoped}).
+ * <p>
+ * Each ciphertext authenticates, as associated data, the property name and the {@code id} of the record that
+ * owns it, so a ciphertext copied into another field or another record fails to decrypt. Field-level codecs
+ * put the record id in scope ({@link #withRecordId}); the application's default mapper has no such scope and
+ * binds the property name only.
+ */
+@Singleton
+@Bean(typed = EncryptedFieldSerde.class) // Only reachable through @Encrypted, never Serde's default for String
+public class EncryptedFieldSerde implements Serde<String> {
+
+    // Serde reads and writes a whole object on the calling thread, so the owning record's id can ride along here
+    private static final ThreadLocal<String> RECORD_ID = new ThreadLocal<>();
+
+    @Inject CryptoEngine cryptoEngine;
+    @Inject BufferPool bufferPool;
+    @Inject PipelineMetrics metrics;
+
+    @Override
+    public void serialize(Encoder encoder, EncoderContext context, Argument<? extends String> type, String value) throws IOException {
+        if (value == null) {
+            encoder.encodeNull();
+        } else if (insideEnvelope(context.getSerializationConfiguration())) {
+            encoder.encodeString(value);
+        } else {
+            encoder.encodeString(encrypt(value, type.getName(), RECORD_ID.get()));
+        }
+    }
+
+    @Override
+    public String deserialize(Decoder decoder, DecoderContext context, Argument<? super String> type) throws IOException {
+        String value = decoder.decodeString();
+        if (insideEnvelope(context.getDeserializationConfiguration())) {
+            return value;
+        }
+        try {
+            return decrypt(value, type.getName(), RECORD_ID.get());
+        } catch (IllegalArgumentException | CryptoException e) {
+            throw new SerdeException("Cannot decrypt @Encrypted field: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs {@code action} with {@code recordId} bound into every {@link Encrypted} field it writes or reads.
+     * Scopes nest, so a record serialized while another one is in progress restores the outer id afterwards.
+     */
+    static <T> T withRecordId(@Nullable String recordId, RecordAction<T> action) throws IOException {
+        String outer = RECORD_ID.get();
+        RECORD_ID.set(recordId);
+        try {
+            return action.run();
+        } finally {
+            if (outer == null) {
+                RECORD_ID.remove();
+            } else {
+                RECORD_ID.set(outer);
+            }
+        }
+    }
+
+    String encrypt(String value, String property, @Nullable String recordId) {
+        byte[] plaintext = value.getBytes(StandardCharsets.UTF_8);
+        try (PooledBuffer ciphertext = bufferPool.acquire(cryptoEngine.encryptedLength(plaintext.length))) {
+            long startedAt = metrics.start();
+            cryptoEngine.encrypt(ByteBuffer.wrap(plaintext), ciphertext.buffer(), associatedData(property, recordId));
+            metrics.recordStage(PipelineMetrics.Stage.FIELD_ENCRYPT, startedAt);
+            return Base64Codec.encodeToString(ciphertext.buffer().flip(), bufferPool);
+        }
+    }
+
+    String decrypt(String encoded, String property, @Nullable String recordId) {
+        try (PooledBuffer ciphertext = bufferPool.acquire(Base64Codec.maxDecodedLength(encoded.length()))) {
+            Base64Codec.decode(encoded, ciphertext.buffer());
+            ciphertext.buffer().flip();
+            try (PooledBuffer plaintext = bufferPool.acquire(cryptoEngine.maxDecryptedLength(ciphertext.buffer().remaining()))) {
+                long startedAt = metrics.start();
+                int length = cryptoEngine.decrypt(ciphertext.buffer(), plaintext.buffer(), associatedData(property, recordId));
+                metrics.recordStage(PipelineMetrics.Stage.FIELD_DECRYPT, startedAt);
+                return new String(plaintext.array(), 0, length, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    // Property names cannot contain NUL, so the two parts never run into each other
+    private static byte[] associatedData(String property, @Nullable String recordId) {
+        return (property + '\0' + (recordId == null ? "" : recordId)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean insideEnvelope(Optional<?> configuration) {
+        return configuration.orElse(null) instanceof SerdePayloadCodec.EnvelopeScoped scoped && scoped.envelopeScoped();
+    }
+
+    /** Serialization or deserialization of one record. */
+    @FunctionalInterface
+    interface RecordAction<T> {
+        T run() throws IOException;
+    }
+}
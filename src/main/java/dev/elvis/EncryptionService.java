@@ -1,19 +1,32 @@
 package dev.elvis;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.nio.ByteBuffer;
 
 @Singleton
 public class EncryptionService {
     private static final Logger log = LoggerFactory.getLogger(EncryptionService.class);
-    // No mapper injected here, it must be provided by the caller
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    private static final String OPERATION = "encrypt";
+    private static final String FIELDS_OPERATION = "encrypt-fields";
+    // No mapper or codec injected here, it must be provided by the caller
+
+    @Inject CryptoEngine cryptoEngine;
+    @Inject PipelineMetrics metrics;
+    @Inject CryptoScheduler cryptoScheduler;
+    // Only present when crypto.envelope.enabled=true
+    @Inject @Nullable DataKeyCache dataKeys;
+    @Inject PayloadCompressor compressor;
+    @Inject BufferPool bufferPool;
 
     /**
      * Serializes object using the *provided* ObjectMapper and encrypts.
@@ -22,20 +35,237 @@ public class EncryptionService {
      * @return Mono emitting Base64 encoded encrypted string.
      */
     public Mono<String> serializeAndEncrypt(Object plainObject, ObjectMapper specificMapper) {
+        return serializeAndEncrypt(plainObject, jackson(specificMapper));
+    }
+
+    /** {@link PayloadCodec} variant of {@link #serializeAndEncrypt(Object, ObjectMapper)}. */
+    public Mono<String> serializeAndEncrypt(Object plainObject, PayloadCodec codec) {
+        return encrypt(plainObject, null, codec, false, this::sealToBase64);
+    }
+
+    /**
+     * Binary variant of {@link #serializeAndEncrypt(Object, ObjectMapper)}: JSON is written into a growable
+     * buffer and encrypted straight into an exactly-sized ciphertext array, with no intermediate Strings.
+     * @return Mono emitting the raw ciphertext.
+     */
+    public Mono<byte[]> serializeAndEncryptToBytes(Object plainObject, ObjectMapper specificMapper) {
+        return serializeAndEncryptToBytes(plainObject, jackson(specificMapper));
+    }
+
+    /** {@link PayloadCodec} variant of {@link #serializeAndEncryptToBytes(Object, ObjectMapper)}. */
+    public Mono<byte[]> serializeAndEncryptToBytes(Object plainObject, PayloadCodec codec) {
+        return encrypt(plainObject, null, codec, false, this::sealToWrapper).map(BinaryCryptoWrapper::data);
+    }
+
+    /**
+     * Convenience for callers that keep ciphertext binary until the transport edge. With envelope encryption
+     * enabled the payload is encrypted under the active data key, which the wrapper names. With
+     * {@code crypto.compression.enabled} payloads of at least {@code min-size} bytes are deflated first and
+     * flagged in the wrapper's {@code encoding}.
+     */
+    public Mono<BinaryCryptoWrapper> serializeAndEncryptToWrapper(Object plainObject, ObjectMapper specificMapper) {
+        return serializeAndEncryptToWrapper(plainObject, jackson(specificMapper));
+    }
+
+    /** {@link PayloadCodec} variant of {@link #serializeAndEncryptToWrapper(Object, ObjectMapper)}. */
+    public Mono<BinaryCryptoWrapper> serializeAndEncryptToWrapper(Object plainObject, PayloadCodec codec) {
+        return encrypt(plainObject, null, codec, true, this::sealToWrapper);
+    }
+
+    /** Transport form of {@link #serializeAndEncryptToWrapper}: Base64 data plus the key id and version, if any. */
+    public Mono<CryptoWrapper> serializeAndEncryptEnvelope(Object plainObject, ObjectMapper specificMapper) {
+        return serializeAndEncryptEnvelope(plainObject, jackson(specificMapper));
+    }
+
+    /** {@link PayloadCodec} variant of {@link #serializeAndEncryptEnvelope(Object, ObjectMapper)}. */
+    public Mono<CryptoWrapper> serializeAndEncryptEnvelope(Object plainObject, PayloadCodec codec) {
+        return serializeAndEncryptToWrapper(plainObject, codec).map(this::toTransport);
+    }
+
+    /**
+     * Field-level mode: serializes with a field-level codec ({@link SerdePayloadCodec#createFieldLevel}), which
+     * encrypts only the {@link Encrypted} properties, inline. The JSON is the transport form, there is no outer
+     * ciphertext; the whole-object methods above remain for payloads that are secret as a whole.
+     * @return Mono emitting the JSON bytes.
+     */
+    public Mono<byte[]> serializeWithEncryptedFields(Object plainObject, PayloadCodec fieldCodec) {
+        if (plainObject == null) return Mono.error(new IllegalArgumentException("Cannot encrypt null object"));
+        if (fieldCodec == null) return Mono.error(new IllegalArgumentException("Codec cannot be null"));
+
+        return Mono.defer(() -> {
+                    long enqueuedAt = metrics.start();
+                    // Field encryption happens inside the serializer, so the whole write belongs on the crypto workers
+                    return cryptoScheduler.subscribeOn(Mono.fromCallable(() -> {
+                        metrics.recordQueueing(FIELDS_OPERATION, enqueuedAt);
+                        PooledOutputStream json = new PooledOutputStream(bufferPool, INITIAL_BUFFER_SIZE);
+                        try {
+                            long startedAt = metrics.start();
+                            fieldCodec.write(json, plainObject);
+                            metrics.recordStage(PipelineMetrics.Stage.SERIALIZE, startedAt);
+                            metrics.recordPayloadSize(FIELDS_OPERATION, PipelineMetrics.Payload.PLAINTEXT, json.size());
+                            byte[] bytes = new byte[json.size()];
+                            json.asByteBuffer().get(bytes);
+                            return bytes;
+                        } finally {
+                            json.release();
+                        }
+                    }));
+                })
+                .doOnNext(json -> metrics.recordOutcome(FIELDS_OPERATION, PipelineMetrics.Outcome.SUCCESS, plainObject.getClass(), fieldCodec))
+                .doOnError(e -> metrics.recordOutcome(FIELDS_OPERATION, e instanceof CryptoOverloadedException
+                        ? PipelineMetrics.Outcome.REJECTED : PipelineMetrics.Outcome.FAILURE, plainObject.getClass(), fieldCodec))
+                .onErrorMap(e -> !(e instanceof CryptoOverloadedException), e -> wrap("Field-level encryption failed", e));
+    }
+
+    /**
+     * Typed handle for repeated encryption of one type: the codec's writer for {@code type} is resolved here, once,
+     * and generic types keep their element types, e.g. {@code Argument.listOf(SomeSpecificObject.class)}.
+     */
+    public <T> Encoder<T> encoder(Argument<T> type, PayloadCodec codec) {
+        if (codec == null) throw new IllegalArgumentException("Codec cannot be null");
+        return new Encoder<>(codec.bind(type), codec);
+    }
+
+    /** {@link Class} variant of {@link #encoder(Argument, PayloadCodec)}. */
+    public <T> Encoder<T> encoder(Class<T> type, PayloadCodec codec) {
+        return encoder(Argument.of(type), codec);
+    }
+
+    /** Jackson variant of {@link #encoder(Argument, PayloadCodec)}, e.g. {@code new TypeReference<List<SomeSpecificObject>>() {}}. */
+    @SuppressWarnings("unchecked")
+    public <T> Encoder<T> encoder(TypeReference<T> type, ObjectMapper specificMapper) {
+        return encoder((Argument<T>) Argument.of(type.getType()), jackson(specificMapper));
+    }
+
+    /**
+     * Encryption of one type with the codec binding already resolved; see {@link #encoder(Argument, PayloadCodec)}.
+     * Thread-safe, meant to be created once and kept.
+     */
+    public final class Encoder<T> {
+        private final PayloadCodec.Binding<T> binding;
+        private final PayloadCodec codec;
+
+        private Encoder(PayloadCodec.Binding<T> binding, PayloadCodec codec) {
+            this.binding = binding;
+            this.codec = codec;
+        }
+
+        public Argument<T> type() {
+            return binding.type();
+        }
+
+        /** See {@link EncryptionService#serializeAndEncrypt(Object, PayloadCodec)}. */
+        public Mono<String> encrypt(T plainObject) {
+            return EncryptionService.this.encrypt(plainObject, binding, codec, false, EncryptionService.this::sealToBase64);
+        }
+
+        /** See {@link EncryptionService#serializeAndEncryptToWrapper(Object, PayloadCodec)}. */
+        public Mono<BinaryCryptoWrapper> encryptToWrapper(T plainObject) {
+            return EncryptionService.this.encrypt(plainObject, binding, codec, true, EncryptionService.this::sealToWrapper);
+        }
+
+        /** See {@link EncryptionService#serializeAndEncryptEnvelope(Object, PayloadCodec)}. */
+        public Mono<CryptoWrapper> encryptEnvelope(T plainObject) {
+            return encryptToWrapper(plainObject).map(EncryptionService.this::toTransport);
+        }
+    }
+
+    private static PipelineException wrap(String message, Throwable cause) {
+        return new PipelineException(PipelineException.codeOf(cause), message, cause);
+    }
+
+    private static PayloadCodec jackson(ObjectMapper mapper) {
+        return mapper != null ? JacksonPayloadCodec.of(mapper) : null;
+    }
+
+    /** Last step of {@link #encrypt}: encrypts the plaintext and turns the ciphertext into the result. */
+    @FunctionalInterface
+    private interface Sealer<R> {
+        R seal(CryptoEngine engine, ByteBuffer plaintext, @Nullable KeyId key, @Nullable String encoding);
+    }
+
+    // Base64 only at the transport edge, everything before it stays binary. The ciphertext never leaves
+    // the call, so it goes to a pooled buffer and only the final String is allocated
+    private String sealToBase64(CryptoEngine engine, ByteBuffer plaintext, @Nullable KeyId key, @Nullable String encoding) {
+        try (PooledBuffer ciphertext = bufferPool.acquire(engine.encryptedLength(plaintext.remaining()))) {
+            seal(engine, plaintext, encoding, ciphertext.buffer());
+            long startedAt = metrics.start();
+            String encoded = Base64Codec.encodeToString(ciphertext.buffer().flip(), bufferPool);
+            metrics.recordStage(PipelineMetrics.Stage.BASE64_ENCODE, startedAt);
+            return encoded;
+        }
+    }
+
+    private CryptoWrapper toTransport(BinaryCryptoWrapper wrapper) {
+        long startedAt = metrics.start();
+        CryptoWrapper encoded = wrapper.toCryptoWrapper();
+        metrics.recordStage(PipelineMetrics.Stage.BASE64_ENCODE, startedAt);
+        return encoded;
+    }
+
+    // The caller keeps this ciphertext, so it gets an exactly sized array of its own
+    private BinaryCryptoWrapper sealToWrapper(CryptoEngine engine, ByteBuffer plaintext, @Nullable KeyId key, @Nullable String encoding) {
+        byte[] encryptedBytes = new byte[engine.encryptedLength(plaintext.remaining())];
+        seal(engine, plaintext, encoding, ByteBuffer.wrap(encryptedBytes));
+        return new BinaryCryptoWrapper(encryptedBytes, key, encoding);
+    }
+
+    private void seal(CryptoEngine engine, ByteBuffer plaintext, @Nullable String encoding, ByteBuffer ciphertextOut) {
+        long startedAt = metrics.start();
+        int length = engine.encrypt(plaintext, ciphertextOut, PayloadCompressor.associatedData(encoding));
+        metrics.recordStage(PipelineMetrics.Stage.ENCRYPT, startedAt);
+        metrics.recordPayloadSize(OPERATION, PipelineMetrics.Payload.CIPHERTEXT, length);
+    }
+
+    /** Serializes with {@code binding} when the caller has one, otherwise by the object's runtime type. */
+    private <T, R> Mono<R> encrypt(T plainObject, @Nullable PayloadCodec.Binding<T> binding, PayloadCodec codec,
+                                   boolean envelope, Sealer<R> sealer) {
         if (plainObject == null) return Mono.error(new IllegalArgumentException("Cannot encrypt null object"));
-        if (specificMapper == null) return Mono.error(new IllegalArgumentException("ObjectMapper cannot be null"));
-
-        return Mono.fromCallable(() -> {
-                    // Use the mapper passed by the caller
-                    byte[] jsonBytes = specificMapper.writeValueAsBytes(plainObject);
-                    log.debug("Serialized {} bytes using provided ObjectMapper: {}", jsonBytes.length, specificMapper.getClass().getSimpleName());
-                    /* === Placeholder: Replace with actual encryption logic === */
-                    byte[] encryptedBytes = ("enc-" + new String(jsonBytes, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
-                    /* === End Placeholder === */
-                    return Base64.getEncoder().encodeToString(encryptedBytes);
+        if (codec == null) return Mono.error(new IllegalArgumentException("Codec cannot be null"));
+
+        return Mono.defer(() -> {
+                    long enqueuedAt = metrics.start();
+                    return cryptoScheduler.subscribeOn(Mono.fromCallable(() -> {
+                                metrics.recordQueueing(OPERATION, enqueuedAt);
+                                // Use the codec passed by the caller; the JSON buffer is pooled and released below
+                                PooledOutputStream json = new PooledOutputStream(bufferPool, INITIAL_BUFFER_SIZE);
+                                try {
+                                    long startedAt = metrics.start();
+                                    if (binding != null) {
+                                        binding.write(json, plainObject);
+                                    } else {
+                                        codec.write(json, plainObject);
+                                    }
+                                    metrics.recordStage(PipelineMetrics.Stage.SERIALIZE, startedAt);
+                                    log.debug("Serialized {} bytes using codec: {}", json.size(), codec.name());
+                                    metrics.recordPayloadSize(OPERATION, PipelineMetrics.Payload.PLAINTEXT, json.size());
+
+                                    ByteBuffer plaintext = json.asByteBuffer();
+                                    String encoding = null;
+                                    // Only wrappers can flag compression, the bare byte[] API stays uncompressed
+                                    if (envelope && compressor.shouldCompress(json.size())) {
+                                        startedAt = metrics.start();
+                                        ByteBuffer compressed = compressor.compress(json.asByteBuffer());
+                                        metrics.recordStage(PipelineMetrics.Stage.COMPRESS, startedAt);
+                                        if (compressed != null) {
+                                            metrics.recordPayloadSize(OPERATION, PipelineMetrics.Payload.COMPRESSED, compressed.remaining());
+                                            plaintext = compressed;
+                                            encoding = PayloadCompressor.DEFLATE;
+                                        }
+                                    }
+
+                                    // Cached data key lookup; only a miss or expiry reaches the key provider
+                                    KeyId key = envelope && dataKeys != null ? dataKeys.activeKey() : null;
+                                    CryptoEngine engine = key != null ? dataKeys.engine(key) : cryptoEngine;
+                                    return sealer.seal(engine, plaintext, key, encoding);
+                                } finally {
+                                    json.release();
+                                }
+                            }));
                 })
-                .subscribeOn(Schedulers.boundedElastic())
-                .doOnError(e -> log.error("Encryption process failed", e))
-                .onErrorMap(e -> new RuntimeException("Encryption process failed", e));
+                .doOnNext(encrypted -> metrics.recordOutcome(OPERATION, PipelineMetrics.Outcome.SUCCESS, plainObject.getClass(), codec))
+                .doOnError(e -> metrics.recordOutcome(OPERATION, e instanceof CryptoOverloadedException
+                        ? PipelineMetrics.Outcome.REJECTED : PipelineMetrics.Outcome.FAILURE, plainObject.getClass(), codec))
+                .onErrorMap(e -> !(e instanceof CryptoOverloadedException), e -> wrap("Encryption process failed", e));
     }
-}
\ No newline at end of file
+}
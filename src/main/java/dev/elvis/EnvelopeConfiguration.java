@@ -0,0 +1,45 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/** Settings for envelope encryption; {@link DataKeyCache} and the key provider only exist when enabled. */
+@ConfigurationProperties("crypto.envelope")
+public class EnvelopeConfiguration {
+
+    private boolean enabled = false;
+
+    /** Unwrapped data keys kept in memory (all versions of all key ids). */
+    private long maximumKeys = 100;
+
+    /** Hard lifetime of an unwrapped data key; after it the next use blocks on the key provider. */
+    private Duration ttl = Duration.ofHours(1);
+
+    /** Age after which a used data key is re-fetched in the background while the cached one keeps serving. */
+    private Duration refreshAhead = Duration.ofMinutes(45);
+
+    /** How often the active key id is re-read from the provider, i.e. how fast a rotation is picked up. */
+    private Duration activeKeyRefresh = Duration.ofSeconds(30);
+
+    /** JSON keyring read by {@link LocalKeyProvider}. */
+    private String keyringFile;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getMaximumKeys() { return maximumKeys; }
+    public void setMaximumKeys(long maximumKeys) { this.maximumKeys = maximumKeys; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+    public Duration getRefreshAhead() { return refreshAhead; }
+    public void setRefreshAhead(Duration refreshAhead) { this.refreshAhead = refreshAhead; }
+
+    public Duration getActiveKeyRefresh() { return activeKeyRefresh; }
+    public void setActiveKeyRefresh(Duration activeKeyRefresh) { this.activeKeyRefresh = activeKeyRefresh; }
+
+    public String getKeyringFile() { return keyringFile; }
+    public void setKeyringFile(String keyringFile) { this.keyringFile = keyringFile; }
+}
@@ -0,0 +1,178 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Call-level settings for {@link HttpExternalServiceClient}. Connection settings (url, pool size, HTTP/2,
+ * connect/read timeouts) live in the Micronaut client configuration under
+ * {@code micronaut.http.services.external-service}.
+ */
+@ConfigurationProperties("external-service")
+public class ExternalServiceConfiguration {
+
+    /** Path of the resource collection; single resources are {@code {path}/{id}}. */
+    private String resourcePath = "/resources";
+
+    /** Upper bound for one request/response exchange, per attempt (a hedged GET gets it per request). */
+    private Duration requestTimeout = Duration.ofSeconds(3);
+
+    /** Streams fail once no chunk arrived for this long; a multi-megabyte stream has no overall bound. */
+    private Duration streamIdleTimeout = Duration.ofSeconds(10);
+
+    private Hedging hedging = new Hedging();
+
+    private Limiter limiter = new Limiter();
+
+    private Breaker circuitBreaker = new Breaker();
+
+    public String getResourcePath() { return resourcePath; }
+    public void setResourcePath(String resourcePath) { this.resourcePath = resourcePath; }
+
+    public Duration getRequestTimeout() { return requestTimeout; }
+    public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+
+    public Duration getStreamIdleTimeout() { return streamIdleTimeout; }
+    public void setStreamIdleTimeout(Duration streamIdleTimeout) { this.streamIdleTimeout = streamIdleTimeout; }
+
+    public Hedging getHedging() { return hedging; }
+    public void setHedging(Hedging hedging) { this.hedging = hedging; }
+
+    public Limiter getLimiter() { return limiter; }
+    public void setLimiter(Limiter limiter) { this.limiter = limiter; }
+
+    public Breaker getCircuitBreaker() { return circuitBreaker; }
+    public void setCircuitBreaker(Breaker circuitBreaker) { this.circuitBreaker = circuitBreaker; }
+
+    /**
+     * Hedged GETs, see {@link HedgingPolicy}: if the first request has not answered after the observed latency
+     * percentile, a second identical request is sent and whichever answers first wins.
+     */
+    @ConfigurationProperties("hedging")
+    public static class Hedging {
+
+        private boolean enabled = false;
+
+        /** Latency percentile after which the hedge is sent; 0.95 costs roughly 5% extra requests. */
+        private double percentile = 0.95;
+
+        /** Successful requests observed before the percentile is trusted; until then {@link #maxDelay} is used. */
+        private int minSamples = 100;
+
+        /** Most recent latencies the percentile is computed over. */
+        private int window = 1024;
+
+        /** Lower bound for the hedge delay, so a very fast upstream is not hit twice for every small hiccup. */
+        private Duration minDelay = Duration.ofMillis(5);
+
+        /** Upper bound for the hedge delay, also used while warming up. */
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /** Hedges allowed as a fraction of all hedgeable requests; keeps a slow upstream from seeing double load. */
+        private double budget = 0.1;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getPercentile() { return percentile; }
+        public void setPercentile(double percentile) { this.percentile = percentile; }
+
+        public int getMinSamples() { return minSamples; }
+        public void setMinSamples(int minSamples) { this.minSamples = minSamples; }
+
+        public int getWindow() { return window; }
+        public void setWindow(int window) { this.window = window; }
+
+        public Duration getMinDelay() { return minDelay; }
+        public void setMinDelay(Duration minDelay) { this.minDelay = minDelay; }
+
+        public Duration getMaxDelay() { return maxDelay; }
+        public void setMaxDelay(Duration maxDelay) { this.maxDelay = maxDelay; }
+
+        public double getBudget() { return budget; }
+        public void setBudget(double budget) { this.budget = budget; }
+    }
+
+    /** Adaptive cap on concurrent upstream calls, see {@link AdaptiveConcurrencyLimiter}. */
+    @ConfigurationProperties("limiter")
+    public static class Limiter {
+
+        private boolean enabled = true;
+
+        /** Starting point; keep it at or above batch.fetch-concurrency so a batch is not rejected before the limit adapts. */
+        private int initialLimit = 50;
+
+        private int minLimit = 4;
+
+        private int maxLimit = 500;
+
+        /** Latency may grow to this multiple of its long-term average before the limit shrinks. */
+        private double tolerance = 1.5;
+
+        /** Weight of each new target limit; lower reacts slower but steadier. */
+        private double smoothing = 0.2;
+
+        /** Limit multiplier on a timeout, 5xx or 429. */
+        private double backoffRatio = 0.9;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getInitialLimit() { return initialLimit; }
+        public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+
+        public int getMinLimit() { return minLimit; }
+        public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+        public int getMaxLimit() { return maxLimit; }
+        public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+        public double getTolerance() { return tolerance; }
+        public void setTolerance(double tolerance) { this.tolerance = tolerance; }
+
+        public double getSmoothing() { return smoothing; }
+        public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+        public double getBackoffRatio() { return backoffRatio; }
+        public void setBackoffRatio(double backoffRatio) { this.backoffRatio = backoffRatio; }
+    }
+
+    /** Fail-fast breaker over upstream failures, see {@link CircuitBreaker}. */
+    @ConfigurationProperties("circuit-breaker")
+    public static class Breaker {
+
+        private boolean enabled = true;
+
+        /** Most recent calls the failure rate is computed over. */
+        private int window = 50;
+
+        /** Calls needed in the window before the breaker may open. */
+        private int minimumCalls = 20;
+
+        private double failureRateThreshold = 0.5;
+
+        /** Time calls are refused before trial calls probe the upstream again. */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        private int halfOpenCalls = 5;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getWindow() { return window; }
+        public void setWindow(int window) { this.window = window; }
+
+        public int getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+
+        public double getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(double failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+
+        public int getHalfOpenCalls() { return halfOpenCalls; }
+        public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+    }
+}
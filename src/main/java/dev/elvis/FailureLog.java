@@ -0,0 +1,130 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate-limited logging for pipeline failures, so an upstream incident costs a few log lines instead of one
+ * formatted stack trace per failed request.
+ * <p>
+ * Every failure increments {@code crypto.pipeline.failures}, tagged with its {@link PipelineException.Code}.
+ * Only the first {@code failure-logging.permits} per code and {@code failure-logging.interval} are logged.
+ * That budget is shared by all callers, and the remaining failures are only counted. The next line logged
+ * for a code carries the number skipped in between ({@code suppressed}).
+ * <p>
+ * Lines are structured through SLF4J key-values: {@code code}, {@code suppressed} and, for expected failures,
+ * {@code error}, which holds the failure and its cause as text. Cause chains are only attached for
+ * {@link PipelineException.Code#INTERNAL} failures, with {@code failure-logging.causes} set, or at DEBUG.
+ * Nothing is formatted when the level is off or the budget is spent.
+ */
+@Singleton
+public class FailureLog {
+
+    private final PipelineMetrics metrics;
+    private final LongSupplier nanoClock;
+    private final int permits;
+    private final long intervalNanos;
+    private final boolean causes;
+    private final Window[] windows;
+
+    @Inject
+    public FailureLog(FailureLogConfiguration configuration, PipelineMetrics metrics) {
+        this(configuration, metrics, System::nanoTime);
+    }
+
+    FailureLog(FailureLogConfiguration configuration, PipelineMetrics metrics, LongSupplier nanoClock) {
+        this.metrics = metrics;
+        this.nanoClock = nanoClock;
+        this.permits = configuration.getPermits();
+        this.intervalNanos = configuration.getInterval().toNanos();
+        this.causes = configuration.isCauses();
+        this.windows = new Window[PipelineException.Code.values().length];
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new Window(nanoClock.getAsLong() - intervalNanos);
+        }
+    }
+
+    /** Default settings and no metrics, for services constructed without dependency injection. */
+    static FailureLog defaults() {
+        return new FailureLog(new FailureLogConfiguration(), new PipelineMetrics(null));
+    }
+
+    public void error(Logger log, Throwable failure, String message, Object... arguments) {
+        report(log, Level.ERROR, PipelineException.codeOf(failure), failure, message, arguments);
+    }
+
+    public void warn(Logger log, Throwable failure, String message, Object... arguments) {
+        report(log, Level.WARN, PipelineException.codeOf(failure), failure, message, arguments);
+    }
+
+    /** A failure without an exception, e.g. an {@link ErrorDto} answered by the external service. */
+    public void warn(Logger log, PipelineException.Code code, String message, Object... arguments) {
+        report(log, Level.WARN, code, null, message, arguments);
+    }
+
+    /** Counts a failure the caller hands on without logging, such as shed load. */
+    public void count(Throwable failure) {
+        metrics.recordFailure(PipelineException.codeOf(failure));
+    }
+
+    private void report(Logger log, Level level, PipelineException.Code code, @Nullable Throwable failure,
+                        String message, Object[] arguments) {
+        metrics.recordFailure(code);
+        if (!log.isEnabledForLevel(level)) {
+            return;
+        }
+        long suppressed = windows[code.ordinal()].acquire(nanoClock.getAsLong());
+        if (suppressed < 0) {
+            return;
+        }
+        LoggingEventBuilder event = log.atLevel(level).addKeyValue("code", code.tag);
+        if (suppressed > 0) {
+            event = event.addKeyValue("suppressed", suppressed);
+        }
+        if (failure != null) {
+            event = causes || code == PipelineException.Code.INTERNAL || log.isDebugEnabled()
+                    ? event.setCause(failure)
+                    : event.addKeyValue("error", describe(failure));
+        }
+        event.log(message, arguments);
+    }
+
+    private static String describe(Throwable failure) {
+        Throwable cause = failure.getCause();
+        return cause != null ? failure + "; caused by " + cause : failure.toString();
+    }
+
+    /** Fixed-window budget of one code; racing threads may log a line or two more than {@code permits}. */
+    private final class Window {
+        private final AtomicLong startedAt;
+        private final AtomicInteger logged = new AtomicInteger();
+        private final LongAdder suppressed = new LongAdder();
+
+        Window(long startedAt) {
+            this.startedAt = new AtomicLong(startedAt);
+        }
+
+        /** Failures skipped since the last logged one, or -1 if this one is over budget. */
+        long acquire(long now) {
+            long start = startedAt.get();
+            if (now - start >= intervalNanos && startedAt.compareAndSet(start, now)) {
+                logged.set(0);
+            }
+            // Read before incrementing, so a flood of failures only reads a shared counter
+            if (logged.get() < permits && logged.incrementAndGet() <= permits) {
+                return suppressed.sumThenReset();
+            }
+            suppressed.increment();
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/** Settings for {@link FailureLog}, the rate-limited logging of pipeline failures. */
+@ConfigurationProperties("failure-logging")
+public class FailureLogConfiguration {
+
+    /** Failures logged per {@link PipelineException.Code} and interval; the rest are only counted. */
+    private int permits = 10;
+
+    private Duration interval = Duration.ofSeconds(10);
+
+    /** Log the cause chain of expected failures too, not only of {@link PipelineException.Code#INTERNAL} ones. Always on at DEBUG. */
+    private boolean causes = false;
+
+    public int getPermits() { return permits; }
+    public void setPermits(int permits) { this.permits = permits; }
+
+    public Duration getInterval() { return interval; }
+    public void setInterval(Duration interval) { this.interval = interval; }
+
+    public boolean isCauses() { return causes; }
+    public void setCauses(boolean causes) { this.causes = causes; }
+}
@@ -0,0 +1,24 @@
+package dev.elvis;
+
+import io.micronaut.serde.annotation.Serdeable;
+
+/**
+ * {@link SomeSpecificObject} for field-level encryption: only {@code sensitiveData} is encrypted, so peers can
+ * read {@code id}, {@code value} and {@code count} straight from the JSON.
+ */
+@Serdeable
+public record FieldEncryptedObject(
+        String id,
+        String value,
+        int count,
+        @Encrypted String sensitiveData
+) {
+
+    static FieldEncryptedObject of(SomeSpecificObject object) {
+        return new FieldEncryptedObject(object.id(), object.value(), object.count(), object.sensitiveData());
+    }
+
+    SomeSpecificObject toSomeSpecificObject() {
+        return new SomeSpecificObject(id, value, count, sensitiveData);
+    }
+}
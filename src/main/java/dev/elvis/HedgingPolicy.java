@@ -0,0 +1,117 @@
+package dev.elvis;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent calls: if the first request has not answered after the configured latency
+ * percentile of recent successful requests, an identical second request is sent and whichever signals first wins;
+ * the other is cancelled. A request that is merely unlucky (GC pause, slow replica, lost packet) then costs about
+ * p95 + p50 instead of its own tail, at the price of a few percent extra upstream load, capped by the budget.
+ * <p>
+ * The first signal wins, errors included, so a fast 404 is not masked by a hedge. Latencies are kept in a ring
+ * of the last {@code window} successes and the percentile is recomputed every {@code window / 16} samples.
+ * A primary cancelled because its hedge was sent is sampled at the time it was cancelled, a lower bound of its
+ * latency; leaving it out would teach the policy that requests are as fast as the hedges that beat them.
+ */
+final class HedgingPolicy {
+
+    private final ExternalServiceConfiguration.Hedging configuration;
+    private final PipelineMetrics metrics;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final int recomputeEvery;
+
+    // Ring of recent latencies, guarded by this
+    private final long[] latencies;
+    private int next;
+    private long samples;
+
+    private volatile long delayNanos;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+
+    HedgingPolicy(ExternalServiceConfiguration.Hedging configuration, PipelineMetrics metrics) {
+        if (configuration.getPercentile() <= 0 || configuration.getPercentile() >= 1) {
+            throw new IllegalArgumentException("external-service.hedging.percentile must be in (0, 1)");
+        }
+        this.configuration = configuration;
+        this.metrics = metrics;
+        this.minDelayNanos = configuration.getMinDelay().toNanos();
+        this.maxDelayNanos = configuration.getMaxDelay().toNanos();
+        this.latencies = new long[Math.max(1, configuration.getWindow())];
+        this.recomputeEvery = Math.max(1, latencies.length / 16);
+        this.delayNanos = maxDelayNanos;
+    }
+
+    /** Runs {@code request}, hedged if enabled. The supplier is called once per attempt and must be idempotent. */
+    <T> Mono<T> execute(String operation, Supplier<Mono<T>> request) {
+        if (!configuration.isEnabled()) {
+            return Mono.defer(request);
+        }
+        return Mono.defer(() -> {
+            requests.incrementAndGet();
+            AtomicBoolean hedged = new AtomicBoolean();
+            Mono<T> primary = timed(request, hedged::get);
+            Mono<T> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                    .then(Mono.defer(() -> {
+                        if (!tryAcquireHedge()) {
+                            return Mono.<T>never(); // Over budget: wait for the primary alone
+                        }
+                        hedged.set(true);
+                        metrics.recordHedge(operation, false);
+                        // doOnSuccess only runs if the hedge signalled first; the loser is cancelled
+                        return timed(request, () -> false).doOnSuccess(value -> metrics.recordHedge(operation, true));
+                    }));
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /** Current hedge delay: the latency percentile clamped to [minDelay, maxDelay], maxDelay while warming up. */
+    Duration hedgeDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> request, BooleanSupplier sampleOnCancel) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            // Errors do not count; a fast error says nothing about how long an answer takes
+            return request.get().doFinally(signal -> {
+                if (signal == SignalType.ON_COMPLETE || signal == SignalType.CANCEL && sampleOnCancel.getAsBoolean()) {
+                    recordLatency(System.nanoTime() - startedAt);
+                }
+            });
+        });
+    }
+
+    synchronized void recordLatency(long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % latencies.length;
+        samples++;
+        if (samples >= configuration.getMinSamples() && (samples == configuration.getMinSamples() || samples % recomputeEvery == 0)) {
+            long[] sorted = Arrays.copyOf(latencies, (int) Math.min(samples, latencies.length));
+            Arrays.sort(sorted);
+            long percentile = sorted[(int) Math.ceil(configuration.getPercentile() * sorted.length) - 1];
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, percentile));
+        }
+    }
+
+    private boolean tryAcquireHedge() {
+        long allowed = (long) (configuration.getBudget() * requests.get());
+        long sent;
+        do {
+            sent = hedges.get();
+            if (sent >= allowed) {
+                return false;
+            }
+        } while (!hedges.compareAndSet(sent, sent + 1));
+        return true;
+    }
+}
@@ -1,13 +1,13 @@
 package dev.elvis;
 
-public class HttpApiException extends RuntimeException {
+public class HttpApiException extends PipelineException {
     private final int statusCode;
     private final String responseBody; // Include response body if available/readable
     public HttpApiException(String message, int statusCode, String responseBody, Throwable cause) {
-        super(message, cause);
+        super(Code.UPSTREAM_HTTP, message, cause);
         this.statusCode = statusCode;
         this.responseBody = responseBody;
     }
     public int getStatusCode() { return statusCode; }
     public String getResponseBody() { return responseBody; }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.io.buffer.ReferenceCounted;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.StreamingHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.uri.UriBuilder;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link MyExternalServiceClient} over the Micronaut HTTP client configured as {@code external-service}
+ * ({@code micronaut.http.services.external-service}: url, connection pool, HTTP/2, connect/read timeouts).
+ * <p>
+ * Every exchange is bounded by {@code external-service.request-timeout}; streams by an idle timeout instead.
+ * GETs are idempotent and go through {@link HedgingPolicy} when {@code external-service.hedging.enabled} is set;
+ * POSTs (single and bulk) and streams are never hedged. Error statuses surface as
+ * {@code HttpClientResponseException}, which {@link MyBusinessService} maps to {@link HttpApiException}.
+ * <p>
+ * Any other {@code external-service.transport} leaves the bean out, so tools such as the load test can supply
+ * their own {@link MyExternalServiceClient}.
+ */
+@Singleton
+@Requires(property = "external-service.transport", value = "http", defaultValue = "http")
+public class HttpExternalServiceClient implements MyExternalServiceClient {
+
+    private final StreamingHttpClient httpClient;
+    private final ExternalServiceConfiguration configuration;
+    private final HedgingPolicy hedging;
+
+    public HttpExternalServiceClient(@Client(id = "external-service") StreamingHttpClient httpClient,
+                                     ExternalServiceConfiguration configuration,
+                                     PipelineMetrics metrics) {
+        this.httpClient = httpClient;
+        this.configuration = configuration;
+        this.hedging = new HedgingPolicy(configuration.getHedging(), metrics);
+    }
+
+    @Override
+    public Mono<CryptoWrapper> getEncryptedResource(String id) {
+        return hedging.execute("get", () -> Mono.from(httpClient.retrieve(
+                        HttpRequest.GET(resourceUri(id)).accept(MediaType.APPLICATION_JSON_TYPE), CryptoWrapper.class))
+                .timeout(configuration.getRequestTimeout()));
+    }
+
+    @Override
+    public Mono<BinaryCryptoWrapper> getEncryptedResourceBinary(String id) {
+        return hedging.execute("get-binary", () -> Mono.from(httpClient.exchange(
+                        HttpRequest.GET(resourceUri(id)).accept(MediaType.APPLICATION_OCTET_STREAM_TYPE), byte[].class))
+                .timeout(configuration.getRequestTimeout())
+                .map(WireFormat::fromHttp));
+    }
+
+    @Override
+    public Flux<ByteBuffer> getEncryptedResourceStream(String id) {
+        // A duplicate multi-megabyte stream would cost more than the tail latency it saves, so no hedging
+        return Flux.from(httpClient.dataStream(HttpRequest.GET(UriBuilder.of(resourceUri(id)).path("stream").build())
+                        .accept(MediaType.APPLICATION_OCTET_STREAM_TYPE)))
+                .map(chunk -> {
+                    // Copy out of the (possibly pooled, direct) network buffer and hand it back right away
+                    ByteBuffer copy = ByteBuffer.wrap(chunk.toByteArray());
+                    if (chunk instanceof ReferenceCounted counted) {
+                        counted.release();
+                    }
+                    return copy;
+                })
+                .timeout(configuration.getStreamIdleTimeout());
+    }
+
+    @Override
+    public Mono<Void> postEncryptedResource(CryptoWrapper encryptedPayload) {
+        return Mono.from(httpClient.exchange(HttpRequest.POST(configuration.getResourcePath(), encryptedPayload)
+                        .contentType(MediaType.APPLICATION_JSON_TYPE)))
+                .timeout(configuration.getRequestTimeout())
+                .then();
+    }
+
+    @Override
+    public Mono<BulkPostResult> postEncryptedResources(CryptoWrapper envelope, int recordCount) {
+        return Mono.from(httpClient.retrieve(HttpRequest.POST(bulkUri(), envelope)
+                                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                                .header(WireFormat.RECORD_COUNT_HEADER, String.valueOf(recordCount)),
+                        BulkPostResult.class))
+                .timeout(configuration.getRequestTimeout())
+                .defaultIfEmpty(BulkPostResult.ACCEPTED); // 204: nothing rejected
+    }
+
+    @Override
+    public Mono<Void> postEncryptedResourceBinary(BinaryCryptoWrapper encryptedPayload) {
+        return Mono.from(httpClient.exchange(WireFormat.withHttpHeaders(
+                        HttpRequest.POST(configuration.getResourcePath(), encryptedPayload.data())
+                                .contentType(MediaType.APPLICATION_OCTET_STREAM_TYPE), encryptedPayload)))
+                .timeout(configuration.getRequestTimeout())
+                .then();
+    }
+
+    private String bulkUri() {
+        return UriBuilder.of(configuration.getResourcePath()).path("batch").build().toString();
+    }
+
+    private String resourceUri(String id) {
+        // Ids come from callers, so let the builder percent-encode them
+        return UriBuilder.of(configuration.getResourcePath()).path(id).build().toString();
+    }
+}
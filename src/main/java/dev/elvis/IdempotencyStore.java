@@ -0,0 +1,20 @@
+package dev.elvis;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Where {@link RpcIdempotency} keeps recent replies. {@link InMemoryIdempotencyStore} is the default; a store
+ * shared between consumer instances (e.g. Redis) implements this interface, sets {@code rpc.idempotency.store}
+ * to its own name and keeps entries for {@code rpc.idempotency.ttl}.
+ * <p>
+ * Store failures never fail a request: {@link RpcIdempotency} treats a failed lookup as a miss and a failed
+ * save as not remembered. Implementations must be thread-safe.
+ */
+public interface IdempotencyStore {
+
+    /** The reply remembered for {@code key}, or empty if there is none (any more). */
+    Mono<CryptoWrapper> find(String key);
+
+    /** Remembers {@code reply} for {@code key}, replacing any previous one. */
+    Mono<Void> save(String key, CryptoWrapper reply);
+}
@@ -0,0 +1,40 @@
+package dev.elvis;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Mono;
+
+/** Default {@link IdempotencyStore}: bounded, expires entries {@code ttl} after they were written. Per instance. */
+@Singleton
+@Requires(property = "rpc.idempotency.enabled", value = "true")
+@Requires(property = "rpc.idempotency.store", value = "in-memory", defaultValue = "in-memory")
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, CryptoWrapper> replies;
+
+    public InMemoryIdempotencyStore(RpcIdempotencyConfiguration configuration, @Nullable MeterRegistry meterRegistry) {
+        this.replies = Caffeine.newBuilder()
+                .maximumSize(configuration.getMaximumSize())
+                .expireAfterWrite(configuration.getTtl())
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, replies, "rpc-idempotency");
+        }
+    }
+
+    @Override
+    public Mono<CryptoWrapper> find(String key) {
+        return Mono.justOrEmpty(replies.getIfPresent(key));
+    }
+
+    @Override
+    public Mono<Void> save(String key, CryptoWrapper reply) {
+        return Mono.fromRunnable(() -> replies.put(key, reply));
+    }
+}
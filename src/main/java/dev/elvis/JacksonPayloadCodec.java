@@ -0,0 +1,120 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micronaut.core.type.Argument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link PayloadCodec} on a reflective Jackson {@link ObjectMapper}; backs the mapper-based service overloads.
+ * <p>
+ * {@link #of(ObjectMapper)} keeps one codec per mapper for as long as the mapper lives, and every codec caches an
+ * immutable {@link ObjectWriter}/{@link ObjectReader} per type. Jackson then resolves the root serializer and
+ * deserializer once per (mapper, type) instead of looking them up on every call.
+ */
+final class JacksonPayloadCodec implements PayloadCodec {
+
+    // Weak, identity-compared keys: a mapper created per call must not be kept alive by the registry
+    private static final Cache<ObjectMapper, JacksonPayloadCodec> CODECS = Caffeine.newBuilder().weakKeys().build();
+
+    private final ObjectMapper mapper;
+    private final Map<Argument<?>, Binding<?>> bindings = new ConcurrentHashMap<>();
+
+    JacksonPayloadCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /** The shared codec of {@code mapper}, with the readers and writers it resolved so far. */
+    static JacksonPayloadCodec of(ObjectMapper mapper) {
+        return CODECS.get(mapper, JacksonPayloadCodec::new);
+    }
+
+    ObjectMapper mapper() {
+        return mapper;
+    }
+
+    /** Mappers are named by naming strategy, e.g. {@code LowerCamelCaseStrategy}. */
+    @Override
+    public String name() {
+        PropertyNamingStrategy strategy = mapper.getPropertyNamingStrategy();
+        return strategy != null ? strategy.getClass().getSimpleName() : "default";
+    }
+
+    @Override
+    public void write(OutputStream out, Object value) throws IOException {
+        mapper.writeValue(out, value);
+    }
+
+    @Override
+    public Tree readTree(byte[] data, int offset, int length) throws IOException {
+        return tree(mapper.readTree(data, offset, length));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Binding<T> bind(Argument<T> type) {
+        return (Binding<T>) bindings.computeIfAbsent(type, argument -> {
+            JavaType javaType = mapper.getTypeFactory().constructType(argument.asType());
+            return new JacksonBinding<>(argument, mapper.writerFor(javaType), mapper.readerFor(javaType));
+        });
+    }
+
+    /** Wraps a node parsed elsewhere, e.g. by the streaming decoder, with this codec's mapper. */
+    Tree tree(JsonNode node) {
+        return new JacksonTree(node);
+    }
+
+    private final class JacksonTree implements Tree {
+        private final JsonNode node;
+
+        JacksonTree(JsonNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean isObject() {
+            return node != null && node.isObject();
+        }
+
+        @Override
+        public boolean isArray() {
+            return node != null && node.isArray();
+        }
+
+        @Override
+        public boolean hasNonNull(String field) {
+            return node.hasNonNull(field);
+        }
+
+        @Override
+        public <T> T bind(Class<T> type) throws IOException {
+            return JacksonPayloadCodec.this.bind(Argument.of(type)).read(this);
+        }
+    }
+
+    private record JacksonBinding<T>(Argument<T> type, ObjectWriter writer, ObjectReader reader) implements Binding<T> {
+
+        @Override
+        public void write(OutputStream out, T value) throws IOException {
+            writer.writeValue(out, value);
+        }
+
+        @Override
+        public T read(Tree tree) throws IOException {
+            if (!(tree instanceof JacksonPayloadCodec.JacksonTree jackson)) {
+                throw new IllegalArgumentException("Tree was not parsed by a Jackson codec");
+            }
+            return reader.readValue(jackson.node);
+        }
+    }
+}
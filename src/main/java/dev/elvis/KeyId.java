@@ -0,0 +1,24 @@
+package dev.elvis;
+
+/** Identifies one version of an envelope data key, written as {@code id:version}. */
+public record KeyId(String id, int version) {
+
+    public KeyId {
+        if (id == null || id.isEmpty() || id.indexOf(':') >= 0) {
+            throw new IllegalArgumentException("Key id must be non-empty and must not contain ':'");
+        }
+    }
+
+    public static KeyId parse(String value) {
+        int separator = value.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Expected <id>:<version>, got " + value);
+        }
+        return new KeyId(value.substring(0, separator), Integer.parseInt(value.substring(separator + 1)));
+    }
+
+    @Override
+    public String toString() {
+        return id + ':' + version;
+    }
+}
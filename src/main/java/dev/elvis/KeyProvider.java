@@ -0,0 +1,18 @@
+package dev.elvis;
+
+/**
+ * Source of envelope data keys, typically backed by a key service (KMS/Vault) that unwraps data keys
+ * with a key-encryption key it never releases. Callers go through {@link DataKeyCache}, so implementations
+ * are only hit on a cache miss or refresh and may do blocking remote calls. Implementations must be thread-safe.
+ */
+public interface KeyProvider {
+
+    /** The key new messages are encrypted under. Older versions stay decryptable while they are known. */
+    KeyId activeKey();
+
+    /**
+     * Unwrapped 256-bit data key for {@code keyId}.
+     * @throws CryptoException if the key is unknown or cannot be unwrapped.
+     */
+    byte[] dataKey(KeyId keyId);
+}
@@ -0,0 +1,106 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Offline {@link KeyProvider} stand-in backed by a JSON keyring file ({@code crypto.envelope.keyring-file}):
+ * <pre>{@code
+ * { "active": "orders:2",
+ *   "keys": { "orders:1": "<wrapped key>", "orders:2": "<wrapped key>" } }
+ * }</pre>
+ * Wrapped keys are Base64 AES-256-GCM ciphertexts of the data key under {@code crypto.aes-gcm.key}, which plays
+ * the key-encryption key a real key service would hold. The file is re-read when it changes, so a rotation is
+ * adding the new version, then switching {@code active}, and removing the old version once nothing uses it.
+ */
+@Singleton
+@Requires(property = "crypto.envelope.enabled", value = "true")
+@Requires(property = "crypto.envelope.provider", value = "local", defaultValue = "local")
+public class LocalKeyProvider implements KeyProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalKeyProvider.class);
+    private static final ObjectMapper KEYRING_MAPPER = new ObjectMapper();
+
+    private final Path keyringFile;
+    private final CryptoEngine keyEncryptionKey;
+    private volatile Keyring keyring;
+
+    public LocalKeyProvider(EnvelopeConfiguration configuration, @Value("${crypto.aes-gcm.key}") String keyEncryptionKey) {
+        if (configuration.getKeyringFile() == null) {
+            throw new IllegalArgumentException("crypto.envelope.keyring-file is required for the local key provider");
+        }
+        this.keyringFile = Path.of(configuration.getKeyringFile());
+        this.keyEncryptionKey = new AesGcmCryptoEngine(keyEncryptionKey);
+        this.keyring = load();
+        log.info("Local keyring {} loaded, active key {}", keyringFile, keyring.active());
+    }
+
+    @Override
+    public KeyId activeKey() {
+        return current().active();
+    }
+
+    @Override
+    public byte[] dataKey(KeyId keyId) {
+        byte[] wrapped = current().wrappedKeys().get(keyId);
+        if (wrapped == null) {
+            throw new CryptoException("Unknown data key " + keyId);
+        }
+        return keyEncryptionKey.decrypt(wrapped);
+    }
+
+    /** Wraps {@code dataKey} for the keyring file; the counterpart of {@link #dataKey(KeyId)}. */
+    public String wrap(byte[] dataKey) {
+        return Base64.getEncoder().encodeToString(keyEncryptionKey.encrypt(dataKey));
+    }
+
+    private Keyring current() {
+        Keyring loaded = keyring;
+        try {
+            if (!Files.getLastModifiedTime(keyringFile).equals(loaded.modified())) {
+                keyring = loaded = load();
+                log.info("Keyring {} reloaded, active key {}", keyringFile, loaded.active());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep serving the last good keyring, a half-written file must not take decryption down
+            log.warn("Cannot reload keyring {}: {}", keyringFile, e.getMessage());
+        }
+        return loaded;
+    }
+
+    private Keyring load() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(keyringFile);
+            JsonNode root = KEYRING_MAPPER.readTree(keyringFile.toFile());
+            Map<KeyId, byte[]> wrappedKeys = new HashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = root.path("keys").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                wrappedKeys.put(KeyId.parse(entry.getKey()), Base64.getDecoder().decode(entry.getValue().asText()));
+            }
+            KeyId active = KeyId.parse(root.path("active").asText());
+            if (!wrappedKeys.containsKey(active)) {
+                throw new CryptoException("Active key " + active + " is not in the keyring");
+            }
+            return new Keyring(active, Map.copyOf(wrappedKeys), modified);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new CryptoException("Cannot read keyring " + keyringFile, e);
+        }
+    }
+
+    private record Keyring(KeyId active, Map<KeyId, byte[]> wrappedKeys, FileTime modified) {
+    }
+}
@@ -1,12 +1,25 @@
 package dev.elvis;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.type.Argument;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Singleton
 public class MyBusinessService {
@@ -17,62 +30,300 @@ public class MyBusinessService {
     MyExternalServiceClient externalClient;
     @Inject DecryptionService decryptionService;
     @Inject EncryptionService encryptionService;
+    @Inject BatchConfiguration batchConfiguration;
+    @Inject PipelineMetrics metrics;
+    // Concurrency limit + circuit breaker in front of every upstream call
+    @Inject UpstreamGuard upstreamGuard;
+    @Inject FailureLog failureLog = FailureLog.defaults();
+    @Inject @Named("externalService")
+    PayloadCodec targetCodec;
+    // Streaming decryption needs Jackson's non-blocking parser
+    @Inject @Named("externalServiceObjectMapper")
     ObjectMapper targetMapper;
+    // Only present when decrypted-cache.enabled=true
+    @Inject @Nullable DecryptedDataCache decryptedDataCache;
+    // application/json (CryptoWrapper with Base64 data) or application/octet-stream (raw ciphertext + headers)
+    @Value("${external-service.content-type:application/json}")
+    String externalContentType = WireFormat.JSON;
+    // Codec binding resolved once, on first use (the codec is field-injected)
+    private volatile DecryptionService.Decoder<SomeSpecificObject> decoder;
 
 
     public Mono<SomeSpecificObject> getDecryptedData(String id) {
+        // With the cache enabled, concurrent callers for the same id share one fetch + decryption
+        return decryptedDataCache != null
+                ? decryptedDataCache.get(id, this::fetchAndDecrypt)
+                : fetchAndDecrypt(id);
+    }
+
+    private Mono<SomeSpecificObject> fetchAndDecrypt(String id) {
         log.info("Fetching encrypted data for id: {}", id);
 
-        return externalClient.getEncryptedResource(id)
-                .onErrorResume(HttpClientResponseException.class, e -> {
-                    int statusCode = e.getStatus().getCode();
-                    String responseBody = e.getResponse().getBody(String.class).orElse("<no body>");
-                    log.error("HTTP error {} from external service for id {}. Body: {}", statusCode, id, responseBody, e);
-                    // Convert to a specific application exception for HTTP errors
-                    return Mono.error(new HttpApiException("External service request failed", statusCode, responseBody, e));
-                })
-                // ** Proceed with decryption IF HTTP call was successful **
-                .flatMap(wrapper -> {
-                    if (wrapper == null || wrapper.data() == null || wrapper.data().isEmpty()) {
-                        log.warn("Received empty wrapper or data for id: {}", id);
-                        return Mono.error(new RuntimeException("Received no encrypted data from client for id " + id));
-                    }
-                    return decryptionService.decryptAndDeserialize(
-                            wrapper.data(),
-                            SomeSpecificObject.class,
-                            targetMapper
-                    );
-                })
+        return fetchAndDecryptResult(id)
+                // Convert to a specific application exception for HTTP errors
+                .onErrorMap(HttpClientResponseException.class, MyBusinessService::toHttpApiException)
                 // ** Handle DecryptionResult (Success or embedded ErrorDto) **
                 .flatMap(result -> switch (result) {
                     case DecryptionResult.Success<SomeSpecificObject> success -> Mono.just(success.data());
-                    case DecryptionResult.Error<SomeSpecificObject> error -> {
-                        log.warn("Decryption resulted in a known API error for id {}: {}", id, error.errorDetails());
-                        yield Mono.error(new ApiException(error.errorDetails())); // Throw specific exception
-                    }
+                    case DecryptionResult.Error<SomeSpecificObject> error -> Mono.error(new ApiException(error.errorDetails()));
                 })
-                // ** Handle specific application/decryption errors **
-                .onErrorResume(ApiException.class, Mono::error) // Let specific API errors pass through
-                .onErrorResume(HttpApiException.class, Mono::error) // Let specific HTTP errors pass through
-                .onErrorResume(DeserializationException.class, e -> {
-                    log.error("Failed to deserialize decrypted payload for id {}: {}", id, e.getMessage());
-                    return Mono.error(new RuntimeException("Malformed data from external service for id " + id, e));
+                .onErrorMap(e -> toFetchFailure(id, e));
+    }
+
+    /**
+     * Logs (rate-limited, see {@link FailureLog}) and maps a failure of {@link #getDecryptedData}: typed pipeline
+     * failures pass through under their own code, deserialization and unexpected failures are wrapped once with the id.
+     */
+    private Throwable toFetchFailure(String id, Throwable e) {
+        switch (e) {
+            case HttpApiException httpError -> failureLog.error(log, httpError, "HTTP error {} from external service for id {}. Body: {}",
+                    httpError.getStatusCode(), id, httpError.getResponseBody());
+            case ApiException apiError -> failureLog.warn(log, PipelineException.Code.API_ERROR,
+                    "Decryption resulted in a known API error for id {}: {}", id, apiError.getErrorDetails());
+            case DeserializationException deserialization -> {
+                failureLog.error(log, deserialization, "Failed to deserialize decrypted payload for id {}", id);
+                return new PipelineException(PipelineException.Code.DESERIALIZATION, "Malformed data from external service for id " + id, e);
+            }
+            // Shed load, upstream limit reached or circuit open: counted only, the caller should back off
+            case CryptoOverloadedException overloaded -> failureLog.count(overloaded);
+            case UpstreamRejectedException rejected -> failureLog.count(rejected);
+            case PipelineException empty when empty.getCode() == PipelineException.Code.UPSTREAM_EMPTY -> { } // Logged by noEncryptedData
+            // Typed failures (CryptoException, ...) already carry their code: reported under it, passed on as is
+            case PipelineException pipeline -> failureLog.error(log, pipeline, "{} failure processing data for id {}: {}",
+                    pipeline.getCode(), id, pipeline.getMessage());
+            default -> {
+                failureLog.error(log, e, "Unexpected error processing data for id {}", id);
+                return new PipelineException(PipelineException.codeOf(e), "Operation failed unexpectedly for id " + id, e);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Streaming counterpart of {@link #getDecryptedData(String)} for multi-megabyte resources: ciphertext is
+     * decrypted and parsed segment by segment, emitting one object per element if the resource is a JSON array.
+     */
+    public Flux<SomeSpecificObject> getDecryptedDataStream(String id) {
+        log.info("Streaming encrypted data for id: {}", id);
+
+        return decryptionService.decryptStream(externalClient.getEncryptedResourceStream(id), SomeSpecificObject.class, targetMapper)
+                .onErrorMap(HttpClientResponseException.class, MyBusinessService::toHttpApiException)
+                .concatMap(result -> switch (result) {
+                    case DecryptionResult.Success<SomeSpecificObject> success -> Mono.just(success.data());
+                    case DecryptionResult.Error<SomeSpecificObject> error -> Mono.error(new ApiException(error.errorDetails()));
                 })
-                // ** Catch-all for any other unexpected errors **
-                .onErrorResume(e -> {
-                    // Avoid wrapping errors we already handled
-                    if (e instanceof ApiException || e instanceof HttpApiException || e instanceof DeserializationException) {
-                        return Mono.error(e);
+                .doOnError(e -> reportStreamFailure(id, e));
+    }
+
+    private void reportStreamFailure(String id, Throwable e) {
+        switch (e) {
+            case HttpApiException httpError -> failureLog.error(log, httpError, "HTTP error {} from external service stream for id {}. Body: {}",
+                    httpError.getStatusCode(), id, httpError.getResponseBody());
+            case ApiException apiError -> failureLog.warn(log, PipelineException.Code.API_ERROR,
+                    "Decrypted stream contained a known API error for id {}: {}", id, apiError.getErrorDetails());
+            case CryptoOverloadedException overloaded -> failureLog.count(overloaded);
+            default -> failureLog.error(log, e, "Streaming decryption failed for id {}", id);
+        }
+    }
+
+    /**
+     * Fetches and decrypts many ids at once. Upstream calls fan out up to {@code batch.fetch-concurrency}, or fewer
+     * while the upstream concurrency limit is lower: items then wait for a permit instead of failing;
+     * decryption then runs on {@code batch.decrypt-concurrency} parallel rails instead of one scheduler hop per id.
+     * Every id yields a {@link BatchItem}: a {@link DecryptionResult} (Success or business Error) or the failure
+     * ({@link HttpApiException}, {@link DeserializationException}, ...), so one bad id never fails the batch.
+     */
+    public Flux<BatchItem<SomeSpecificObject>> getDecryptedDataBatch(Collection<String> ids) {
+        log.info("Fetching encrypted data batch of {} ids", ids.size());
+        boolean preserveOrder = batchConfiguration.isPreserveOrder();
+
+        Flux<Tuple2<Long, String>> indexedIds = Flux.fromIterable(ids).index();
+        Flux<DecryptionService.EncryptedEntry> fetched = preserveOrder
+                ? indexedIds.flatMapSequential(t -> fetchEntry(t.getT1().intValue(), t.getT2()), batchConfiguration.getFetchConcurrency())
+                : indexedIds.flatMap(t -> fetchEntry(t.getT1().intValue(), t.getT2()), batchConfiguration.getFetchConcurrency());
+
+        return decoder().decryptEntries(fetched, batchConfiguration.getDecryptConcurrency(), preserveOrder)
+                // Fetch and decryption failures alike are reported here, once per item
+                .doOnNext(item -> {
+                    if (item.isFailure()) {
+                        failureLog.warn(log, item.failure(), "Batch item {} (id {}) failed", item.index(), item.key());
                     }
-                    log.error("Unexpected error processing data for id {}: {}", id, e.getMessage(), e);
-                    return Mono.error(new RuntimeException("Operation failed unexpectedly for id " + id, e));
                 });
     }
 
+    private Mono<DecryptionService.EncryptedEntry> fetchEntry(int index, String id) {
+        return batchFetch(id)
+                .map(wrapper -> new DecryptionService.EncryptedEntry(index, id, wrapper, null))
+                .switchIfEmpty(Mono.fromSupplier(() -> new DecryptionService.EncryptedEntry(index, id, null,
+                        noEncryptedDataFailure(id))))
+                .onErrorResume(e -> {
+                    Throwable failure = e instanceof HttpClientResponseException httpError ? toHttpApiException(httpError) : e;
+                    return Mono.just(new DecryptionService.EncryptedEntry(index, id, null, failure));
+                });
+    }
+
+    /** Fetches in the configured wire format, then decrypts if the HTTP call was successful. */
+    private Mono<DecryptionResult<SomeSpecificObject>> fetchAndDecryptResult(String id) {
+        if (WireFormat.OCTET_STREAM.equals(externalContentType)) {
+            // Raw ciphertext body, no Base64 decode
+            return timedFetch(id, externalClient::getEncryptedResourceBinary)
+                    .flatMap(wrapper -> wrapper.data() == null || wrapper.data().length == 0
+                            ? noEncryptedData(id)
+                            : decoder().decrypt(wrapper));
+        }
+        return timedFetch(id, externalClient::getEncryptedResource)
+                .flatMap(wrapper -> wrapper.data() == null || wrapper.data().isEmpty()
+                        ? noEncryptedData(id)
+                        : decoder().decrypt(wrapper));
+    }
+
+    private DecryptionService.Decoder<SomeSpecificObject> decoder() {
+        DecryptionService.Decoder<SomeSpecificObject> current = decoder;
+        if (current == null) {
+            // A race only resolves the same binding twice
+            decoder = current = decryptionService.decoder(SomeSpecificObject.class, targetCodec);
+        }
+        return current;
+    }
+
+    private <T> Mono<T> noEncryptedData(String id) {
+        failureLog.warn(log, PipelineException.Code.UPSTREAM_EMPTY, "Received empty wrapper or data for id: {}", id);
+        return Mono.error(noEncryptedDataFailure(id));
+    }
+
+    private static PipelineException noEncryptedDataFailure(String id) {
+        return new PipelineException(PipelineException.Code.UPSTREAM_EMPTY, "Received no encrypted data from client for id " + id, null);
+    }
+
+    /**
+     * Batch item fetch: waits for an upstream permit instead of failing fast, so a limit that shrinks below
+     * {@code batch.fetch-concurrency} slows the batch down rather than failing its items on its own fan-out.
+     */
+    private Mono<CryptoWrapper> batchFetch(String id) {
+        return upstreamGuard.guardWaiting("fetch", () -> timed(id, externalClient::getEncryptedResource));
+    }
+
+    /**
+     * Upstream call through the {@link UpstreamGuard}, timed from subscription to completion, error or cancellation.
+     * Rejected calls fail with {@link UpstreamRejectedException} before reaching the client.
+     */
+    private <W> Mono<W> timedFetch(String id, Function<String, Mono<W>> fetch) {
+        return upstreamGuard.guard("fetch", () -> timed(id, fetch));
+    }
+
+    private <W> Mono<W> timed(String id, Function<String, Mono<W>> fetch) {
+        long startedAt = metrics.start();
+        return fetch.apply(id)
+                .doFinally(signal -> metrics.recordStage(PipelineMetrics.Stage.EXTERNAL_FETCH, startedAt));
+    }
+
+    private static HttpApiException toHttpApiException(HttpClientResponseException e) {
+        int statusCode = e.getStatus().getCode();
+        String responseBody = e.getResponse().getBody(String.class).orElse("<no body>");
+        return new HttpApiException("External service request failed", statusCode, responseBody, e);
+    }
+
     public Mono<Void> sendEncryptedData(SomeSpecificObject dataToSend) {
-        return encryptionService.serializeAndEncrypt(dataToSend, targetMapper)
-                .map(CryptoWrapper::new)
-                .flatMap(externalClient::postEncryptedResource);
+        Mono<Void> send;
+        if (WireFormat.OCTET_STREAM.equals(externalContentType)) {
+            send = encryptionService.serializeAndEncryptToWrapper(dataToSend, targetCodec)
+                    .flatMap(wrapper -> upstreamGuard.guard("send", () -> externalClient.postEncryptedResourceBinary(wrapper)));
+        } else {
+            // Carries the data key id and version when envelope encryption is enabled
+            send = encryptionService.serializeAndEncryptEnvelope(dataToSend, targetCodec)
+                    .flatMap(wrapper -> upstreamGuard.guard("send", () -> externalClient.postEncryptedResource(wrapper)));
+        }
+        return send.doOnError(e -> failureLog.warn(log, e, "Sending data for id {} failed", dataToSend.id()));
+    }
+
+    /**
+     * Bulk counterpart of {@link #sendEncryptedData} for export jobs. Records are grouped by
+     * {@code batch.send.max-records}, {@code max-bytes} and {@code max-wait} into multi-record envelopes (one
+     * ciphertext over the JSON array of the group) and posted to the bulk endpoint, up to
+     * {@code batch.send.concurrency} at a time; records are only pulled from {@code records} as envelopes complete.
+     * Every record yields a {@link SendResult}, in completion order, so one rejected record or failed envelope
+     * never fails the stream. Rejected records were not stored and can be sent again; after a timeout or reset
+     * the service may have stored the envelope anyway, so resending those records can duplicate them.
+     */
+    public Flux<SendResult> sendEncryptedDataBatch(Flux<SomeSpecificObject> records) {
+        BatchConfiguration.Send send = batchConfiguration.getSend();
+        EncryptionService.Encoder<List<SomeSpecificObject>> encoder = encryptionService.encoder(Argument.listOf(SomeSpecificObject.class), targetCodec);
+        return records.index()
+                // Fair backpressure: requests from the source only what the envelopes in flight leave room for
+                .bufferTimeout(send.getMaxRecords(), send.getMaxWait(), true)
+                .concatMapIterable(group -> splitBySize(group, send.getMaxBytes()), 1)
+                .flatMap(group -> sendEnvelope(group, encoder), send.getConcurrency());
+    }
+
+    private Flux<SendResult> sendEnvelope(List<Tuple2<Long, SomeSpecificObject>> group, EncryptionService.Encoder<List<SomeSpecificObject>> encoder) {
+        List<SomeSpecificObject> records = group.stream().map(Tuple2::getT2).toList();
+        // JSON only: like batch fetches, the bulk endpoint has no raw-ciphertext variant
+        return encoder.encryptEnvelope(records)
+                .flatMap(envelope -> upstreamGuard.guard("send", () -> externalClient.postEncryptedResources(envelope, records.size())))
+                .flatMapIterable(result -> {
+                    Map<Integer, ErrorDto> rejected = new HashMap<>();
+                    result.rejectedOrEmpty().forEach(rejection -> rejected.put(rejection.index(), rejection.error()));
+                    if (!rejected.isEmpty()) {
+                        failureLog.warn(log, PipelineException.Code.API_ERROR,
+                                "External service rejected {} of {} records in envelope", rejected.size(), group.size());
+                    }
+                    List<SendResult> results = new ArrayList<>(group.size());
+                    for (int i = 0; i < group.size(); i++) {
+                        Tuple2<Long, SomeSpecificObject> record = group.get(i);
+                        ErrorDto error = rejected.get(i);
+                        results.add(error == null
+                                ? SendResult.sent(record.getT1(), record.getT2())
+                                : SendResult.failed(record.getT1(), record.getT2(), new ApiException(error)));
+                    }
+                    return results;
+                })
+                .onErrorResume(e -> {
+                    Throwable failure = e instanceof HttpClientResponseException httpError ? toHttpApiException(httpError) : e;
+                    failureLog.warn(log, failure, "Envelope of {} records failed", group.size());
+                    return Flux.fromIterable(group).map(record -> SendResult.failed(record.getT1(), record.getT2(), failure));
+                });
+    }
+
+    /** Splits a group further so that no envelope exceeds {@code maxBytes}; an oversized record goes alone. */
+    private static List<List<Tuple2<Long, SomeSpecificObject>>> splitBySize(List<Tuple2<Long, SomeSpecificObject>> group, int maxBytes) {
+        List<List<Tuple2<Long, SomeSpecificObject>>> envelopes = new ArrayList<>();
+        List<Tuple2<Long, SomeSpecificObject>> current = new ArrayList<>();
+        long bytes = 0;
+        for (Tuple2<Long, SomeSpecificObject> record : group) {
+            int size = estimatedJsonSize(record.getT2());
+            if (!current.isEmpty() && bytes + size > maxBytes) {
+                envelopes.add(current);
+                current = new ArrayList<>();
+                bytes = 0;
+            }
+            current.add(record);
+            bytes += size;
+        }
+        if (!current.isEmpty()) {
+            envelopes.add(current);
+        }
+        return envelopes;
     }
-}
 
+    // Field lengths plus property names and punctuation: close enough to size envelopes without serializing twice
+    private static int estimatedJsonSize(SomeSpecificObject record) {
+        return 64 + utf8Length(record.id()) + utf8Length(record.value()) + utf8Length(record.sensitiveData());
+    }
+
+    // max-bytes limits the encoded JSON, so count UTF-8 bytes, not chars; each half of a surrogate pair counts 2
+    private static int utf8Length(String field) {
+        if (field == null) {
+            return 0;
+        }
+        int bytes = field.length();
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c >= 0x800 && !Character.isSurrogate(c)) {
+                bytes += 2;
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+}
@@ -1,9 +1,44 @@
 package dev.elvis;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+
+/**
+ * External service holding encrypted resources. JSON {@link CryptoWrapper} is the default contract; the
+ * {@code *Binary} methods are used when {@code external-service.content-type} is {@link WireFormat#OCTET_STREAM}.
+ */
 public interface MyExternalServiceClient {
     Mono<CryptoWrapper> getEncryptedResource(String id);
 
+    /**
+     * Streams a large resource as raw ciphertext chunks in the segmented {@link StreamingAesGcm} format,
+     * without Base64 or a JSON wrapper. Chunk boundaries are arbitrary.
+     */
+    Flux<ByteBuffer> getEncryptedResourceStream(String id);
+
     Mono<Void> postEncryptedResource(CryptoWrapper encryptedPayload);
+
+    /**
+     * Bulk endpoint: one envelope whose plaintext is a JSON array of {@code recordCount} records. The result names
+     * the records the service rejected; every other record was stored. A failed call leaves the outcome unknown:
+     * after a timeout or connection reset the service may still have stored the whole envelope, so sending its
+     * records again can store them twice. There is no per-record fallback, since one ciphertext covers them all.
+     */
+    Mono<BulkPostResult> postEncryptedResources(CryptoWrapper envelope, int recordCount);
+
+    /**
+     * Binary transport ({@link WireFormat#OCTET_STREAM}): the response body is the raw ciphertext, key id/version
+     * and compression come from the {@link WireFormat} headers. Implementations that only speak JSON inherit
+     * this fallback, which fetches the JSON wrapper and decodes it.
+     */
+    default Mono<BinaryCryptoWrapper> getEncryptedResourceBinary(String id) {
+        return getEncryptedResource(id).map(BinaryCryptoWrapper::fromCryptoWrapper);
+    }
+
+    /** Binary counterpart of {@link #postEncryptedResource}; the default falls back to the JSON wrapper. */
+    default Mono<Void> postEncryptedResourceBinary(BinaryCryptoWrapper encryptedPayload) {
+        return postEncryptedResource(encryptedPayload.toCryptoWrapper());
+    }
 }
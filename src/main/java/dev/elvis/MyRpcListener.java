@@ -2,85 +2,95 @@ package dev.elvis;
 
 // Assuming your business logic is now *triggered* by the listener, but the data is already present
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.rabbitmq.annotation.Queue;
 import io.micronaut.rabbitmq.annotation.RabbitListener;
+import io.micronaut.rabbitmq.bind.RabbitAcknowledgement;
+import io.micronaut.rabbitmq.connect.ChannelPool;
 import jakarta.inject.Inject;
-import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.io.IOException;
 
 @Singleton
 @RabbitListener
+// The batching RpcBatchConsumer takes over the queue when rpc.consumer.batch-enabled=true
+@Requires(property = "rpc.consumer.batch-enabled", notEquals = "true")
 public class MyRpcListener {
     private static final Logger log = LoggerFactory.getLogger(MyRpcListener.class);
 
-    @Inject EncryptionService encryptionService;
+    static final String REQUEST_QUEUE = "rpc.request.queue.v3"; // Your queue name
+    // @Queue#prefetch is an int member and cannot take a placeholder; rpc.consumer.prefetch applies to batch mode
+    static final int PREFETCH = 64;
 
-    // Inject the NAMED ObjectMapper for CAMEL_CASE replies
-    @Inject @Named("externalServiceObjectMapper")
-    ObjectMapper externalServiceObjectMapper;
+    @Inject RpcRequestHandler requestHandler;
+    @Inject FailureLog failureLog = FailureLog.defaults();
+    // Used to publish binary replies ourselves; absent when rabbitmq.enabled=false
+    @Inject @Nullable ChannelPool channelPool;
 
-
-    @Queue("rpc.request.queue.v3") // Your queue name
+    // Settled here through the acknowledgement, like RpcBatchConsumer: retryable failures (shed load, a failed
+    // reply publish) are requeued, the rest is rejected so the broker dead-letters it when the queue has an
+    // x-dead-letter-exchange, instead of the reply silently going missing
+    @Queue(value = REQUEST_QUEUE, numberOfConsumers = "${rpc.consumer.consumers:4}", prefetch = PREFETCH)
     public Mono<CryptoWrapper> processRpcRequestAutoDeserializeSnake(
             SomeSpecificObject requestData, // Micronaut attempts deserialization using default (SNAKE_CASE)
-            BasicProperties properties) {
+            BasicProperties properties,
+            RabbitAcknowledgement acknowledgement) {
 
-        final String correlationId = properties != null ? properties.getCorrelationId() : "[unknown]";
+        final String correlationId = properties != null ? properties.getCorrelationId() : RpcRequestHandler.UNKNOWN_CORRELATION_ID;
         log.info("RPC Request object received (Auto-Deserialized with default SNAKE_CASE mapper). Type: '{}', CorrelationId: '{}'",
                 requestData != null ? requestData.getClass().getSimpleName() : "null", correlationId);
 
-        // Micronaut's listener error handling might catch deserialization errors before this point,
-        // but a null check is still good practice.
-        if (requestData == null) {
-            log.error("Received null request data object after deserialization. CorrelationId: '{}'", correlationId);
-            return Mono.empty(); // Or other error handling
-        }
-
-        // 1. Decode specific field
-        SomeSpecificObject dataToEncrypt;
-        try {
-            String decodedSensitiveData = decodeSensitiveDataField(requestData.sensitiveData());
-            // Create new object with decoded data
-            dataToEncrypt = new SomeSpecificObject(
-                    requestData.id(), requestData.value(), requestData.count(), decodedSensitiveData
-            );
-            log.debug("Decoded sensitive field for CorrelationId: {}", correlationId);
-        } catch (Exception e) {
-            log.error("Failed decoding field. CorrId: '{}'. Error: {}", correlationId, e.getMessage(), e);
-            return Mono.empty(); // Or other error handling
+        Mono<CryptoWrapper> reply;
+        // Only a requester with a reply queue gets a reply we publish ourselves
+        boolean publishable = channelPool != null && properties != null && properties.getReplyTo() != null;
+        if (publishable && WireFormat.acceptsFieldLevel(properties)) {
+            // Already serialized by the field-level codec, so it is published as is, like the binary reply below
+            reply = requestHandler.handleFieldLevel(requestData, correlationId)
+                    .flatMap(json -> publishReply(properties, WireFormat.fieldLevelReplyProperties(correlationId), json))
+                    .then(Mono.empty());
+        } else if (publishable && WireFormat.acceptsBinary(properties)) {
+            // The framework can only publish the return value as a serialized body, so a raw-bytes reply with
+            // metadata headers is published here and the method completes empty (nothing left to send)
+            reply = requestHandler.handleBinary(requestData, correlationId, properties.getReplyTo())
+                    .flatMap(binary -> publishReply(properties, WireFormat.binaryReplyProperties(correlationId, binary), binary.data()))
+                    .then(Mono.empty());
+        } else {
+            reply = requestHandler.handle(requestData, correlationId, properties != null ? properties.getReplyTo() : null);
         }
-
-        // 2. Encrypt reply using EncryptionService, passing the EXTERNAL (CAMEL_CASE) mapper
-        log.debug("Encrypting response object using externalServiceObjectMapper (CAMEL_CASE) for CorrelationId: '{}'", correlationId);
-        return encryptionService.serializeAndEncrypt(dataToEncrypt, externalServiceObjectMapper) // Pass the specific CAMEL_CASE mapper
-                .map(CryptoWrapper::new)
-                .doOnSuccess(wrapper -> log.info("Processed and encrypted response for CorrelationId: '{}'", correlationId))
-                .onErrorResume(error -> {
-                    log.error("Error during encryption/wrapping stage for CorrelationId: '{}'. Error: {}",
-                            correlationId, error.getMessage(), error);
+        // Acked before the framework publishes a JSON reply; a reply lost after that is not redelivered,
+        // as with the framework's own acknowledgement
+        return reply.doOnSuccess(published -> acknowledgement.ack())
+                .onErrorResume(e -> {
+                    boolean requeue = e instanceof RpcProcessingException rpcFailure && rpcFailure.isRetryable();
+                    // The one place a failed request is logged and counted; the handler only maps failures
+                    failureLog.warn(log, e, "Nacking RPC request, correlationId '{}' (requeue {})", correlationId, requeue);
+                    acknowledgement.nack(false, requeue);
                     return Mono.empty();
                 });
     }
 
-    // Example decoding helper
-    private String decodeSensitiveDataField(String encodedData) {
-        if (encodedData == null) return null;
-        try {
-            // Replace with your actual decoding logic
-            log.trace("Decoding sensitive data field (assuming Base64)...");
-            byte[] decodedBytes = Base64.getDecoder().decode(encodedData);
-            return new String(decodedBytes, StandardCharsets.UTF_8);
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid encoding for sensitive data field", e);
-        }
+    private Mono<Void> publishReply(BasicProperties request, BasicProperties replyProperties, byte[] body) {
+        return Mono.<Void>fromRunnable(() -> {
+                    try {
+                        Channel channel = channelPool.getChannel();
+                        try {
+                            channel.basicPublish("", request.getReplyTo(), replyProperties, body);
+                        } finally {
+                            channelPool.returnChannel(channel);
+                        }
+                    } catch (IOException e) {
+                        throw new RpcProcessingException("Cannot publish RPC reply to " + request.getReplyTo(), e, true);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic()); // Socket I/O, keep it off the crypto workers
     }
 }
 
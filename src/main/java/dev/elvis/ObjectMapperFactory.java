@@ -5,12 +5,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.micronaut.context.annotation.Factory;
+import io.micronaut.core.annotation.TypeHint;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Unlike Micronaut Serde, this Jackson mapper binds by reflection, so the types it reads and writes are listed in
+ * {@link TypeHint} for the GraalVM native image (ignored on the JVM): {@link SomeSpecificObject}, and
+ * {@link ErrorDto}, which {@link DecryptionService#decryptStream} binds when a streamed value is an error payload.
+ */
 @Factory
+@TypeHint(value = {SomeSpecificObject.class, ErrorDto.class}, accessType = {
+        TypeHint.AccessType.ALL_DECLARED_CONSTRUCTORS,
+        TypeHint.AccessType.ALL_PUBLIC_METHODS,
+        TypeHint.AccessType.ALL_DECLARED_FIELDS})
 public class ObjectMapperFactory {
     private static final Logger log = LoggerFactory.getLogger(ObjectMapperFactory.class);
 
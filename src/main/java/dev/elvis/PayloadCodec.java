@@ -0,0 +1,64 @@
+package dev.elvis;
+
+import io.micronaut.core.type.Argument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serialization format of the plaintext inside a ciphertext, as used by {@link EncryptionService} and
+ * {@link DecryptionService}. The naming strategy is a property of the codec, so one service instance serves
+ * CAMEL_CASE and SNAKE_CASE peers alike.
+ * <p>
+ * {@link SerdePayloadCodec} uses Micronaut Serde's compile-time generated serializers and is what the application
+ * wires by default; {@link JacksonPayloadCodec} adapts a reflective Jackson {@code ObjectMapper} for callers of the
+ * older mapper-based overloads. Implementations must be thread-safe.
+ * <p>
+ * {@link #bind(Argument)} resolves the serializer and deserializer of one type, generic types included, once;
+ * the typed handles {@link EncryptionService#encoder} and {@link DecryptionService#decoder} keep such a binding.
+ */
+public interface PayloadCodec {
+
+    /** Short identifier, used as the {@code mapper} tag of the pipeline metrics. */
+    String name();
+
+    /** Serializes {@code value} to {@code out}; may close {@code out}. */
+    void write(OutputStream out, Object value) throws IOException;
+
+    /** Parses the JSON value in {@code data[offset, offset + length)}. */
+    Tree readTree(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * Writer and reader for {@code type}, e.g. {@code Argument.listOf(SomeSpecificObject.class)}. Codecs cache what
+     * they resolve, but hot paths should still hold on to the binding rather than ask again per call.
+     */
+    <T> Binding<T> bind(Argument<T> type);
+
+    /** Serialization of one type, resolved up front. */
+    interface Binding<T> {
+
+        Argument<T> type();
+
+        /** Serializes {@code value} to {@code out}; may close {@code out}. */
+        void write(OutputStream out, T value) throws IOException;
+
+        /** Binds a tree parsed by the codec this binding came from. */
+        T read(Tree tree) throws IOException;
+    }
+
+    /**
+     * A parsed payload. Decryption parses once, inspects top-level fields to tell success and error payloads apart,
+     * then binds the tree to the chosen type.
+     */
+    interface Tree {
+
+        boolean isObject();
+
+        boolean isArray();
+
+        /** True if the object has {@code field} with a non-null value. */
+        boolean hasNonNull(String field);
+
+        <T> T bind(Class<T> type) throws IOException;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.serde.ObjectMapper;
+import io.micronaut.serde.config.DeserializationConfiguration;
+import io.micronaut.serde.config.SerdeConfiguration;
+import io.micronaut.serde.config.SerializationConfiguration;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Factory
+public class PayloadCodecFactory {
+    private static final Logger log = LoggerFactory.getLogger(PayloadCodecFactory.class);
+
+    /** Codec for payloads exchanged with the external service, CAMEL_CASE unless configured otherwise. */
+    @Singleton
+    @Named("externalService")
+    public PayloadCodec externalServiceCodec(ObjectMapper serdeMapper,
+                                             SerdeConfiguration serdeConfiguration,
+                                             SerializationConfiguration serializationConfiguration,
+                                             DeserializationConfiguration deserializationConfiguration,
+                                             @Value("${external-service.naming-strategy:LOWER_CAMEL_CASE}") String namingStrategy) {
+        log.info("Creating '@Named(\"externalService\")' Serde codec ({})", namingStrategy);
+        return SerdePayloadCodec.create(serdeMapper, serdeConfiguration, serializationConfiguration,
+                deserializationConfiguration, namingStrategy);
+    }
+
+    /** Field-level variant: same naming, {@link Encrypted} fields encrypted inline, everything else readable. */
+    @Singleton
+    @Named("externalServiceFields")
+    public PayloadCodec externalServiceFieldCodec(ObjectMapper serdeMapper,
+                                                  SerdeConfiguration serdeConfiguration,
+                                                  SerializationConfiguration serializationConfiguration,
+                                                  DeserializationConfiguration deserializationConfiguration,
+                                                  @Value("${external-service.naming-strategy:LOWER_CAMEL_CASE}") String namingStrategy) {
+        log.info("Creating '@Named(\"externalServiceFields\")' field-level Serde codec ({})", namingStrategy);
+        return SerdePayloadCodec.createFieldLevel(serdeMapper, serdeConfiguration, serializationConfiguration,
+                deserializationConfiguration, namingStrategy);
+    }
+}
@@ -0,0 +1,124 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate stage between serialization and encryption. Compression has to happen before encryption
+ * (ciphertext does not compress) and is signalled by {@link #DEFLATE} in the wrapper's {@code encoding}.
+ * The encoding is authenticated as associated data ({@link #associatedData}), so stripping or adding the flag
+ * fails decryption instead of feeding compressed bytes to the parser or plain bytes to the inflater.
+ * <p>
+ * Deflater and Inflater allocate native zlib state, so instances are pooled and reset instead of created per
+ * message. Only compress payloads whose content the sender controls: mixing attacker-chosen input and secrets
+ * in one compressed payload leaks information through its length (CRIME/BREACH).
+ */
+@Singleton
+public class PayloadCompressor {
+
+    /** {@code encoding} value of a deflate-compressed payload. */
+    public static final String DEFLATE = "deflate";
+
+    private final CompressionConfiguration configuration;
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Inflater> inflaters;
+
+    public PayloadCompressor(CompressionConfiguration configuration) {
+        this.configuration = configuration;
+        this.deflaters = new ArrayBlockingQueue<>(Math.max(1, configuration.getPoolSize()));
+        this.inflaters = new ArrayBlockingQueue<>(Math.max(1, configuration.getPoolSize()));
+    }
+
+    /** Associated data binding a ciphertext to its {@code encoding}; null for uncompressed payloads, as before. */
+    @Nullable
+    static byte[] associatedData(@Nullable String encoding) {
+        return encoding != null ? encoding.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /** True if a payload of {@code length} bytes should be compressed. */
+    public boolean shouldCompress(int length) {
+        return configuration.isEnabled() && length >= configuration.getMinSize();
+    }
+
+    /**
+     * Deflates the remaining bytes of {@code input}.
+     * @return the compressed bytes, or null if they would not be smaller than the input.
+     */
+    public ByteBuffer compress(ByteBuffer input) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(configuration.getLevel(), true);
+        }
+        try {
+            int length = input.remaining();
+            deflater.setInput(input);
+            deflater.finish();
+            // Only worth it if strictly smaller, so the output never needs more room than the input
+            byte[] out = new byte[length];
+            int written = 0;
+            while (!deflater.finished() && written < out.length) {
+                written += deflater.deflate(out, written, out.length - written);
+            }
+            return deflater.finished() && written < length ? ByteBuffer.wrap(out, 0, written) : null;
+        } finally {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Inflates the remaining bytes of {@code compressed}.
+     * @throws DeserializationException if the data is corrupt or inflates beyond {@code max-inflated-size}.
+     */
+    public ByteBuffer decompress(ByteBuffer compressed) {
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            int limit = configuration.getMaxInflatedSize();
+            inflater.setInput(compressed);
+            byte[] out = new byte[Math.min(limit, Math.max(256, compressed.remaining() * 4))];
+            int written = 0;
+            while (!inflater.finished()) {
+                if (written == out.length) {
+                    if (out.length == limit) {
+                        throw new DeserializationException("Compressed payload inflates beyond " + limit + " bytes");
+                    }
+                    out = Arrays.copyOf(out, (int) Math.min(limit, out.length * 2L));
+                }
+                int n = inflater.inflate(out, written, out.length - written);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DeserializationException("Compressed payload is truncated");
+                }
+                written += n;
+            }
+            return ByteBuffer.wrap(out, 0, written);
+        } catch (DataFormatException e) {
+            throw new DeserializationException("Compressed payload is corrupt", e);
+        } finally {
+            inflater.reset();
+            if (!inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        deflaters.forEach(Deflater::end);
+        inflaters.forEach(Inflater::end);
+    }
+}
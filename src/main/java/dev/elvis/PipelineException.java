@@ -0,0 +1,45 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+
+/**
+ * Base of every failure the pipeline raises on purpose, tagged with a {@link Code} for logs and metrics.
+ * <p>
+ * These exceptions are stackless and never collect suppressed exceptions: during an upstream incident each
+ * failed request would otherwise pay for a full stack walk, which is more CPU than the request itself.
+ * The code and message say where a failure comes from; a foreign cause (JDK, Jackson, HTTP client) keeps
+ * its own stack trace. Without suppression an instance can also be preallocated and shared between
+ * subscribers, see {@link UpstreamRejectedException}.
+ */
+public class PipelineException extends RuntimeException {
+
+    /** Failure categories, one log rate limit and one counter each. */
+    public enum Code {
+        CRYPTO, DESERIALIZATION, OVERLOADED, UPSTREAM_REJECTED, UPSTREAM_HTTP, UPSTREAM_EMPTY,
+        API_ERROR, INVALID_REQUEST, INTERNAL;
+
+        final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    private final Code code;
+
+    public PipelineException(Code code, String message, @Nullable Throwable cause) {
+        super(message, cause, false, false);
+        this.code = code;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    /** Code of the first pipeline exception in the cause chain of {@code failure}, {@link Code#INTERNAL} if there is none. */
+    public static Code codeOf(Throwable failure) {
+        Throwable e = failure;
+        for (int depth = 0; e != null && depth < 16; e = e.getCause(), depth++) { // Bounded, cause chains can loop
+            if (e instanceof PipelineException pipeline) {
+                return pipeline.code;
+            }
+        }
+        return Code.INTERNAL;
+    }
+}
@@ -0,0 +1,189 @@
+package dev.elvis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Singleton;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer instrumentation for the crypto pipeline: per-stage timers, payload size summaries,
+ * outcome counters and scheduler queueing time.
+ * <p>
+ * Everything is a no-op when no {@link MeterRegistry} exists ({@code micronaut.metrics.enabled: false}):
+ * {@link #start()} then returns 0 without reading the clock, and every record method returns immediately.
+ * Meters are resolved once and cached, so the enabled hot path is a map lookup plus the recording itself.
+ */
+@Singleton
+public class PipelineMetrics {
+
+    /** Timed stages of the pipeline. */
+    public enum Stage {
+        BASE64_DECODE, DECRYPT, DECOMPRESS, DESERIALIZE,
+        SERIALIZE, COMPRESS, ENCRYPT, BASE64_ENCODE,
+        EXTERNAL_FETCH, FIELD_DECODE, FIELD_ENCRYPT, FIELD_DECRYPT, RPC_TOTAL;
+
+        final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    /** Measured payload sizes. */
+    public enum Payload {
+        CIPHERTEXT, PLAINTEXT, COMPRESSED;
+
+        final String tag = name().toLowerCase();
+    }
+
+    /** Final outcome of one operation. */
+    public enum Outcome {
+        SUCCESS, ERROR, DESERIALIZATION_FAILURE, FAILURE, REJECTED;
+
+        final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<PipelineException.Code, Counter> failureCounters = new EnumMap<>(PipelineException.Code.class);
+    private final Map<String, DistributionSummary> payloadSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Timer> queueTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> outcomeCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> hedgeCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> idempotencyCounters = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(@Nullable MeterRegistry registry) {
+        this.registry = registry;
+        this.enabled = registry != null;
+        if (enabled) {
+            for (Stage stage : Stage.values()) {
+                stageTimers.put(stage, Timer.builder("crypto.pipeline.stage")
+                        .description("Time spent in one stage of the crypto pipeline")
+                        .tag("stage", stage.tag)
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            for (PipelineException.Code code : PipelineException.Code.values()) {
+                failureCounters.put(code, Counter.builder("crypto.pipeline.failures")
+                        .description("Pipeline failures by error code, logged or not")
+                        .tag("code", code.tag)
+                        .register(registry));
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Start timestamp for {@link #recordStage}; 0 (and no clock read) when disabled. */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void recordStage(Stage stage, long startNanos) {
+        if (enabled) {
+            stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordPayloadSize(String operation, Payload payload, int bytes) {
+        if (enabled) {
+            payloadSummaries.computeIfAbsent(operation + '/' + payload.tag, k -> DistributionSummary.builder("crypto.pipeline.payload.size")
+                            .description("Payload size seen by the crypto pipeline")
+                            .baseUnit("bytes")
+                            .tag("operation", operation)
+                            .tag("payload", payload.tag)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(bytes);
+        }
+    }
+
+    /** Time between handing work to a scheduler and a worker actually starting it. */
+    public void recordQueueing(String operation, long enqueuedNanos) {
+        if (enabled) {
+            queueTimers.computeIfAbsent(operation, k -> Timer.builder("crypto.pipeline.scheduler.queue")
+                            .description("Time work waited for a scheduler worker")
+                            .tag("operation", operation)
+                            .publishPercentileHistogram()
+                            .register(registry))
+                    .record(System.nanoTime() - enqueuedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Hedged external requests: every hedge sent, and separately those that answered before the original. */
+    public void recordHedge(String operation, boolean won) {
+        if (enabled) {
+            String result = won ? "won" : "sent";
+            hedgeCounters.computeIfAbsent(operation + '/' + result, k -> Counter.builder("crypto.pipeline.external.hedges")
+                            .description("Hedged requests to the external service")
+                            .tag("operation", operation)
+                            .tag("result", result)
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    /** Calls refused by {@link UpstreamGuard} before reaching the external service. */
+    public void recordRejection(String operation, UpstreamRejectedException.Reason reason) {
+        if (enabled) {
+            rejectionCounters.computeIfAbsent(operation + '/' + reason.tag, k -> Counter.builder("crypto.pipeline.external.rejections")
+                            .description("External service calls refused by the concurrency limiter or circuit breaker")
+                            .tag("operation", operation)
+                            .tag("reason", reason.tag)
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    /** RPC requests seen by {@link RpcIdempotency}: {@code hit} (replayed), {@code collapsed} (joined an in-flight one) or {@code miss}. */
+    public void recordIdempotency(String result) {
+        if (enabled) {
+            idempotencyCounters.computeIfAbsent(result, k -> Counter.builder("crypto.pipeline.rpc.idempotency")
+                            .description("RPC requests by idempotency result")
+                            .tag("result", result)
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    /** Every failure seen by {@link FailureLog}, including those its rate limit kept out of the log. */
+    public void recordFailure(PipelineException.Code code) {
+        if (enabled) {
+            failureCounters.get(code).increment();
+        }
+    }
+
+    /** Registers a gauge read on every scrape. Micrometer holds {@code owner} weakly; the caller must keep it reachable. */
+    public <T> void gauge(String name, String description, T owner, ToDoubleFunction<T> value) {
+        if (enabled) {
+            Gauge.builder(name, owner, value)
+                    .description(description)
+                    .register(registry);
+        }
+    }
+
+    /** Outcome counter tagged with the target type and the codec's {@link PayloadCodec#name() name}. */
+    public void recordOutcome(String operation, Outcome outcome, Class<?> targetType, @Nullable PayloadCodec codec) {
+        if (enabled) {
+            String type = targetType != null ? targetType.getSimpleName() : "none";
+            String mapperTag = codec != null ? codec.name() : "none";
+            outcomeCounters.computeIfAbsent(operation + '/' + outcome.tag + '/' + type + '/' + mapperTag, k -> Counter.builder("crypto.pipeline.operations")
+                            .description("Crypto pipeline operations by outcome")
+                            .tag("operation", operation)
+                            .tag("outcome", outcome.tag)
+                            .tag("type", type)
+                            .tag("mapper", mapperTag)
+                            .register(registry))
+                    .increment();
+        }
+    }
+}
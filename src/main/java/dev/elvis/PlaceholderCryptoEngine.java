@@ -0,0 +1,51 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Requires;
+import jakarta.inject.Singleton;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Legacy {@code "enc-"} prefix "encryption". NOT secure - only kept so environments that still
+ * exchange placeholder payloads can opt in with {@code crypto.engine: placeholder}.
+ * Associated data is ignored, since nothing is authenticated.
+ */
+@Singleton
+@Requires(property = "crypto.engine", value = "placeholder")
+public class PlaceholderCryptoEngine implements CryptoEngine {
+
+    private static final byte[] PREFIX = "enc-".getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public int encryptedLength(int plaintextLength) {
+        return PREFIX.length + plaintextLength;
+    }
+
+    @Override
+    public int maxDecryptedLength(int ciphertextLength) {
+        return Math.max(0, ciphertextLength - PREFIX.length);
+    }
+
+    @Override
+    public int encrypt(ByteBuffer plaintext, ByteBuffer ciphertextOut, byte[] associatedData) {
+        int length = plaintext.remaining();
+        ciphertextOut.put(PREFIX).put(plaintext);
+        return PREFIX.length + length;
+    }
+
+    @Override
+    public int decrypt(ByteBuffer ciphertext, ByteBuffer plaintextOut, byte[] associatedData) {
+        if (ciphertext.remaining() < PREFIX.length) {
+            throw new CryptoException("Decryption failed (placeholder check)");
+        }
+        for (byte b : PREFIX) {
+            if (ciphertext.get() != b) {
+                throw new CryptoException("Decryption failed (placeholder check)");
+            }
+        }
+        int length = ciphertext.remaining();
+        plaintextOut.put(ciphertext);
+        return length;
+    }
+}
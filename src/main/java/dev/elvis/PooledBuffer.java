@@ -0,0 +1,60 @@
+package dev.elvis;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A lease on a {@link BufferPool} array. Close it exactly once when done, typically with try-with-resources;
+ * neither the lease nor its buffer may be used afterwards.
+ */
+public final class PooledBuffer implements AutoCloseable {
+
+    private final BufferPool pool;
+    private final int sizeClass;
+    private final int capacity;
+    private byte[] array;
+    private final ByteBuffer buffer;
+
+    PooledBuffer(BufferPool pool, byte[] array, int capacity, int sizeClass) {
+        this.pool = pool;
+        this.array = array;
+        this.sizeClass = sizeClass;
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.wrap(array, 0, capacity);
+    }
+
+    /** Array-backed view of the leased region, position 0 and limit = requested capacity when acquired. */
+    public ByteBuffer buffer() {
+        checkOpen();
+        return buffer;
+    }
+
+    /** Capacity requested when acquired; the backing array may be larger. */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** The backing array; only bytes {@code [0, capacity)} belong to this lease. */
+    public byte[] array() {
+        checkOpen();
+        return array;
+    }
+
+    int sizeClass() {
+        return sizeClass;
+    }
+
+    @Override
+    public void close() {
+        checkOpen();
+        byte[] released = array;
+        array = null;
+        // Scrub everything that could have been written, not just up to the current position
+        pool.release(this, released, capacity);
+    }
+
+    private void checkOpen() {
+        if (array == null) {
+            throw new IllegalStateException("Pooled buffer used after release");
+        }
+    }
+}
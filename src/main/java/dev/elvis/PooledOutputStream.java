@@ -0,0 +1,72 @@
+package dev.elvis;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Growable output stream on {@link BufferPool} leases, used as the serialization target so JSON can be fed
+ * to the cipher without a {@code toByteArray()} copy or a fresh array per message. Growing moves to the next
+ * size class and releases the old lease. Call {@link #release()} when done; views handed out by
+ * {@link #asByteBuffer()} are only valid until then, or until the stream is written to again.
+ * <p>
+ * {@link #close()} does not release anything: Jackson closes its target after writing, long before the
+ * bytes have been encrypted.
+ */
+class PooledOutputStream extends OutputStream {
+
+    private final BufferPool pool;
+    private PooledBuffer lease;
+    private byte[] buf;
+    private int count;
+
+    PooledOutputStream(BufferPool pool, int initialSize) {
+        this.pool = pool;
+        this.lease = pool.acquire(initialSize);
+        this.buf = lease.array();
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /** View of the bytes written so far, backed by the leased array. */
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= lease.capacity()) {
+            return;
+        }
+        if (required < 0) {
+            throw new OutOfMemoryError("Serialized payload exceeds 2 GB");
+        }
+        PooledBuffer grown = pool.acquire((int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, lease.capacity() * 2L)));
+        System.arraycopy(buf, 0, grown.array(), 0, count);
+        lease.close();
+        lease = grown;
+        buf = grown.array();
+    }
+
+    /** Returns the current lease to the pool; idempotent. */
+    void release() {
+        if (lease != null) {
+            lease.close();
+            lease = null;
+            buf = null;
+        }
+    }
+}
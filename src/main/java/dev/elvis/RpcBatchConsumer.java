@@ -0,0 +1,216 @@
+package dev.elvis;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.json.JsonMapper;
+import io.micronaut.rabbitmq.connect.ChannelPool;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch mode for the RPC request queue ({@code rpc.consumer.batch-enabled=true}), replacing {@link MyRpcListener}.
+ * <p>
+ * Each of {@code rpc.consumer.consumers} channels consumes with {@code rpc.consumer.prefetch} unacked deliveries
+ * and groups them into batches of up to {@code rpc.consumer.batch-size} (or whatever arrived within
+ * {@code batch-max-wait}). A batch is decoded and encrypted in parallel, replies are published (JSON, or raw
+ * ciphertext for requesters that accept {@link WireFormat#OCTET_STREAM}), failed deliveries
+ * are nacked (requeued only when retryable, otherwise dead-lettered) and the rest is settled with a single
+ * multi-ack. Batches on one channel are processed strictly one after another, so acks never overtake each other.
+ */
+@Singleton
+@Requires(property = "rpc.consumer.batch-enabled", value = "true")
+@Requires(beans = ChannelPool.class)
+public class RpcBatchConsumer implements ApplicationEventListener<StartupEvent> {
+    private static final Logger log = LoggerFactory.getLogger(RpcBatchConsumer.class);
+
+    @Inject RpcRequestHandler requestHandler;
+    @Inject RpcConsumerConfiguration configuration;
+    @Inject ChannelPool channelPool;
+    // Micronaut's default (SNAKE_CASE) mapper, the same one @Queue listeners deserialize with
+    @Inject JsonMapper jsonMapper;
+    @Inject FailureLog failureLog = FailureLog.defaults();
+
+    private final List<Channel> channels = new ArrayList<>();
+    private final List<Disposable> subscriptions = new ArrayList<>();
+
+    @Override
+    public void onApplicationEvent(StartupEvent event) {
+        try {
+            start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start batch consumers on " + MyRpcListener.REQUEST_QUEUE, e);
+        }
+    }
+
+    private void start() throws IOException {
+        for (int i = 0; i < Math.max(1, configuration.getConsumers()); i++) {
+            Channel channel = channelPool.getChannel();
+            channel.basicQos(configuration.getPrefetch());
+            channels.add(channel);
+            subscriptions.add(consume(channel));
+        }
+        log.info("Consuming {} in batches of up to {} on {} channels (prefetch {})", MyRpcListener.REQUEST_QUEUE,
+                configuration.getBatchSize(), channels.size(), configuration.getPrefetch());
+    }
+
+    /** Consumes on {@code channel} until disposed, restarting the pipeline if it ever fails. */
+    Disposable consume(Channel channel) throws IOException {
+        Disposable.Swap consumer = Disposables.swap();
+        consumer.replace(subscribe(channel, consumer));
+        return consumer;
+    }
+
+    private Disposable subscribe(Channel channel, Disposable.Swap consumer) throws IOException {
+        // The client delivers to one consumer sequentially, which is all a unicast sink needs
+        Sinks.Many<Delivery> deliveries = Sinks.many().unicast().onBackpressureBuffer();
+        String consumerTag = channel.basicConsume(MyRpcListener.REQUEST_QUEUE, false, new DefaultConsumer(channel) {
+            @Override
+            public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) {
+                deliveries.tryEmitNext(new Delivery(envelope, properties, body));
+            }
+        });
+        Disposable processing = deliveries.asFlux()
+                // Fair: a batch that closes while the previous one is still processing waits for demand instead
+                // of failing the pipeline with "Could not emit buffer due to lack of requests"
+                .bufferTimeout(Math.max(1, configuration.getBatchSize()), configuration.getBatchMaxWait(), true)
+                .concatMap(batch -> processBatch(channel, batch))
+                .subscribe(null, e -> restart(channel, consumerTag, consumer, e));
+        return Disposables.composite(() -> cancel(channel, consumerTag), processing);
+    }
+
+    // processBatch never errors, so only a bug gets here; without a restart the channel would keep its unacked deliveries
+    private void restart(Channel channel, String consumerTag, Disposable.Swap consumer, Throwable failure) {
+        log.error("Batch consumer on {} failed, redelivering its unacked requests and restarting", MyRpcListener.REQUEST_QUEUE, failure);
+        cancel(channel, consumerTag);
+        if (consumer.isDisposed()) {
+            return;
+        }
+        try {
+            channel.basicRecover(true); // The failed pipeline can no longer settle them
+            consumer.replace(subscribe(channel, consumer));
+        } catch (IOException e) {
+            log.error("Cannot restart batch consumer on {}, its channel stops consuming", MyRpcListener.REQUEST_QUEUE, e);
+        }
+    }
+
+    private static void cancel(Channel channel, String consumerTag) {
+        try {
+            channel.basicCancel(consumerTag); // Stop deliveries first, unacked ones go back to the queue
+        } catch (IOException e) {
+            log.warn("Failed to cancel consumer {}", consumerTag, e);
+        }
+    }
+
+    /** Processes one batch from {@code channel}; never errors, every delivery ends up acked or nacked. */
+    Mono<Void> processBatch(Channel channel, List<Delivery> batch) {
+        return Flux.fromIterable(batch)
+                .flatMapSequential(delivery -> handle(delivery)
+                        .map(reply -> new Settlement(delivery, reply, null))
+                        .onErrorResume(e -> Mono.just(new Settlement(delivery, null, e))), batch.size())
+                .collectList()
+                .doOnNext(settlements -> settle(channel, settlements))
+                .onErrorResume(e -> {
+                    log.error("Failed to settle RPC batch of {} deliveries", batch.size(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Reply> handle(Delivery delivery) {
+        String correlationId = delivery.getProperties() != null ? delivery.getProperties().getCorrelationId() : RpcRequestHandler.UNKNOWN_CORRELATION_ID;
+        String replyTo = delivery.getProperties() != null ? delivery.getProperties().getReplyTo() : null;
+        SomeSpecificObject request;
+        try {
+            request = jsonMapper.readValue(delivery.getBody(), SomeSpecificObject.class);
+        } catch (IOException e) {
+            return Mono.error(new RpcProcessingException(PipelineException.Code.INVALID_REQUEST,
+                    "Cannot deserialize RPC request, correlationId " + correlationId, e, false));
+        }
+        if (WireFormat.acceptsFieldLevel(delivery.getProperties())) {
+            return requestHandler.handleFieldLevel(request, correlationId)
+                    .map(reply -> new Reply(WireFormat.fieldLevelReplyProperties(correlationId), reply));
+        }
+        if (WireFormat.acceptsBinary(delivery.getProperties())) {
+            return requestHandler.handleBinary(request, correlationId, replyTo)
+                    .map(reply -> new Reply(WireFormat.binaryReplyProperties(correlationId, reply), reply.data()));
+        }
+        return requestHandler.handle(request, correlationId, replyTo)
+                .<Reply>handle((reply, sink) -> {
+                    try {
+                        sink.next(new Reply(WireFormat.jsonReplyProperties(correlationId), jsonMapper.writeValueAsBytes(reply)));
+                    } catch (IOException e) {
+                        sink.error(new RpcProcessingException("Cannot serialize RPC reply, correlationId " + correlationId, e, false));
+                    }
+                });
+    }
+
+    private void settle(Channel channel, List<Settlement> settlements) {
+        long lastAcked = -1;
+        for (Settlement settlement : settlements) {
+            long tag = settlement.delivery().getEnvelope().getDeliveryTag();
+            Throwable failure = settlement.failure() != null ? settlement.failure() : publishReply(channel, settlement);
+            try {
+                if (failure == null) {
+                    lastAcked = Math.max(lastAcked, tag);
+                } else {
+                    boolean requeue = failure instanceof RpcProcessingException rpcFailure && rpcFailure.isRetryable();
+                    failureLog.warn(log, failure, "Nacking RPC request (tag {}, requeue {})", tag, requeue);
+                    channel.basicNack(tag, false, requeue);
+                }
+            } catch (IOException e) {
+                log.error("Failed to nack delivery {}", tag, e);
+            }
+        }
+        if (lastAcked >= 0) {
+            try {
+                // Everything up to lastAcked is either successful or already nacked above
+                channel.basicAck(lastAcked, true);
+            } catch (IOException e) {
+                log.error("Failed to ack RPC batch up to delivery {}", lastAcked, e);
+            }
+        }
+    }
+
+    private Throwable publishReply(Channel channel, Settlement settlement) {
+        AMQP.BasicProperties request = settlement.delivery().getProperties();
+        if (request == null || request.getReplyTo() == null) {
+            return null; // Fire-and-forget request, nothing to reply to
+        }
+        try {
+            channel.basicPublish("", request.getReplyTo(), settlement.reply().properties(), settlement.reply().body());
+            return null;
+        } catch (IOException e) {
+            return new RpcProcessingException("Cannot publish RPC reply to " + request.getReplyTo(), e, true);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        subscriptions.forEach(Disposable::dispose);
+        channels.forEach(channelPool::returnChannel);
+    }
+
+    private record Reply(AMQP.BasicProperties properties, byte[] body) {
+    }
+
+    private record Settlement(Delivery delivery, Reply reply, Throwable failure) {
+    }
+}
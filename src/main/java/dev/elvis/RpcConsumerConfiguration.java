@@ -0,0 +1,40 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/** Consumer settings for the RPC request queue, see {@link MyRpcListener} and {@link RpcBatchConsumer}. */
+@ConfigurationProperties("rpc.consumer")
+public class RpcConsumerConfiguration {
+
+    /** Concurrent consumers (one channel each) on the request queue. */
+    private int consumers = 4;
+
+    /** Unacknowledged deliveries per consumer in batch mode; should be at least the batch size. */
+    private int prefetch = 64;
+
+    /** Pull requests in batches, encrypt them in parallel and ack each batch with one multi-ack. */
+    private boolean batchEnabled = false;
+
+    /** Maximum requests per batch. */
+    private int batchSize = 32;
+
+    /** Longest a partial batch waits for more requests. */
+    private Duration batchMaxWait = Duration.ofMillis(10);
+
+    public int getConsumers() { return consumers; }
+    public void setConsumers(int consumers) { this.consumers = consumers; }
+
+    public int getPrefetch() { return prefetch; }
+    public void setPrefetch(int prefetch) { this.prefetch = prefetch; }
+
+    public boolean isBatchEnabled() { return batchEnabled; }
+    public void setBatchEnabled(boolean batchEnabled) { this.batchEnabled = batchEnabled; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public Duration getBatchMaxWait() { return batchMaxWait; }
+    public void setBatchMaxWait(Duration batchMaxWait) { this.batchMaxWait = batchMaxWait; }
+}
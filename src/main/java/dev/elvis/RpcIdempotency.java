@@ -0,0 +1,116 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Answers redelivered and duplicate RPC requests with the reply already produced for them instead of decoding and
+ * encrypting again. A request is keyed by the reply format it asked for and a SHA-256 over its AMQP correlation id,
+ * reply-to queue and content, so a requester reusing a correlation id for a different request, or two requesters
+ * picking the same one, never get each other's reply. Replies are remembered in
+ * the {@link IdempotencyStore} for {@code rpc.idempotency.ttl}; identical requests arriving while the first one is
+ * still being processed wait for its reply rather than starting their own. Failures are never remembered, so a
+ * retried request is processed again.
+ */
+@Singleton
+@Requires(property = "rpc.idempotency.enabled", value = "true")
+public class RpcIdempotency {
+    private static final Logger log = LoggerFactory.getLogger(RpcIdempotency.class);
+
+    @Inject IdempotencyStore store;
+    @Inject PipelineMetrics metrics;
+
+    private final Map<String, CompletableFuture<CryptoWrapper>> inFlight = new ConcurrentHashMap<>();
+
+    /** Reply forms remembered under separate keys; they differ in encoding and in what the store holds. */
+    public enum ReplyFormat {
+        JSON, BINARY;
+
+        private final String prefix = name().toLowerCase(Locale.ROOT) + ":";
+    }
+
+    /** The idempotency key: the reply format plus a hash of the correlation id, reply-to queue and request content. */
+    public String key(ReplyFormat format, @Nullable String correlationId, @Nullable String replyTo, SomeSpecificObject request) {
+        String requestId = RpcRequestHandler.UNKNOWN_CORRELATION_ID.equals(correlationId) ? null : correlationId;
+        return format.prefix + requestHash(requestId, replyTo, request);
+    }
+
+    /** The remembered reply for {@code key}, or the one {@code process} produces (shared with concurrent duplicates). */
+    public Mono<CryptoWrapper> reply(String key, Supplier<Mono<CryptoWrapper>> process) {
+        return Mono.defer(() -> {
+            CompletableFuture<CryptoWrapper> created = new CompletableFuture<>();
+            CompletableFuture<CryptoWrapper> running = inFlight.putIfAbsent(key, created);
+            if (running != null) {
+                metrics.recordIdempotency("collapsed");
+                return Mono.fromFuture(running, true);
+            }
+            created.whenComplete((reply, error) -> inFlight.remove(key, created));
+            // Subscribed here rather than by the caller, so a cancelled first caller does not fail the duplicates
+            find(key)
+                    .doOnNext(reply -> metrics.recordIdempotency("hit"))
+                    .switchIfEmpty(Mono.defer(() -> {
+                        metrics.recordIdempotency("miss");
+                        return process.get().flatMap(reply -> save(key, reply).thenReturn(reply));
+                    }))
+                    .subscribe(created::complete, created::completeExceptionally, () -> created.complete(null));
+            return Mono.fromFuture(created, true);
+        });
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<CryptoWrapper> find(String key) {
+        return store.find(key).onErrorResume(e -> {
+            log.warn("Idempotency lookup failed for key '{}', processing the request: {}", key, e.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    private Mono<Void> save(String key, CryptoWrapper reply) {
+        return store.save(key, reply).onErrorResume(e -> {
+            log.warn("Cannot remember reply for key '{}', a redelivery will be processed again: {}", key, e.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    static String requestHash(@Nullable String correlationId, @Nullable String replyTo, SomeSpecificObject request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+        // Length-prefixed, so ("ab", "c") and ("a", "bc") differ; -1 marks null
+        update(digest, correlationId);
+        update(digest, replyTo);
+        update(digest, request.id());
+        update(digest, request.value());
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, request.count()));
+        update(digest, request.sensitiveData());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, @Nullable String field) {
+        byte[] bytes = field != null ? field.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, field != null ? bytes.length : -1));
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,33 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/** Settings for {@link RpcIdempotency}; only active when {@code rpc.idempotency.enabled} is true. */
+@ConfigurationProperties("rpc.idempotency")
+public class RpcIdempotencyConfiguration {
+
+    private boolean enabled = false;
+
+    /** {@code in-memory} selects {@link InMemoryIdempotencyStore}; anything else expects another {@link IdempotencyStore} bean. */
+    private String store = "in-memory";
+
+    /** Maximum number of remembered replies (in-memory store). */
+    private long maximumSize = 10_000;
+
+    /** How long a reply is replayed for redeliveries; should cover the broker's redelivery window. */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getStore() { return store; }
+    public void setStore(String store) { this.store = store; }
+
+    public long getMaximumSize() { return maximumSize; }
+    public void setMaximumSize(long maximumSize) { this.maximumSize = maximumSize; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+}
@@ -0,0 +1,23 @@
+package dev.elvis;
+
+/**
+ * An RPC request that could not be answered. Retryable failures (shed load) are requeued,
+ * everything else is rejected without requeue so the broker dead-letters it.
+ */
+public class RpcProcessingException extends PipelineException {
+    private final boolean retryable;
+
+    public RpcProcessingException(Code code, String message, Throwable cause, boolean retryable) {
+        super(code, message, cause);
+        this.retryable = retryable;
+    }
+
+    /** Takes the code of {@code cause}, {@link Code#INTERNAL} for foreign causes. */
+    public RpcProcessingException(String message, Throwable cause, boolean retryable) {
+        this(cause != null ? codeOf(cause) : Code.INTERNAL, message, cause, retryable);
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
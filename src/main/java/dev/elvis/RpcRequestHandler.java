@@ -0,0 +1,144 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Turns one RPC request into its encrypted reply; shared by the per-message {@link MyRpcListener}
+ * and the batching {@link RpcBatchConsumer}. Failures are signalled as {@link RpcProcessingException}
+ * so the consumer can nack instead of silently dropping the reply; the consumer also logs and counts them,
+ * so nothing is reported here. With {@code rpc.idempotency.enabled},
+ * duplicate JSON and binary requests are answered from {@link RpcIdempotency}.
+ */
+@Singleton
+public class RpcRequestHandler {
+    private static final Logger log = LoggerFactory.getLogger(RpcRequestHandler.class);
+    private static final String OPERATION = "rpc";
+    /** Logged (and never used as idempotency key) when a request has no AMQP properties. */
+    static final String UNKNOWN_CORRELATION_ID = "[unknown]";
+
+    @Inject EncryptionService encryptionService;
+    @Inject PipelineMetrics metrics;
+    @Inject BufferPool bufferPool;
+
+    // Inject the NAMED codec for CAMEL_CASE replies (Serde, no reflection)
+    @Inject @Named("externalService")
+    PayloadCodec externalServiceCodec;
+    @Inject @Named("externalServiceFields")
+    PayloadCodec externalServiceFieldCodec;
+    // Absent unless rpc.idempotency.enabled=true
+    @Inject @Nullable RpcIdempotency idempotency;
+
+    /** JSON reply: Base64 ciphertext in a {@link CryptoWrapper}, the compatibility default. */
+    public Mono<CryptoWrapper> handle(SomeSpecificObject requestData, String correlationId) {
+        return handle(requestData, correlationId, null);
+    }
+
+    /** As {@link #handle(SomeSpecificObject, String)}; {@code replyTo} is part of the idempotency key. */
+    public Mono<CryptoWrapper> handle(SomeSpecificObject requestData, String correlationId, @Nullable String replyTo) {
+        Supplier<Mono<CryptoWrapper>> process = () -> handle(requestData, correlationId,
+                data -> encryptionService.serializeAndEncrypt(data, externalServiceCodec) // Pass the specific CAMEL_CASE codec
+                        .map(CryptoWrapper::new));
+        if (idempotency == null || requestData == null) {
+            return process.get();
+        }
+        return idempotency.reply(idempotency.key(RpcIdempotency.ReplyFormat.JSON, correlationId, replyTo, requestData), process);
+    }
+
+    /** Binary reply for {@link WireFormat#OCTET_STREAM} requesters: raw ciphertext plus key and encoding metadata. */
+    public Mono<BinaryCryptoWrapper> handleBinary(SomeSpecificObject requestData, String correlationId) {
+        return handleBinary(requestData, correlationId, null);
+    }
+
+    /** As {@link #handleBinary(SomeSpecificObject, String)}; {@code replyTo} is part of the idempotency key. */
+    public Mono<BinaryCryptoWrapper> handleBinary(SomeSpecificObject requestData, String correlationId, @Nullable String replyTo) {
+        Supplier<Mono<BinaryCryptoWrapper>> process = () -> handle(requestData, correlationId,
+                data -> encryptionService.serializeAndEncryptToWrapper(data, externalServiceCodec));
+        if (idempotency == null || requestData == null) {
+            return process.get();
+        }
+        // The store holds CryptoWrapper, so the binary reply is kept Base64-encoded under its own key
+        return idempotency.reply(idempotency.key(RpcIdempotency.ReplyFormat.BINARY, correlationId, replyTo, requestData),
+                        () -> process.get().map(BinaryCryptoWrapper::toCryptoWrapper))
+                .map(BinaryCryptoWrapper::fromCryptoWrapper);
+    }
+
+    /**
+     * Field-level reply for requesters that opt in with {@link WireFormat#ENCRYPTION_HEADER}: the reply JSON with
+     * only {@code sensitiveData} encrypted, so {@code id}, {@code value} and {@code count} skip crypto entirely.
+     */
+    public Mono<byte[]> handleFieldLevel(SomeSpecificObject requestData, String correlationId) {
+        return handle(requestData, correlationId, data -> encryptionService.serializeWithEncryptedFields(
+                FieldEncryptedObject.of(data), externalServiceFieldCodec));
+    }
+
+    private <R> Mono<R> handle(SomeSpecificObject requestData, String correlationId, Function<SomeSpecificObject, Mono<R>> encrypt) {
+        final long receivedAt = metrics.start();
+
+        // Micronaut's listener error handling might catch deserialization errors before this point,
+        // but a null check is still good practice.
+        if (requestData == null) {
+            metrics.recordOutcome(OPERATION, PipelineMetrics.Outcome.DESERIALIZATION_FAILURE, SomeSpecificObject.class, null);
+            return Mono.error(new RpcProcessingException(PipelineException.Code.INVALID_REQUEST,
+                    "Empty RPC request, correlationId " + correlationId, null, false));
+        }
+
+        // 1. Decode specific field
+        SomeSpecificObject dataToEncrypt;
+        try {
+            long decodeStartedAt = metrics.start();
+            String decodedSensitiveData = decodeSensitiveDataField(requestData.sensitiveData());
+            metrics.recordStage(PipelineMetrics.Stage.FIELD_DECODE, decodeStartedAt);
+            // Create new object with decoded data
+            dataToEncrypt = new SomeSpecificObject(
+                    requestData.id(), requestData.value(), requestData.count(), decodedSensitiveData
+            );
+            log.debug("Decoded sensitive field for CorrelationId: {}", correlationId);
+        } catch (Exception e) {
+            RpcProcessingException failure = new RpcProcessingException(PipelineException.Code.INVALID_REQUEST,
+                    "Cannot decode RPC request, correlationId " + correlationId, e, false);
+            metrics.recordOutcome(OPERATION, PipelineMetrics.Outcome.FAILURE, SomeSpecificObject.class, null);
+            return Mono.error(failure);
+        }
+
+        // 2. Encrypt reply using EncryptionService, passing the EXTERNAL (CAMEL_CASE) codec
+        log.debug("Encrypting response object using externalServiceCodec (CAMEL_CASE) for CorrelationId: '{}'", correlationId);
+        return encrypt.apply(dataToEncrypt)
+                .doOnSuccess(wrapper -> {
+                    log.info("Processed and encrypted response for CorrelationId: '{}'", correlationId);
+                    metrics.recordStage(PipelineMetrics.Stage.RPC_TOTAL, receivedAt);
+                    metrics.recordOutcome(OPERATION, PipelineMetrics.Outcome.SUCCESS, SomeSpecificObject.class, externalServiceCodec);
+                })
+                .onErrorMap(error -> {
+                    boolean retryable = error instanceof CryptoOverloadedException;
+                    metrics.recordOutcome(OPERATION, retryable ? PipelineMetrics.Outcome.REJECTED : PipelineMetrics.Outcome.FAILURE,
+                            SomeSpecificObject.class, externalServiceCodec);
+                    return new RpcProcessingException("Cannot encrypt RPC reply, correlationId " + correlationId, error, retryable);
+                });
+    }
+
+    // Example decoding helper
+    private String decodeSensitiveDataField(String encodedData) {
+        if (encodedData == null) return null;
+        try {
+            // Replace with your actual decoding logic
+            log.trace("Decoding sensitive data field (assuming Base64)...");
+            // Decoded into a pooled scratch buffer, only the resulting String is allocated
+            try (PooledBuffer decoded = bufferPool.acquire(Base64Codec.maxDecodedLength(encodedData.length()))) {
+                int length = Base64Codec.decode(encodedData, decoded.buffer());
+                return new String(decoded.array(), 0, length, StandardCharsets.UTF_8);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid encoding for sensitive data field", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+
+/**
+ * Per-record outcome of {@link MyBusinessService#sendEncryptedDataBatch}. {@code index} is the position in the
+ * input and {@code failure} is null once the record was stored. Rejected records can be sent again; records of
+ * an envelope that failed in transit may already be stored, so sending them again can duplicate them.
+ * A record the external service rejected fails with {@link ApiException}; when a whole envelope could not be
+ * sent, each of its records carries that failure ({@link HttpApiException}, {@link UpstreamRejectedException}, ...).
+ */
+public record SendResult(long index, SomeSpecificObject record, @Nullable Throwable failure) {
+
+    public static SendResult sent(long index, SomeSpecificObject record) {
+        return new SendResult(index, record, null);
+    }
+
+    public static SendResult failed(long index, SomeSpecificObject record, Throwable failure) {
+        return new SendResult(index, record, failure);
+    }
+
+    public boolean isFailure() {
+        return failure != null;
+    }
+}
@@ -0,0 +1,318 @@
+package dev.elvis;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.beans.BeanIntrospector;
+import io.micronaut.core.type.Argument;
+import io.micronaut.json.tree.JsonNode;
+import io.micronaut.serde.ObjectMapper;
+import io.micronaut.serde.config.DeserializationConfiguration;
+import io.micronaut.serde.config.SerdeConfiguration;
+import io.micronaut.serde.config.SerializationConfiguration;
+import io.micronaut.serde.config.annotation.SerdeConfig;
+import io.micronaut.serde.config.naming.PropertyNamingStrategy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.TimeZone;
+
+/**
+ * {@link PayloadCodec} on Micronaut Serde: serializers are generated at compile time for {@code @Serdeable} types,
+ * so nothing on this path reflects over classes, and it works unchanged in a native image.
+ * <p>
+ * Each codec is a clone of the application's Serde mapper with its own naming strategy. Nulls are always written,
+ * like Jackson's default, so the JSON is byte-for-byte what the reflective CAMEL_CASE mapper produced.
+ * <p>
+ * Field-level codecs run every read and write inside {@link EncryptedFieldSerde#withRecordId}, with the {@code id}
+ * property of the top-level object, so each {@link Encrypted} ciphertext is bound to the record it belongs to.
+ */
+public final class SerdePayloadCodec implements PayloadCodec {
+
+    private static final String RECORD_ID_PROPERTY = "id";
+
+    private final ObjectMapper mapper;
+    private final String name;
+    // JSON name of the record id for field-level codecs, null when there are no inline ciphertexts to bind
+    @Nullable
+    private final String recordIdField;
+
+    private SerdePayloadCodec(ObjectMapper mapper, String name, @Nullable String recordIdField) {
+        this.mapper = mapper;
+        this.name = name;
+        this.recordIdField = recordIdField;
+    }
+
+    /**
+     * Codec for the plaintext inside a whole-object ciphertext: {@link Encrypted} fields are written plain,
+     * the surrounding encryption already covers them.
+     * @param namingStrategy a {@link PropertyNamingStrategy} constant name, e.g. {@code LOWER_CAMEL_CASE}
+     */
+    public static SerdePayloadCodec create(ObjectMapper serdeMapper,
+                                           SerdeConfiguration serdeConfiguration,
+                                           SerializationConfiguration serializationConfiguration,
+                                           DeserializationConfiguration deserializationConfiguration,
+                                           String namingStrategy) {
+        return create(serdeMapper, serdeConfiguration, serializationConfiguration, deserializationConfiguration,
+                namingStrategy, true);
+    }
+
+    /**
+     * Codec for field-level encryption: the JSON itself is the transport form, {@link Encrypted} fields are
+     * encrypted and decrypted inline and every other field stays readable.
+     */
+    public static SerdePayloadCodec createFieldLevel(ObjectMapper serdeMapper,
+                                                     SerdeConfiguration serdeConfiguration,
+                                                     SerializationConfiguration serializationConfiguration,
+                                                     DeserializationConfiguration deserializationConfiguration,
+                                                     String namingStrategy) {
+        return create(serdeMapper, serdeConfiguration, serializationConfiguration, deserializationConfiguration,
+                namingStrategy, false);
+    }
+
+    private static SerdePayloadCodec create(ObjectMapper serdeMapper,
+                                            SerdeConfiguration serdeConfiguration,
+                                            SerializationConfiguration serializationConfiguration,
+                                            DeserializationConfiguration deserializationConfiguration,
+                                            String namingStrategy,
+                                            boolean envelopeScoped) {
+        PropertyNamingStrategy strategy = PropertyNamingStrategy.forName(namingStrategy)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown property naming strategy: " + namingStrategy));
+        ObjectMapper mapper = serdeMapper.cloneWithConfiguration(
+                new NamingSerdeConfiguration(serdeConfiguration, namingStrategy, strategy),
+                new AlwaysIncludeSerializationConfiguration(serializationConfiguration, envelopeScoped),
+                new ScopedDeserializationConfiguration(deserializationConfiguration, envelopeScoped));
+        String name = namingStrategy.toLowerCase(Locale.ROOT).replace('_', '-');
+        return envelopeScoped
+                ? new SerdePayloadCodec(mapper, "serde-" + name, null)
+                : new SerdePayloadCodec(mapper, "serde-fields-" + name,
+                        strategy.translate(Argument.of(String.class, RECORD_ID_PROPERTY)));
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void write(OutputStream out, Object value) throws IOException {
+        inRecordScope(recordId(value), () -> {
+            mapper.writeValue(out, value);
+            return null;
+        });
+    }
+
+    @Override
+    public Tree readTree(byte[] data, int offset, int length) throws IOException {
+        return new SerdeTree(mapper.readValue(new ByteArrayInputStream(data, offset, length), Argument.of(JsonNode.class)));
+    }
+
+    /** Serde's registry already caches serializers per {@link Argument}; the binding just fixes the type. */
+    @Override
+    public <T> Binding<T> bind(Argument<T> type) {
+        return new Binding<>() {
+            @Override
+            public Argument<T> type() {
+                return type;
+            }
+
+            @Override
+            public void write(OutputStream out, T value) throws IOException {
+                inRecordScope(recordId(value), () -> {
+                    mapper.writeValue(out, type, value);
+                    return null;
+                });
+            }
+
+            @Override
+            public T read(Tree tree) throws IOException {
+                if (!(tree instanceof SerdeTree serde)) {
+                    throw new IllegalArgumentException("Tree was not parsed by a Serde codec");
+                }
+                return serde.bind(type);
+            }
+        };
+    }
+
+    private <T> T inRecordScope(@Nullable String recordId, EncryptedFieldSerde.RecordAction<T> action) throws IOException {
+        return recordIdField == null ? action.run() : EncryptedFieldSerde.withRecordId(recordId, action);
+    }
+
+    @Nullable
+    private <T> String recordId(@Nullable T value) {
+        if (recordIdField == null || value == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Class<T> type = (Class<T>) value.getClass();
+        return BeanIntrospector.SHARED.findIntrospection(type)
+                .flatMap(introspection -> introspection.getProperty(RECORD_ID_PROPERTY))
+                .map(property -> property.get(value))
+                .map(String::valueOf)
+                .orElse(null);
+    }
+
+    private final class SerdeTree implements Tree {
+        private final JsonNode node;
+
+        SerdeTree(JsonNode node) {
+            this.node = node;
+        }
+
+        JsonNode node() {
+            return node;
+        }
+
+        @Override
+        public boolean isObject() {
+            return node != null && node.isObject();
+        }
+
+        @Override
+        public boolean isArray() {
+            return node != null && node.isArray();
+        }
+
+        @Override
+        public boolean hasNonNull(String field) {
+            JsonNode value = node.get(field);
+            return value != null && !value.isNull();
+        }
+
+        @Override
+        public <T> T bind(Class<T> type) throws IOException {
+            return bind(Argument.of(type));
+        }
+
+        <T> T bind(Argument<T> type) throws IOException {
+            return inRecordScope(recordId(), () -> mapper.readValueFromTree(node, type));
+        }
+
+        // Read from the tree, since @Encrypted fields are decrypted before the record itself exists
+        @Nullable
+        private String recordId() {
+            if (recordIdField == null || node == null || !node.isObject()) {
+                return null;
+            }
+            JsonNode id = node.get(recordIdField);
+            if (id == null) {
+                return null;
+            }
+            return id.isString() ? id.getStringValue() : id.isNumber() ? String.valueOf(id.getNumberValue()) : null;
+        }
+    }
+
+    /** The application's Serde settings with a different naming strategy. */
+    private record NamingSerdeConfiguration(SerdeConfiguration delegate, String strategyName, PropertyNamingStrategy strategy)
+            implements SerdeConfiguration {
+
+        @Override
+        public String getPropertyNamingStrategyName() {
+            return strategyName;
+        }
+
+        @Override
+        public PropertyNamingStrategy getPropertyNamingStrategy() {
+            return strategy;
+        }
+
+        @Override
+        public Optional<String> getDateFormat() {
+            return delegate.getDateFormat();
+        }
+
+        @Override
+        public boolean isInetAddressAsNumeric() {
+            return delegate.isInetAddressAsNumeric();
+        }
+
+        @Override
+        public TimeShape getTimeWriteShape() {
+            return delegate.getTimeWriteShape();
+        }
+
+        @Override
+        public NumericTimeUnit getNumericTimeUnit() {
+            return delegate.getNumericTimeUnit();
+        }
+
+        @Override
+        public boolean isWriteBinaryAsArray() {
+            return delegate.isWriteBinaryAsArray();
+        }
+
+        @Override
+        public Optional<Locale> getLocale() {
+            return delegate.getLocale();
+        }
+
+        @Override
+        public Optional<TimeZone> getTimeZone() {
+            return delegate.getTimeZone();
+        }
+
+        @Override
+        public List<String> getIncludedIntrospectionPackages() {
+            return delegate.getIncludedIntrospectionPackages();
+        }
+
+        @Override
+        public int getMaximumNestingDepth() {
+            return delegate.getMaximumNestingDepth();
+        }
+
+        @Override
+        public boolean isJsonViewEnabled() {
+            return delegate.isJsonViewEnabled();
+        }
+    }
+
+    /**
+     * Implemented by the Serde configurations of a codec, so {@link EncryptedFieldSerde} can tell whether it runs
+     * inside a whole-object ciphertext.
+     */
+    interface EnvelopeScoped {
+        boolean envelopeScoped();
+    }
+
+    // Serde defaults to NON_EMPTY; explicit annotations such as CryptoWrapper's @JsonInclude still apply
+    private record AlwaysIncludeSerializationConfiguration(SerializationConfiguration delegate, boolean envelopeScoped)
+            implements SerializationConfiguration, EnvelopeScoped {
+
+        @Override
+        public SerdeConfig.SerInclude getInclusion() {
+            return SerdeConfig.SerInclude.ALWAYS;
+        }
+
+        @Override
+        public boolean isAlwaysSerializeErrorsAsList() {
+            return delegate.isAlwaysSerializeErrorsAsList();
+        }
+    }
+
+    private record ScopedDeserializationConfiguration(DeserializationConfiguration delegate, boolean envelopeScoped)
+            implements DeserializationConfiguration, EnvelopeScoped {
+
+        @Override
+        public boolean isIgnoreUnknown() {
+            return delegate.isIgnoreUnknown();
+        }
+
+        @Override
+        public int getArraySizeThreshold() {
+            return delegate.getArraySizeThreshold();
+        }
+
+        @Override
+        public boolean isStrictNullable() {
+            return delegate.isStrictNullable();
+        }
+
+        @Override
+        public boolean isFailOnNullForPrimitives() {
+            return delegate.isFailOnNullForPrimitives();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Consumer;
+
+/**
+ * Segmented AES-256-GCM ("STREAM" construction) for payloads too large to buffer whole.
+ * <p>
+ * Wire format: {@code header || segment_0 || ... || segment_n} where the header is
+ * {@code version(1) || segmentSize(4, BE) || salt(32) || noncePrefix(7)} and every segment is
+ * {@code ciphertext || tag(16)}. All segments but the last carry exactly {@code segmentSize} plaintext bytes.
+ * Segment i uses the nonce {@code noncePrefix || i(4, BE) || lastFlag(1)} and authenticates the header as AAD,
+ * so reordering, truncation and header tampering all fail authentication. Peak memory is one segment, not the
+ * payload. A stream holds at most 2^32 segments; past that the index would wrap and repeat a nonce, so both sides
+ * fail with {@link CryptoException} instead.
+ * <p>
+ * Every stream is encrypted under its own key, HKDF-SHA256 of the master stream key with the random salt and
+ * the rest of the header as info (as in Tink's AesGcmHkdfStreaming). A 7-byte nonce prefix alone would make
+ * nonce collisions across streams likely after about 2^28 streams under one key, and a repeated GCM nonce leaks
+ * the authentication key. The master stream key is derived from {@code crypto.aes-gcm.key} with HMAC-SHA256,
+ * keeping it apart from {@link AesGcmCryptoEngine}'s key.
+ */
+@Singleton
+public class StreamingAesGcm {
+
+    // Version 1 used the master key for every stream and is no longer accepted
+    static final byte VERSION = 2;
+    static final int SALT_LENGTH = 32;
+    static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int SALT_OFFSET = 1 + 4;
+    private static final int NONCE_PREFIX_OFFSET = SALT_OFFSET + SALT_LENGTH;
+    static final int HEADER_LENGTH = NONCE_PREFIX_OFFSET + NONCE_PREFIX_LENGTH;
+    static final int TAG_LENGTH = 16;
+    // Upper bound accepted from a header, so a forged header cannot make us allocate huge buffers
+    static final int MAX_SEGMENT_SIZE = 4 * 1024 * 1024;
+    // The nonce has 4 bytes for the segment index
+    static final long MAX_SEGMENTS = 1L << 32;
+
+    private static final byte[] KEY_DERIVATION_LABEL = "demoencdec/streaming-aes-gcm/v1".getBytes(StandardCharsets.UTF_8);
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final byte[] streamKey;
+    private final int segmentSize;
+    private final long maxSegments;
+
+    public StreamingAesGcm(@Value("${crypto.aes-gcm.key}") String base64Key,
+                           @Value("${crypto.streaming.segment-size:65536}") int segmentSize) {
+        this(base64Key, segmentSize, MAX_SEGMENTS);
+    }
+
+    /** With a lower segment limit, so tests can reach it. */
+    StreamingAesGcm(String base64Key, int segmentSize, long maxSegments) {
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("crypto.streaming.segment-size must be in (0, " + MAX_SEGMENT_SIZE + "]");
+        }
+        if (maxSegments <= 0 || maxSegments > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("maxSegments must be in (0, " + MAX_SEGMENTS + "]");
+        }
+        this.streamKey = deriveStreamKey(Base64.getDecoder().decode(base64Key));
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    public Encryptor newEncryptor() {
+        return new Encryptor();
+    }
+
+    public Decryptor newDecryptor() {
+        return new Decryptor();
+    }
+
+    /** Convenience for small inputs and tests: encrypts a whole array into the segmented format. */
+    public byte[] encrypt(byte[] plaintext) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plaintext.length + HEADER_LENGTH + TAG_LENGTH);
+        Encryptor encryptor = newEncryptor();
+        encryptor.update(ByteBuffer.wrap(plaintext), segment -> out.write(segment.array(), segment.position(), segment.remaining()));
+        encryptor.doFinal(segment -> out.write(segment.array(), segment.position(), segment.remaining()));
+        return out.toByteArray();
+    }
+
+    private static byte[] deriveStreamKey(byte[] masterKey) {
+        if (masterKey.length != 32) {
+            throw new IllegalArgumentException("crypto.aes-gcm.key must be a 256-bit key, got " + masterKey.length * 8 + " bits");
+        }
+        try {
+            return hmac(masterKey, KEY_DERIVATION_LABEL);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Cannot derive streaming key", e);
+        }
+    }
+
+    /** HKDF-SHA256 (RFC 5869) of the master stream key: salt from the header, the other header fields as info. */
+    private SecretKeySpec segmentKey(byte[] header) {
+        try {
+            byte[] pseudoRandomKey = hmac(Arrays.copyOfRange(header, SALT_OFFSET, SALT_OFFSET + SALT_LENGTH), streamKey);
+            byte[] info = new byte[HEADER_LENGTH - SALT_LENGTH + 1];
+            System.arraycopy(header, 0, info, 0, SALT_OFFSET);
+            System.arraycopy(header, NONCE_PREFIX_OFFSET, info, SALT_OFFSET, NONCE_PREFIX_LENGTH);
+            info[info.length - 1] = 1; // Counter of the first and only output block, 32 bytes are all we need
+            return new SecretKeySpec(hmac(pseudoRandomKey, info), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Cannot derive stream segment key", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, byte[] data) throws GeneralSecurityException {
+        Mac hmac = Mac.getInstance("HmacSHA256");
+        hmac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return hmac.doFinal(data);
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(AesGcmCryptoEngine.TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("AES-GCM is not available in this JVM", e);
+        }
+    }
+
+    private byte[] segmentNonce(byte[] header, long segmentIndex, boolean last) {
+        if (segmentIndex >= maxSegments) {
+            throw new CryptoException("Stream exceeds " + maxSegments + " segments; the segment nonce would repeat");
+        }
+        byte[] nonce = new byte[AesGcmCryptoEngine.NONCE_LENGTH];
+        System.arraycopy(header, NONCE_PREFIX_OFFSET, nonce, 0, NONCE_PREFIX_LENGTH);
+        nonce[7] = (byte) (segmentIndex >>> 24);
+        nonce[8] = (byte) (segmentIndex >>> 16);
+        nonce[9] = (byte) (segmentIndex >>> 8);
+        nonce[10] = (byte) segmentIndex;
+        nonce[11] = (byte) (last ? 1 : 0);
+        return nonce;
+    }
+
+    /**
+     * Incremental encryptor. Output buffers handed to the sink are reused and only valid during the callback.
+     * Not thread-safe; one instance per stream.
+     */
+    public final class Encryptor {
+        private final Cipher cipher = newCipher();
+        private final byte[] header = new byte[HEADER_LENGTH];
+        private final SecretKeySpec segmentKey;
+        private final byte[] plaintext = new byte[segmentSize];
+        private final byte[] ciphertext = new byte[segmentSize + TAG_LENGTH];
+        private int plaintextLength;
+        private long segmentIndex;
+        private boolean headerWritten;
+        private boolean finished;
+
+        private Encryptor() {
+            header[0] = VERSION;
+            header[1] = (byte) (segmentSize >>> 24);
+            header[2] = (byte) (segmentSize >>> 16);
+            header[3] = (byte) (segmentSize >>> 8);
+            header[4] = (byte) segmentSize;
+            byte[] random = new byte[SALT_LENGTH + NONCE_PREFIX_LENGTH];
+            SECURE_RANDOM.nextBytes(random);
+            System.arraycopy(random, 0, header, SALT_OFFSET, random.length); // Salt and nonce prefix are adjacent
+            segmentKey = segmentKey(header);
+        }
+
+        /** Consumes the remaining bytes of {@code input}, emitting every segment known not to be the last. */
+        public void update(ByteBuffer input, Consumer<ByteBuffer> sink) {
+            writeHeader(sink);
+            while (input.hasRemaining()) {
+                if (plaintextLength == segmentSize) {
+                    // More data follows, so the buffered segment cannot be the last one
+                    sealSegment(false, sink);
+                }
+                int n = Math.min(input.remaining(), segmentSize - plaintextLength);
+                input.get(plaintext, plaintextLength, n);
+                plaintextLength += n;
+            }
+        }
+
+        /** Seals the buffered (possibly empty) final segment. */
+        public void doFinal(Consumer<ByteBuffer> sink) {
+            if (finished) {
+                throw new IllegalStateException("Encryptor already finished");
+            }
+            writeHeader(sink);
+            sealSegment(true, sink);
+            finished = true;
+        }
+
+        private void writeHeader(Consumer<ByteBuffer> sink) {
+            if (!headerWritten) {
+                headerWritten = true;
+                sink.accept(ByteBuffer.wrap(header));
+            }
+        }
+
+        private void sealSegment(boolean last, Consumer<ByteBuffer> sink) {
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, segmentKey, new GCMParameterSpec(TAG_LENGTH * 8, segmentNonce(header, segmentIndex++, last)));
+                cipher.updateAAD(header);
+                int n = cipher.doFinal(plaintext, 0, plaintextLength, ciphertext, 0);
+                plaintextLength = 0;
+                sink.accept(ByteBuffer.wrap(ciphertext, 0, n));
+            } catch (GeneralSecurityException e) {
+                throw new CryptoException("Streaming AES-GCM encryption failed", e);
+            }
+        }
+    }
+
+    /**
+     * Incremental decryptor; accepts ciphertext in arbitrarily sized chunks. Plaintext buffers handed to the
+     * sink are reused and only valid during the callback. Not thread-safe; one instance per stream.
+     */
+    public final class Decryptor {
+        private final Cipher cipher = newCipher();
+        private final byte[] header = new byte[HEADER_LENGTH];
+        private int headerLength;
+        private SecretKeySpec segmentKey;
+        private byte[] segment;
+        private byte[] plaintext;
+        private int segmentLength;
+        private long segmentIndex;
+
+        private Decryptor() {
+        }
+
+        /** Consumes the remaining bytes of {@code chunk}, emitting plaintext for every complete non-final segment. */
+        public void update(ByteBuffer chunk, Consumer<ByteBuffer> sink) {
+            if (headerLength < HEADER_LENGTH) {
+                int n = Math.min(chunk.remaining(), HEADER_LENGTH - headerLength);
+                chunk.get(header, headerLength, n);
+                headerLength += n;
+                if (headerLength < HEADER_LENGTH) {
+                    return;
+                }
+                readHeader();
+            }
+            while (chunk.hasRemaining()) {
+                if (segmentLength == segment.length) {
+                    // A full segment followed by more bytes is definitely not the last one
+                    openSegment(false, sink);
+                }
+                int n = Math.min(chunk.remaining(), segment.length - segmentLength);
+                chunk.get(segment, segmentLength, n);
+                segmentLength += n;
+            }
+        }
+
+        /** Authenticates and emits the final segment; fails if the stream was truncated. */
+        public void doFinal(Consumer<ByteBuffer> sink) {
+            if (headerLength < HEADER_LENGTH) {
+                throw new CryptoException("Encrypted stream truncated inside the header");
+            }
+            if (segmentLength < TAG_LENGTH) {
+                throw new CryptoException("Encrypted stream truncated: final segment missing");
+            }
+            openSegment(true, sink);
+        }
+
+        private void readHeader() {
+            if (header[0] != VERSION) {
+                throw new CryptoException("Unsupported streaming format version " + header[0]);
+            }
+            int size = ((header[1] & 0xFF) << 24) | ((header[2] & 0xFF) << 16) | ((header[3] & 0xFF) << 8) | (header[4] & 0xFF);
+            if (size <= 0 || size > MAX_SEGMENT_SIZE) {
+                throw new CryptoException("Invalid segment size in stream header: " + size);
+            }
+            segment = new byte[size + TAG_LENGTH];
+            plaintext = new byte[size];
+            segmentKey = segmentKey(header);
+        }
+
+        private void openSegment(boolean last, Consumer<ByteBuffer> sink) {
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, segmentKey, new GCMParameterSpec(TAG_LENGTH * 8, segmentNonce(header, segmentIndex++, last)));
+                cipher.updateAAD(header);
+                int n = cipher.doFinal(segment, 0, segmentLength, plaintext, 0);
+                segmentLength = 0;
+                sink.accept(ByteBuffer.wrap(plaintext, 0, n));
+            } catch (GeneralSecurityException e) {
+                throw new CryptoException("Streaming AES-GCM segment " + (segmentIndex - 1) + " failed authentication", e);
+            }
+        }
+    }
+}
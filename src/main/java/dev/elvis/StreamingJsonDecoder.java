@@ -0,0 +1,104 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental JSON decoder on top of Jackson's non-blocking parser. Emits the root value once complete,
+ * or - if the root is an array - every element as soon as it is complete, so only the element currently
+ * being parsed is held in memory. Not thread-safe; one instance per stream.
+ */
+class StreamingJsonDecoder {
+
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private TokenBuffer current;
+    private int depth;
+    private boolean rootSeen;
+    private boolean rootIsArray;
+
+    StreamingJsonDecoder(ObjectMapper mapper) {
+        this.mapper = mapper;
+        try {
+            this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new DeserializationException("Cannot create non-blocking JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /** Feeds the buffer's remaining bytes (array-backed) and returns the values they completed. */
+    List<JsonNode> feed(ByteBuffer plaintext) {
+        try {
+            int start = plaintext.arrayOffset() + plaintext.position();
+            feeder.feedInput(plaintext.array(), start, start + plaintext.remaining());
+            plaintext.position(plaintext.limit());
+            return drain();
+        } catch (IOException e) {
+            throw new DeserializationException("Malformed JSON in decrypted stream", e);
+        }
+    }
+
+    /** Signals end of input; fails if the document is incomplete. */
+    List<JsonNode> finish() {
+        try {
+            feeder.endOfInput();
+            List<JsonNode> values = drain();
+            if (!rootSeen || depth != 0 || current != null) {
+                throw new DeserializationException("Decrypted stream ended inside a JSON value");
+            }
+            return values;
+        } catch (IOException e) {
+            throw new DeserializationException("Malformed JSON in decrypted stream", e);
+        }
+    }
+
+    private List<JsonNode> drain() throws IOException {
+        List<JsonNode> values = List.of();
+        JsonToken token;
+        // The feeder only accepts new input once the previous chunk is fully consumed (NOT_AVAILABLE)
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (!rootSeen) {
+                rootSeen = true;
+                if (token == JsonToken.START_ARRAY) {
+                    rootIsArray = true;
+                    depth = 1;
+                    continue;
+                }
+            }
+            if (rootIsArray && depth == 1 && token == JsonToken.END_ARRAY) {
+                depth = 0;
+                continue;
+            }
+            if (current == null) {
+                current = new TokenBuffer(parser);
+            }
+            current.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == (rootIsArray ? 1 : 0)) {
+                if (values.isEmpty()) {
+                    values = new ArrayList<>();
+                }
+                try (JsonParser valueParser = current.asParser(mapper)) {
+                    values.add(mapper.readTree(valueParser));
+                }
+                current = null;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,201 @@
+package dev.elvis;
+
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for calls to the external service: a {@link CircuitBreaker} that fails fast while the upstream
+ * is failing, and an {@link AdaptiveConcurrencyLimiter} that keeps in-flight calls near what the upstream serves
+ * without queueing. Refused calls fail immediately with {@link UpstreamRejectedException} instead of piling up
+ * in-flight requests and their buffers while the upstream is slow. Batch fan-out uses
+ * {@link #guardWaiting} instead, which waits for a concurrency permit, so a shrinking limit slows a batch down
+ * rather than failing most of its items on the application's own fan-out.
+ * <p>
+ * Timeouts, connection errors, 5xx and 429 count as upstream failures; other 4xx mean the upstream is healthy.
+ * Exposes {@code crypto.pipeline.external.limit}, {@code .in-flight}, {@code .circuit.state} (0 closed,
+ * 1 half-open, 2 open) and {@code .rejections}.
+ */
+@Singleton
+public class UpstreamGuard {
+
+    // Every call is refused while the circuit is open, so they all share one preallocated exception
+    private static final UpstreamRejectedException CIRCUIT_OPEN = new UpstreamRejectedException(
+            UpstreamRejectedException.Reason.CIRCUIT_OPEN, "External service circuit is open");
+
+    private final PipelineMetrics metrics;
+    private final LongSupplier nanoClock;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    // guardWaiting callers parked until a permit is released
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public UpstreamGuard(ExternalServiceConfiguration configuration, PipelineMetrics metrics) {
+        this(configuration, metrics, System::nanoTime);
+    }
+
+    UpstreamGuard(ExternalServiceConfiguration configuration, PipelineMetrics metrics, LongSupplier nanoClock) {
+        this.metrics = metrics;
+        this.nanoClock = nanoClock;
+        this.limiter = configuration.getLimiter().isEnabled() ? new AdaptiveConcurrencyLimiter(configuration.getLimiter()) : null;
+        this.circuitBreaker = configuration.getCircuitBreaker().isEnabled() ? new CircuitBreaker(configuration.getCircuitBreaker(), nanoClock) : null;
+        if (limiter != null) {
+            metrics.gauge("crypto.pipeline.external.limit", "Adaptive concurrency limit for external service calls",
+                    limiter, AdaptiveConcurrencyLimiter::limit);
+            metrics.gauge("crypto.pipeline.external.in-flight", "External service calls in flight",
+                    limiter, AdaptiveConcurrencyLimiter::inFlight);
+        }
+        if (circuitBreaker != null) {
+            metrics.gauge("crypto.pipeline.external.circuit.state", "External service circuit breaker state (0 closed, 1 half-open, 2 open)",
+                    circuitBreaker, breaker -> breaker.state().ordinal());
+        }
+    }
+
+    /** Runs {@code call} if admitted; {@code call} is invoked once per subscription. */
+    public <T> Mono<T> guard(String operation, Supplier<Mono<T>> call) {
+        return guard(operation, call, false);
+    }
+
+    /**
+     * As {@link #guard}, but a call over the concurrency limit waits for a permit instead of failing.
+     * An open circuit still fails fast.
+     */
+    public <T> Mono<T> guardWaiting(String operation, Supplier<Mono<T>> call) {
+        return guard(operation, call, true);
+    }
+
+    private <T> Mono<T> guard(String operation, Supplier<Mono<T>> call, boolean waitForPermit) {
+        if (limiter == null && circuitBreaker == null) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            CircuitBreaker.State acquiredIn = null;
+            if (circuitBreaker != null && (acquiredIn = circuitBreaker.tryAcquire()) == null) {
+                return reject(operation, CIRCUIT_OPEN);
+            }
+            if (limiter != null && !limiter.tryAcquire()) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.onCancel(acquiredIn);
+                }
+                if (waitForPermit) {
+                    // Woken by the next release, then competes for the permit again
+                    return permitReleased().then(guard(operation, call, true));
+                }
+                return reject(operation, new UpstreamRejectedException(UpstreamRejectedException.Reason.CONCURRENCY_LIMIT,
+                        "External service concurrency limit of " + limiter.limit() + " reached"));
+            }
+            Permit permit = new Permit(acquiredIn, limiter != null ? limiter.inFlight() : 0, nanoClock.getAsLong());
+            return call.get()
+                    .doOnSuccess(value -> permit.complete(null))
+                    .doOnError(permit::complete)
+                    .doOnCancel(permit::cancel);
+        });
+    }
+
+    private Mono<Void> permitReleased() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, new AtomicBoolean());
+            sink.onCancel(() -> {
+                if (waiter.done().compareAndSet(false, true)) {
+                    waiters.remove(waiter);
+                }
+            });
+            waiters.add(waiter);
+            // A permit released between the failed tryAcquire and the add would otherwise wake nobody
+            if (limiter.inFlight() < limiter.limit()) {
+                wakeWaiter();
+            }
+        });
+    }
+
+    private void wakeWaiter() {
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            if (waiter.done().compareAndSet(false, true)) { // Skips waiters cancelled meanwhile
+                waiter.sink().success();
+                return;
+            }
+        }
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker != null ? circuitBreaker.state() : CircuitBreaker.State.CLOSED;
+    }
+
+    int limit() {
+        return limiter != null ? limiter.limit() : Integer.MAX_VALUE;
+    }
+
+    private <T> Mono<T> reject(String operation, UpstreamRejectedException rejection) {
+        metrics.recordRejection(operation, rejection.getReason());
+        return Mono.error(rejection);
+    }
+
+    static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof HttpClientResponseException response) {
+            int status = response.getStatus().getCode();
+            return status >= 500 || status == 429;
+        }
+        return true; // Timeouts, refused or reset connections, ...
+    }
+
+    private record Waiter(MonoSink<Void> sink, AtomicBoolean done) {
+    }
+
+    /** One admitted call; released exactly once, whichever of success, error or cancel arrives first. */
+    private final class Permit {
+        private final CircuitBreaker.State acquiredIn;
+        private final int inFlightAtStart;
+        private final long startedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(CircuitBreaker.State acquiredIn, int inFlightAtStart, long startedAt) {
+            this.acquiredIn = acquiredIn;
+            this.inFlightAtStart = inFlightAtStart;
+            this.startedAt = startedAt;
+        }
+
+        void complete(Throwable error) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            boolean failure = error != null && isUpstreamFailure(error);
+            if (limiter != null) {
+                limiter.release();
+                if (failure) {
+                    limiter.onDropped();
+                } else {
+                    // A 404 is still a full round trip, so it is a valid latency sample
+                    limiter.onSample(nanoClock.getAsLong() - startedAt, inFlightAtStart);
+                }
+            }
+            if (circuitBreaker != null) {
+                if (failure) {
+                    circuitBreaker.onFailure(acquiredIn);
+                } else {
+                    circuitBreaker.onSuccess(acquiredIn);
+                }
+            }
+            wakeWaiter();
+        }
+
+        void cancel() {
+            if (released.compareAndSet(false, true)) {
+                if (limiter != null) {
+                    limiter.release();
+                }
+                if (circuitBreaker != null) {
+                    circuitBreaker.onCancel(acquiredIn);
+                }
+                wakeWaiter();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package dev.elvis;
+
+/**
+ * An external-service call was refused locally by {@link UpstreamGuard} without reaching the upstream:
+ * either the adaptive concurrency limit is reached or the circuit breaker is open. Callers should back off
+ * or answer 503, as for {@link CryptoOverloadedException}.
+ */
+public class UpstreamRejectedException extends PipelineException {
+
+    public enum Reason {
+        CONCURRENCY_LIMIT, CIRCUIT_OPEN;
+
+        final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    private final Reason reason;
+
+    public UpstreamRejectedException(Reason reason, String message) {
+        super(Code.UPSTREAM_REJECTED, message, null);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
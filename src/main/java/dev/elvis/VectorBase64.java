@@ -0,0 +1,130 @@
+package dev.elvis;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Bulk loops of {@link Base64Codec} on the incubating Vector API ({@code jdk.incubator.vector}), one vector of
+ * characters (16 with SSE/NEON, 32 with AVX2, 64 with AVX-512) per step instead of one 4-character block.
+ * <p>
+ * Only whole blocks of the standard alphabet are handled here. Padding, tails and the exact error for an illegal
+ * character are left to the scalar code in {@link Base64Codec}, which is also the only class that loads this one,
+ * and only after checking that the module is present ({@code --add-modules jdk.incubator.vector}).
+ */
+final class VectorBase64 {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+    // Bytes with as many lanes as CHARS, the target of the char -> byte narrowing
+    private static final VectorSpecies<Byte> NARROW_BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(CHARS.vectorBitSize() / 2));
+
+    // Encoding: every 3 input bytes a b c become the 32-bit lane b a c b (little-endian), which holds all 4 sextets
+    private static final int ENCODE_IN = BYTES.length() / 4 * 3;
+    private static final int[] SPREAD = {1, 0, 2, 1};
+    private static final VectorShuffle<Byte> ENCODE_SHUFFLE = VectorShuffle.fromOp(BYTES, i -> i / 4 * 3 + SPREAD[i % 4]);
+
+    // Decoding: 4 sextets per 32-bit lane become 24 bits, whose 3 bytes are gathered big-endian to the front
+    private static final int DECODE_OUT = BYTES.length() / 4 * 3;
+    private static final VectorShuffle<Byte> DECODE_SHUFFLE = VectorShuffle.fromOp(BYTES,
+            i -> i < DECODE_OUT ? i / 3 * 4 + 2 - i % 3 : i);
+
+    private VectorBase64() {
+    }
+
+    /** False when the platform has no vector unit worth using; the Vector API would then run in plain Java. */
+    static boolean isSupported() {
+        return BYTES.vectorBitSize() >= 128 && CHARS.vectorBitSize() >= 128;
+    }
+
+    /**
+     * Encodes whole blocks of {@code src[off, off + len)} into {@code dst} at {@code dstOff}.
+     * @return number of input bytes consumed, a multiple of 3; each became 4/3 characters.
+     */
+    static int encodeBlocks(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int s = 0;
+        int d = dstOff;
+        // A step loads a full vector but consumes 3/4 of it
+        for (; s + BYTES.length() <= len; s += ENCODE_IN, d += BYTES.length()) {
+            IntVector lanes = ByteVector.fromArray(BYTES, src, off + s).rearrange(ENCODE_SHUFFLE).reinterpretAsInts();
+            ByteVector sextets = lanes.lanewise(VectorOperators.LSHR, 10).and(0x3F)
+                    .or(lanes.lanewise(VectorOperators.LSHR, 4).and(0x3F).lanewise(VectorOperators.LSHL, 8))
+                    .or(lanes.lanewise(VectorOperators.LSHR, 22).and(0x3F).lanewise(VectorOperators.LSHL, 16))
+                    .or(lanes.lanewise(VectorOperators.LSHR, 16).and(0x3F).lanewise(VectorOperators.LSHL, 24))
+                    .reinterpretAsBytes();
+            // Sextet -> character as sextet + offset of its range: A-Z, a-z, 0-9, '+', '/'
+            ByteVector offsets = ByteVector.broadcast(BYTES, (byte) 'A')
+                    .blend((byte) ('a' - 26), sextets.compare(VectorOperators.GE, 26))
+                    .blend((byte) ('0' - 52), sextets.compare(VectorOperators.GE, 52))
+                    .blend((byte) ('+' - 62), sextets.compare(VectorOperators.EQ, 62))
+                    .blend((byte) ('/' - 63), sextets.compare(VectorOperators.EQ, 63));
+            sextets.add(offsets).intoArray(dst, d);
+        }
+        return s;
+    }
+
+    /**
+     * Decodes whole 4-character blocks of {@code src[off, off + len)} into {@code dst} at {@code dstOff}, up to the
+     * first vector holding anything outside the alphabet ({@code '='} included).
+     * @return number of characters consumed, a multiple of 4; each became 3/4 bytes.
+     */
+    static int decodeBlocks(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int s = 0;
+        int d = dstOff;
+        // A step stores a full vector of which only the first 3/4 is output. Stopping at least one vector before
+        // the end leaves enough characters to overwrite the rest, so nothing past the decoded length is touched.
+        for (; s + 2 * BYTES.length() <= len; s += BYTES.length(), d += DECODE_OUT) {
+            ByteVector chars = ByteVector.fromArray(BYTES, src, off + s);
+            VectorMask<Byte> upper = chars.compare(VectorOperators.GE, 'A').and(chars.compare(VectorOperators.LE, 'Z'));
+            VectorMask<Byte> lower = chars.compare(VectorOperators.GE, 'a').and(chars.compare(VectorOperators.LE, 'z'));
+            VectorMask<Byte> digit = chars.compare(VectorOperators.GE, '0').and(chars.compare(VectorOperators.LE, '9'));
+            VectorMask<Byte> plus = chars.compare(VectorOperators.EQ, '+');
+            VectorMask<Byte> slash = chars.compare(VectorOperators.EQ, '/');
+            if (!upper.or(lower).or(digit).or(plus).or(slash).allTrue()) {
+                break; // Scalar code takes over from this block and reports the character
+            }
+            IntVector lanes = chars.add(ByteVector.zero(BYTES)
+                            .blend((byte) -'A', upper)
+                            .blend((byte) (26 - 'a'), lower)
+                            .blend((byte) (52 - '0'), digit)
+                            .blend((byte) (62 - '+'), plus)
+                            .blend((byte) (63 - '/'), slash))
+                    .reinterpretAsInts();
+            lanes.and(0x3F).lanewise(VectorOperators.LSHL, 18)
+                    .or(lanes.lanewise(VectorOperators.LSHR, 8).and(0x3F).lanewise(VectorOperators.LSHL, 12))
+                    .or(lanes.lanewise(VectorOperators.LSHR, 16).and(0x3F).lanewise(VectorOperators.LSHL, 6))
+                    .or(lanes.lanewise(VectorOperators.LSHR, 24))
+                    .reinterpretAsBytes()
+                    .rearrange(DECODE_SHUFFLE)
+                    .intoArray(dst, d);
+        }
+        return s;
+    }
+
+    /**
+     * Copies {@code chars[0, len)} into {@code ascii}, one byte per character.
+     * @return false, with {@code ascii} partly written, if any character is not ASCII.
+     */
+    static boolean narrow(char[] chars, int len, byte[] ascii) {
+        int i = 0;
+        for (; i + CHARS.length() <= len; i += CHARS.length()) {
+            ShortVector wide = ShortVector.fromCharArray(CHARS, chars, i);
+            if (wide.compare(VectorOperators.UNSIGNED_GE, (short) 0x80).anyTrue()) {
+                return false;
+            }
+            ((ByteVector) wide.convertShape(VectorOperators.S2B, NARROW_BYTES, 0)).intoArray(ascii, i);
+        }
+        for (; i < len; i++) {
+            if (chars[i] >= 0x80) {
+                return false;
+            }
+            ascii[i] = (byte) chars[i];
+        }
+        return true;
+    }
+}
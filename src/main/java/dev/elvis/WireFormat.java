@@ -0,0 +1,134 @@
+package dev.elvis;
+
+import com.rabbitmq.client.AMQP;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content types and metadata headers of the binary transport mode. JSON {@link CryptoWrapper} bodies with Base64
+ * ciphertext stay the default; a peer that sends {@code accept: application/octet-stream} (AMQP header or HTTP
+ * {@code Accept}) gets the raw ciphertext as the body instead, with the wrapper's metadata moved to headers.
+ * That saves the Base64 encode, the decode and a third of the size on every hop.
+ */
+public final class WireFormat {
+
+    public static final String JSON = "application/json";
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    /** Request header (AMQP) naming the reply content types the requester understands. */
+    public static final String ACCEPT_HEADER = "accept";
+    public static final String KEY_ID_HEADER = "x-key-id";
+    public static final String KEY_VERSION_HEADER = "x-key-version";
+    /**
+     * HTTP carries the compression flag here; AMQP uses the contentEncoding property. Not {@code Content-Encoding},
+     * which HTTP clients undo transparently - the deflate stage sits inside the ciphertext.
+     */
+    public static final String PAYLOAD_ENCODING_HEADER = "x-payload-encoding";
+    /** AMQP header selecting the encryption mode; {@link #FIELD_LEVEL} or absent (whole object). */
+    public static final String ENCRYPTION_HEADER = "x-encryption";
+    public static final String FIELD_LEVEL = "fields";
+    /** HTTP header of a bulk POST: number of records in the envelope's JSON array. */
+    public static final String RECORD_COUNT_HEADER = "x-record-count";
+
+    private WireFormat() {
+    }
+
+    /** True if the AMQP request asked for a raw binary reply. */
+    public static boolean acceptsBinary(AMQP.BasicProperties request) {
+        Object accept = request != null && request.getHeaders() != null ? request.getHeaders().get(ACCEPT_HEADER) : null;
+        // Broker-delivered header values are LongStrings, so compare their text form
+        return accept != null && accept.toString().contains(OCTET_STREAM);
+    }
+
+    /**
+     * Requester opt-in (AMQP header) for field-level encryption: the reply is the JSON object itself with only its
+     * {@link Encrypted} fields encrypted, instead of a whole-object ciphertext.
+     */
+    public static boolean acceptsFieldLevel(AMQP.BasicProperties request) {
+        Object encryption = request != null && request.getHeaders() != null ? request.getHeaders().get(ENCRYPTION_HEADER) : null;
+        return encryption != null && FIELD_LEVEL.equals(encryption.toString());
+    }
+
+    /** Reply properties for a field-level encrypted JSON body. */
+    public static AMQP.BasicProperties fieldLevelReplyProperties(String correlationId) {
+        return new AMQP.BasicProperties.Builder()
+                .correlationId(correlationId)
+                .contentType(JSON)
+                .headers(Map.of(ENCRYPTION_HEADER, FIELD_LEVEL))
+                .build();
+    }
+
+    /** Reply properties for a JSON {@link CryptoWrapper} body. */
+    public static AMQP.BasicProperties jsonReplyProperties(String correlationId) {
+        return new AMQP.BasicProperties.Builder()
+                .correlationId(correlationId)
+                .contentType(JSON)
+                .build();
+    }
+
+    /** Reply properties for a raw ciphertext body, carrying the wrapper's key and encoding. */
+    public static AMQP.BasicProperties binaryReplyProperties(String correlationId, BinaryCryptoWrapper wrapper) {
+        Map<String, Object> headers = new HashMap<>();
+        if (wrapper.key() != null) {
+            headers.put(KEY_ID_HEADER, wrapper.key().id());
+            headers.put(KEY_VERSION_HEADER, wrapper.key().version());
+        }
+        return new AMQP.BasicProperties.Builder()
+                .correlationId(correlationId)
+                .contentType(OCTET_STREAM)
+                .contentEncoding(wrapper.encoding())
+                .headers(headers)
+                .build();
+    }
+
+    /**
+     * Reverses {@link #binaryReplyProperties}: rebuilds the wrapper from a raw body and its properties.
+     * A missing key version means version 0, as in {@link #fromHttp}; one that is not a number is rejected.
+     */
+    public static BinaryCryptoWrapper fromAmqp(AMQP.BasicProperties properties, byte[] body) {
+        Map<String, Object> headers = properties.getHeaders() != null ? properties.getHeaders() : Map.of();
+        Object keyId = headers.get(KEY_ID_HEADER);
+        KeyId key = keyId != null ? new KeyId(keyId.toString(), keyVersion(headers.get(KEY_VERSION_HEADER))) : null;
+        return new BinaryCryptoWrapper(body, key, properties.getContentEncoding());
+    }
+
+    private static int keyVersion(@Nullable Object header) {
+        if (header == null) {
+            return 0;
+        }
+        if (header instanceof Number n) {
+            return n.intValue();
+        }
+        try {
+            // Broker-delivered strings are LongStrings, so parse their text form
+            return Integer.parseInt(header.toString());
+        } catch (NumberFormatException e) {
+            throw new CryptoException("Invalid " + KEY_VERSION_HEADER + " header: " + header, e);
+        }
+    }
+
+    /** Sets the wrapper's key and encoding headers on an HTTP request carrying its raw ciphertext. */
+    public static <B> MutableHttpRequest<B> withHttpHeaders(MutableHttpRequest<B> request, BinaryCryptoWrapper wrapper) {
+        if (wrapper.key() != null) {
+            request.header(KEY_ID_HEADER, wrapper.key().id());
+            request.header(KEY_VERSION_HEADER, String.valueOf(wrapper.key().version()));
+        }
+        if (wrapper.encoding() != null) {
+            request.header(PAYLOAD_ENCODING_HEADER, wrapper.encoding());
+        }
+        return request;
+    }
+
+    /** Rebuilds the wrapper from a raw HTTP response body and its headers. */
+    public static BinaryCryptoWrapper fromHttp(HttpResponse<byte[]> response) {
+        HttpHeaders headers = response.getHeaders();
+        String keyId = headers.get(KEY_ID_HEADER);
+        KeyId key = keyId != null ? new KeyId(keyId, headers.get(KEY_VERSION_HEADER, Integer.class).orElse(0)) : null;
+        return new BinaryCryptoWrapper(response.getBody().orElse(new byte[0]), key, headers.get(PAYLOAD_ENCODING_HEADER));
+    }
+}
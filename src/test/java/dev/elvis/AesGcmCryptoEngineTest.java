@@ -0,0 +1,81 @@
+package dev.elvis;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AesGcmCryptoEngineTest {
+
+    private final AesGcmCryptoEngine engine = new AesGcmCryptoEngine(CryptoFixture.TEST_KEY);
+
+    @Test
+    @DisplayName("Should round trip plaintext and add nonce + tag overhead")
+    void testRoundTrip() {
+        byte[] plaintext = "{\"id\":\"id-123\"}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] ciphertext = engine.encrypt(plaintext);
+
+        assertEquals(plaintext.length + AesGcmCryptoEngine.NONCE_LENGTH + AesGcmCryptoEngine.TAG_LENGTH, ciphertext.length);
+        assertArrayEquals(plaintext, engine.decrypt(ciphertext));
+    }
+
+    @Test
+    @DisplayName("Should use a fresh nonce for every message")
+    void testNonceUniqueness() {
+        byte[] plaintext = "same".getBytes(StandardCharsets.UTF_8);
+
+        byte[] first = engine.encrypt(plaintext);
+        byte[] second = engine.encrypt(plaintext);
+
+        assertFalse(Arrays.equals(Arrays.copyOf(first, AesGcmCryptoEngine.NONCE_LENGTH),
+                Arrays.copyOf(second, AesGcmCryptoEngine.NONCE_LENGTH)), "Nonces must not repeat");
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    @DisplayName("Should reject tampered or truncated ciphertext")
+    void testTamperDetection() {
+        byte[] ciphertext = engine.encrypt("payload".getBytes(StandardCharsets.UTF_8));
+        ciphertext[ciphertext.length - 1] ^= 1;
+
+        assertThrows(CryptoException.class, () -> engine.decrypt(ciphertext));
+        assertThrows(CryptoException.class, () -> engine.decrypt(new byte[5]));
+    }
+
+    @Test
+    @DisplayName("Should reuse cipher state across the per-task threads of the virtual strategy")
+    void testCipherStateReusedOnVirtualThreads() {
+        CryptoExecutionConfiguration configuration = new CryptoExecutionConfiguration();
+        configuration.setStrategy(CryptoExecutionConfiguration.Strategy.VIRTUAL);
+        CryptoScheduler scheduler = new CryptoScheduler(configuration);
+        byte[] plaintext = "payload".getBytes(StandardCharsets.UTF_8);
+        try {
+            for (int i = 0; i < 50; i++) {
+                byte[] ciphertext = scheduler.subscribeOn(Mono.fromCallable(() -> {
+                    assertTrue(Thread.currentThread().isVirtual());
+                    return engine.encrypt(plaintext);
+                })).block();
+                assertArrayEquals(plaintext, scheduler.subscribeOn(Mono.fromCallable(() -> engine.decrypt(ciphertext))).block());
+            }
+        } finally {
+            scheduler.close();
+        }
+
+        assertEquals(1, engine.cipherStatesCreated(), "100 virtual threads should have shared one pooled cipher");
+    }
+
+    @Test
+    @DisplayName("Should refuse keys that are not 256 bits")
+    void testInvalidKey() {
+        assertThrows(IllegalArgumentException.class, () -> new AesGcmCryptoEngine("AAECAwQFBgcICQoLDA0ODw=="));
+    }
+}
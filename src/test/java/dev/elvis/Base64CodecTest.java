@@ -0,0 +1,158 @@
+package dev.elvis;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class Base64CodecTest {
+
+    @Test
+    @DisplayName("Should match java.util.Base64 for every length, at any buffer offset")
+    void testMatchesJdk() {
+        Random random = new Random(42);
+        BufferPool pool = new BufferPool(new BufferPoolConfiguration());
+        for (int length = 0; length < 300; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String expected = Base64.getEncoder().encodeToString(data);
+
+            // Offset source and target, as pooled buffers rarely start at index 0 of the payload
+            byte[] padded = new byte[length + 7];
+            System.arraycopy(data, 0, padded, 3, length);
+            assertEquals(expected, Base64Codec.encodeToString(ByteBuffer.wrap(padded, 3, length), pool));
+
+            byte[] decoded = new byte[Base64Codec.maxDecodedLength(expected.length()) + 5];
+            int written = Base64Codec.decode(expected, decoded, 5);
+            assertArrayEquals(data, Arrays.copyOfRange(decoded, 5, 5 + written));
+            // Padding is optional, like the JDK decoder
+            String unpadded = expected.replace("=", "");
+            assertEquals(length, Base64Codec.decode(unpadded, new byte[Base64Codec.maxDecodedLength(unpadded.length())], 0));
+            assertEquals(length, Base64Codec.decodedLength(expected));
+            assertEquals(length, Base64Codec.decodedLength(unpadded));
+            CryptoWrapper wrapper = new CryptoWrapper(expected);
+            assertEquals(wrapper.data(), BinaryCryptoWrapper.fromCryptoWrapper(wrapper).toCryptoWrapper().data());
+        }
+        assertEquals(0, pool.outstanding());
+    }
+
+    @Test
+    @DisplayName("Should reject what java.util.Base64 rejects")
+    void testRejectsInvalidInput() {
+        byte[] out = new byte[64];
+        for (String invalid : new String[]{"A", "AAAAA", "QQ=", "QQ===", "QQ=A", "!!not-base64!!", "QUJDé", "QU JD"}) {
+            assertThrows(IllegalArgumentException.class, () -> Base64.getDecoder().decode(invalid), invalid);
+            assertThrows(IllegalArgumentException.class, () -> Base64Codec.decode(invalid, out, 0), invalid);
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode and decode like java.util.Base64 on both the vector and the scalar path, for random sizes and offsets")
+    void testFuzzEquivalence() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            // Mostly around the vector widths and the decode chunk, sometimes far beyond
+            int length = round % 10 == 0 ? random.nextInt(200_000) : random.nextInt(9000);
+            int offset = random.nextInt(16);
+            byte[] data = new byte[offset + length];
+            random.nextBytes(data);
+            byte[] expected = Base64.getEncoder().encode(Arrays.copyOfRange(data, offset, offset + length));
+
+            byte[] encoded = sentinels(expected.length + 16);
+            assertEquals(expected.length, Base64Codec.encode(data, offset, length, encoded, 8));
+            assertArrayEquals(expected, Arrays.copyOfRange(encoded, 8, 8 + expected.length));
+            assertUntouched(encoded, 8, expected.length);
+            byte[] scalar = new byte[expected.length];
+            assertEquals(expected.length, Base64Codec.encodeScalar(data, offset, length, scalar, 0));
+            assertArrayEquals(expected, scalar);
+
+            String text = new String(expected, StandardCharsets.ISO_8859_1);
+            byte[] decoded = sentinels(Base64Codec.maxDecodedLength(text.length()) + 16);
+            assertEquals(length, Base64Codec.decode(text, decoded, 8));
+            assertArrayEquals(Arrays.copyOfRange(data, offset, offset + length), Arrays.copyOfRange(decoded, 8, 8 + length));
+            assertUntouched(decoded, 8, length);
+            assertEquals(length, Base64Codec.decodeScalar(text, 0, new byte[Base64Codec.maxDecodedLength(text.length())], 0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject exactly what java.util.Base64 rejects, wherever the damage sits in a long input")
+    void testFuzzRejection() {
+        Random random = new Random(11);
+        // Outside the alphabet, padding in the wrong place, and chars whose low byte is a valid character ('Ł' = 0x141)
+        char[] damage = {'=', '-', '_', ' ', '\n', '.', '\0', 0x7F, 'é', 'Ł', '\uFFFF'};
+        for (int round = 0; round < 2000; round++) {
+            byte[] data = new byte[random.nextInt(6000)];
+            random.nextBytes(data);
+            char[] text = Base64.getEncoder().encodeToString(data).toCharArray();
+            if (text.length == 0) {
+                continue;
+            }
+            text[random.nextInt(text.length)] = damage[random.nextInt(damage.length)];
+            String input = random.nextInt(5) == 0
+                    ? new String(text, 0, random.nextInt(text.length)) // Also truncated, so lengths and padding go wrong
+                    : new String(text);
+
+            byte[] expected = jdkDecodeOrNull(input);
+            byte[] actual = decodeOrNull(input);
+            assertArrayEquals(expected, actual, () -> "equivalence broken for input of length " + input.length());
+        }
+    }
+
+    @Test
+    @DisplayName("Should use the vector path when the incubator module is present")
+    void testVectorPathEnabled() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "run without --add-modules jdk.incubator.vector");
+        assumeTrue(Boolean.parseBoolean(System.getProperty(Base64Codec.VECTOR_PROPERTY, "true")));
+        assertTrue(Base64Codec.VECTORIZED);
+
+        byte[] data = new byte[4096];
+        new Random(3).nextBytes(data);
+        byte[] encoded = new byte[Base64Codec.encodedLength(data.length)];
+        int consumed = VectorBase64.encodeBlocks(data, 0, data.length, encoded, 0);
+        assertTrue(consumed > data.length / 2, "vector loop consumed only " + consumed);
+        assertEquals(0, consumed % 3);
+    }
+
+    private static byte[] sentinels(int length) {
+        byte[] buffer = new byte[length];
+        Arrays.fill(buffer, (byte) 0x5A);
+        return buffer;
+    }
+
+    // Vector stores may be wider than their output, but nothing outside [from, from + length) may change
+    private static void assertUntouched(byte[] buffer, int from, int length) {
+        for (int i = 0; i < buffer.length; i++) {
+            if (i < from || i >= from + length) {
+                assertEquals((byte) 0x5A, buffer[i], "byte " + i + " outside the output was written");
+            }
+        }
+    }
+
+    private static byte[] jdkDecodeOrNull(String input) {
+        try {
+            return Base64.getDecoder().decode(input);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] decodeOrNull(String input) {
+        byte[] out = new byte[Base64Codec.maxDecodedLength(input.length())];
+        try {
+            return Arrays.copyOf(out, Base64Codec.decode(input, out, 0));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+    private BufferPool pool;
+    private CryptoFixture crypto;
+
+    @BeforeEach
+    void setUp() {
+        BufferPoolConfiguration configuration = new BufferPoolConfiguration();
+        configuration.setMaxPooledSize(64 * 1024);
+        configuration.setLeakDetection(true);
+        pool = new BufferPool(configuration);
+        crypto = new CryptoFixture(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        crypto.close();
+        assertEquals(0, pool.outstanding(), pool::leakReport);
+    }
+
+    @Test
+    @DisplayName("Should reuse scrubbed arrays per size class and reject use after release")
+    void testLeaseLifecycle() {
+        PooledBuffer first = pool.acquire(1000);
+        byte[] array = first.array();
+        assertEquals(1024, array.length);
+        assertEquals(1000, first.buffer().limit());
+        first.buffer().put(new byte[]{1, 2, 3});
+        first.close();
+
+        assertThrows(IllegalStateException.class, first::close, "Double release would hand one array to two owners");
+        assertThrows(IllegalStateException.class, first::buffer);
+
+        try (PooledBuffer second = pool.acquire(700)) {
+            assertSame(array, second.array(), "Same size class should reuse the released array");
+            assertEquals(0, second.array()[0], "Released buffers are scrubbed");
+        }
+        try (PooledBuffer oversized = pool.acquire(100_000); PooledBuffer other = pool.acquire(100_000)) {
+            assertEquals(100_000, oversized.array().length, "Above max-pooled-size buffers are exact, one-off arrays");
+            assertNotSame(oversized.array(), other.array());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report where an unreleased lease was acquired")
+    void testLeakReport() {
+        PooledBuffer leaked = pool.acquire(10);
+
+        assertEquals(1, pool.outstanding());
+        assertTrue(pool.leakReport().contains("testLeakReport"), pool.leakReport());
+        leaked.close();
+    }
+
+    @Test
+    @DisplayName("Should release every lease of the String pipeline, on success and on failure")
+    void testPipelineReleasesBuffers() {
+        ObjectMapper mapper = new ObjectMapperFactory().externalServiceObjectMapper();
+        EncryptionService encryptionService = crypto.encryptionService;
+        DecryptionService decryptionService = crypto.decryptionService;
+        // Larger than the initial JSON buffer, so the output stream has to grow through several leases
+        SomeSpecificObject original = new SomeSpecificObject("id-1", "value", 1, "x".repeat(5000));
+
+        String encrypted = encryptionService.serializeAndEncrypt(original, mapper).block();
+        assertEquals(original, engineDecrypt(crypto.engine, mapper, encrypted));
+        assertEquals(original, decryptionService.decryptAndDeserialize(encrypted, SomeSpecificObject.class, mapper).block().getSuccessData());
+
+        byte[] tampered = Base64.getDecoder().decode(encrypted);
+        tampered[20] ^= 1;
+        String tamperedBase64 = Base64.getEncoder().encodeToString(tampered);
+        assertThrows(RuntimeException.class, () ->
+                decryptionService.decryptAndDeserialize(tamperedBase64, SomeSpecificObject.class, mapper).block());
+        assertThrows(RuntimeException.class, () ->
+                decryptionService.decryptAndDeserialize("not base64!", SomeSpecificObject.class, mapper).block());
+    }
+
+    private static SomeSpecificObject engineDecrypt(CryptoEngine engine, ObjectMapper mapper, String base64) {
+        try {
+            return mapper.readValue(engine.decrypt(Base64.getDecoder().decode(base64)), SomeSpecificObject.class);
+        } catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
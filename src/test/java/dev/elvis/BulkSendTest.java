@@ -0,0 +1,178 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest(environments = "mock-rabbitmq")
+class BulkSendTest {
+
+    @Inject EncryptionService encryptionService;
+    @Inject CryptoEngine cryptoEngine;
+    @Inject @Named("externalServiceObjectMapper") ObjectMapper targetMapper;
+    @Inject @Named("externalService") PayloadCodec codec;
+
+    private final List<CryptoWrapper> envelopes = new CopyOnWriteArrayList<>();
+    private BiFunction<CryptoWrapper, Integer, Mono<BulkPostResult>> bulkEndpoint;
+    private MyBusinessService service;
+
+    @BeforeEach
+    void setUp() {
+        bulkEndpoint = (envelope, count) -> Mono.just(BulkPostResult.ACCEPTED);
+        service = new MyBusinessService();
+        service.externalClient = new BulkOnlyClient();
+        service.encryptionService = encryptionService;
+        service.batchConfiguration = new BatchConfiguration();
+        service.metrics = new PipelineMetrics(null);
+        service.upstreamGuard = new UpstreamGuard(new ExternalServiceConfiguration(), service.metrics);
+        service.targetCodec = codec;
+    }
+
+    @Test
+    @DisplayName("Should group records into multi-record envelopes by count and by size")
+    void testGrouping() {
+        service.batchConfiguration.getSend().setMaxRecords(3);
+        List<SomeSpecificObject> records = records(7, 10);
+
+        List<SendResult> results = service.sendEncryptedDataBatch(Flux.fromIterable(records)).collectList().block();
+
+        assertEquals(7, results.size());
+        assertTrue(results.stream().noneMatch(SendResult::isFailure));
+        assertEquals(List.of(3, 3, 1), envelopes.stream().map(envelope -> decrypt(envelope).length).toList());
+        assertArrayEquals(records.toArray(), envelopes.stream().flatMap(envelope -> List.of(decrypt(envelope)).stream())
+                .sorted(Comparator.comparing(SomeSpecificObject::count)).toArray());
+
+        // Each record alone exceeds half the budget, so no two fit together
+        envelopes.clear();
+        service.batchConfiguration.getSend().setMaxBytes(300);
+        service.sendEncryptedDataBatch(Flux.fromIterable(records(4, 200))).blockLast();
+        assertEquals(4, envelopes.size());
+
+        // max-bytes counts UTF-8 bytes: by characters these two would share an envelope
+        envelopes.clear();
+        service.sendEncryptedDataBatch(Flux.range(0, 2)
+                .map(i -> new SomeSpecificObject("id-" + i, "value", i, "\u00e9".repeat(60)))).blockLast();
+        assertEquals(2, envelopes.size());
+    }
+
+    @Test
+    @DisplayName("Should close a partly filled envelope after max-wait")
+    void testTimeWindow() {
+        service.batchConfiguration.getSend().setMaxWait(Duration.ofMillis(20));
+
+        List<SendResult> results = service.sendEncryptedDataBatch(Flux.concat(Flux.fromIterable(records(2, 10)), Flux.never()))
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(2, results.size());
+        assertEquals(1, envelopes.size());
+    }
+
+    @Test
+    @DisplayName("Should report rejected records and failed envelopes per record")
+    void testPerRecordFailures() {
+        service.batchConfiguration.getSend().setMaxRecords(3);
+        service.batchConfiguration.getSend().setConcurrency(1);
+        ErrorDto invalid = new ErrorDto("INVALID", "bad record", null);
+        RuntimeException down = new RuntimeException("connection reset");
+        AtomicInteger calls = new AtomicInteger();
+        bulkEndpoint = (envelope, count) -> calls.incrementAndGet() == 1
+                ? Mono.just(new BulkPostResult(List.of(new BulkPostResult.Rejection(1, invalid))))
+                : Mono.error(down);
+
+        List<SendResult> results = service.sendEncryptedDataBatch(Flux.fromIterable(records(6, 10)))
+                .sort(Comparator.comparingLong(SendResult::index))
+                .collectList().block();
+
+        assertFalse(results.get(0).isFailure());
+        assertEquals(invalid, assertInstanceOf(ApiException.class, results.get(1).failure()).getErrorDetails());
+        assertFalse(results.get(2).isFailure());
+        for (SendResult result : results.subList(3, 6)) {
+            assertSame(down, result.failure());
+            assertEquals("id-" + result.index(), result.record().id()); // Enough to send it again
+        }
+    }
+
+    @Test
+    @DisplayName("Should only pull records from the source as envelope POSTs complete")
+    void testBackpressure() {
+        service.batchConfiguration.getSend().setMaxRecords(10);
+        service.batchConfiguration.getSend().setConcurrency(2);
+        bulkEndpoint = (envelope, count) -> Mono.never(); // A stalled external service
+        AtomicInteger pulled = new AtomicInteger();
+
+        service.sendEncryptedDataBatch(Flux.range(0, 100_000).map(i -> record(i, 10)).doOnNext(r -> pulled.incrementAndGet()))
+                .take(Duration.ofMillis(300))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertEquals(2, envelopes.size());
+        assertTrue(pulled.get() < 100, "pulled " + pulled.get() + " records");
+    }
+
+    // What the external service does with an envelope: one decryption, then a JSON array of records
+    private SomeSpecificObject[] decrypt(CryptoWrapper envelope) {
+        try {
+            return targetMapper.readValue(cryptoEngine.decrypt(Base64.getDecoder().decode(envelope.data())), SomeSpecificObject[].class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<SomeSpecificObject> records(int count, int size) {
+        return Flux.range(0, count).map(i -> record(i, size)).collectList().block();
+    }
+
+    private static SomeSpecificObject record(int i, int size) {
+        return new SomeSpecificObject("id-" + i, "value", i, "s".repeat(size));
+    }
+
+    /** Records every envelope, then answers through {@link #bulkEndpoint}. */
+    private class BulkOnlyClient implements MyExternalServiceClient {
+
+        @Override
+        public Mono<BulkPostResult> postEncryptedResources(CryptoWrapper envelope, int recordCount) {
+            envelopes.add(envelope);
+            return bulkEndpoint.apply(envelope, recordCount);
+        }
+
+        @Override
+        public Mono<CryptoWrapper> getEncryptedResource(String id) {
+            return Mono.error(new UnsupportedOperationException());
+        }
+
+        @Override
+        public Flux<ByteBuffer> getEncryptedResourceStream(String id) {
+            return Flux.error(new UnsupportedOperationException());
+        }
+
+        @Override
+        public Mono<Void> postEncryptedResource(CryptoWrapper encryptedPayload) {
+            return Mono.error(new UnsupportedOperationException());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.elvis;
+
+/**
+ * Hand-wired crypto services for tests that run without a Micronaut context: an {@link EncryptionService} and a
+ * {@link DecryptionService} sharing one engine, buffer pool, compressor and scheduler, as the beans do.
+ * Tests rewire the services' fields they need to and must {@link #close()} the fixture in {@code @AfterEach},
+ * which shuts the scheduler's threads down and frees the compressor's zlib state.
+ */
+final class CryptoFixture implements AutoCloseable {
+
+    static final String TEST_KEY = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+
+    final AesGcmCryptoEngine engine = new AesGcmCryptoEngine(TEST_KEY);
+    final CryptoScheduler scheduler = new CryptoScheduler(new CryptoExecutionConfiguration());
+    final BufferPool bufferPool;
+    final PayloadCompressor compressor;
+    final EncryptionService encryptionService = new EncryptionService();
+    final DecryptionService decryptionService = new DecryptionService();
+
+    CryptoFixture() {
+        this(new BufferPool(new BufferPoolConfiguration()), new CompressionConfiguration());
+    }
+
+    CryptoFixture(BufferPool bufferPool) {
+        this(bufferPool, new CompressionConfiguration());
+    }
+
+    CryptoFixture(BufferPool bufferPool, CompressionConfiguration compression) {
+        this.bufferPool = bufferPool;
+        this.compressor = new PayloadCompressor(compression);
+        encryptionService.cryptoEngine = engine;
+        encryptionService.metrics = new PipelineMetrics(null);
+        encryptionService.cryptoScheduler = scheduler;
+        encryptionService.compressor = compressor;
+        encryptionService.bufferPool = bufferPool;
+        decryptionService.cryptoEngine = engine;
+        decryptionService.batchConfiguration = new BatchConfiguration();
+        decryptionService.metrics = new PipelineMetrics(null);
+        decryptionService.cryptoScheduler = scheduler;
+        decryptionService.compressor = compressor;
+        decryptionService.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void close() {
+        scheduler.close();
+        compressor.close();
+    }
+}
@@ -0,0 +1,69 @@
+package dev.elvis;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CryptoSchedulerTest {
+
+    private static CryptoScheduler scheduler(CryptoExecutionConfiguration.Strategy strategy) {
+        CryptoExecutionConfiguration configuration = new CryptoExecutionConfiguration();
+        configuration.setStrategy(strategy);
+        configuration.setParallelism(1);
+        configuration.setQueueCapacity(1);
+        return new CryptoScheduler(configuration);
+    }
+
+    @Test
+    @DisplayName("Should run work on the configured threads for every strategy")
+    void testStrategies() {
+        String caller = Thread.currentThread().getName();
+        for (CryptoExecutionConfiguration.Strategy strategy : CryptoExecutionConfiguration.Strategy.values()) {
+            CryptoScheduler scheduler = scheduler(strategy);
+            try {
+                String thread = scheduler.subscribeOn(Mono.fromCallable(() -> Thread.currentThread().getName())).block();
+                if (strategy == CryptoExecutionConfiguration.Strategy.INLINE) {
+                    assertEquals(caller, thread);
+                } else {
+                    assertTrue(thread.startsWith("crypto"), strategy + " ran on " + thread);
+                }
+            } finally {
+                scheduler.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should shed work with CryptoOverloadedException once the bounded queue is full")
+    void testBoundedQueueSheds() throws InterruptedException {
+        CryptoScheduler scheduler = scheduler(CryptoExecutionConfiguration.Strategy.BOUNDED);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Occupy the single worker, then fill the single queue slot
+            scheduler.subscribeOn(Mono.fromCallable(() -> {
+                running.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            })).subscribe();
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            Mono<String> queued = scheduler.subscribeOn(Mono.just("queued")).cache();
+            queued.subscribe();
+
+            assertThrows(CryptoOverloadedException.class, () -> scheduler.subscribeOn(Mono.just("shed")).block());
+
+            release.countDown();
+            assertEquals("queued", queued.block(Duration.ofSeconds(5)));
+        } finally {
+            release.countDown();
+            scheduler.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.elvis;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecryptedDataCacheTest {
+
+    private final DecryptedDataCache cache = new DecryptedDataCache(new DecryptedDataCacheConfiguration(), null);
+
+    @Test
+    @DisplayName("Should share one in-flight load between concurrent callers and serve later calls from cache")
+    void testSingleFlight() {
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<SomeSpecificObject> upstream = Sinks.one();
+        SomeSpecificObject value = new SomeSpecificObject("id-1", "v", 1, null);
+
+        // Subscribe all callers first, then complete the single upstream call
+        Mono<List<SomeSpecificObject>> results = Flux.range(0, 10)
+                .flatMap(i -> cache.get("id-1", id -> {
+                    loads.incrementAndGet();
+                    return upstream.asMono();
+                }))
+                .collectList()
+                .cache();
+        results.subscribe();
+        upstream.tryEmitValue(value);
+
+        assertEquals(10, results.block().size());
+        assertSame(value, cache.get("id-1", id -> Mono.error(new AssertionError("should be cached"))).block());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Should cache ApiException outcomes but not other failures")
+    void testNegativeCaching() {
+        AtomicInteger loads = new AtomicInteger();
+        ErrorDto notFound = new ErrorDto("NOT_FOUND", "missing", Map.of());
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(ApiException.class, () -> cache.get("id-err", id -> {
+                loads.incrementAndGet();
+                return Mono.error(new ApiException(notFound));
+            }).block());
+        }
+        assertEquals(1, loads.get(), "ApiException should be served from the negative cache");
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(RuntimeException.class, () -> cache.get("id-boom", id -> {
+                loads.incrementAndGet();
+                return Mono.error(new IllegalStateException("boom"));
+            }).block());
+        }
+        assertEquals(3, loads.get(), "Other failures must not be cached");
+    }
+}
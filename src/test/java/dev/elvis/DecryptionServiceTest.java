@@ -0,0 +1,135 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecryptionServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapperFactory().externalServiceObjectMapper();
+    private CryptoFixture crypto;
+    private DecryptionService decryptionService;
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    void setUp() {
+        BufferPoolConfiguration buffers = new BufferPoolConfiguration();
+        buffers.setLeakDetection(true);
+        bufferPool = new BufferPool(buffers);
+        crypto = new CryptoFixture(bufferPool);
+        decryptionService = crypto.decryptionService;
+    }
+
+    @AfterEach
+    void tearDown() {
+        crypto.close();
+        // Every path, failures included, must have closed its leases
+        assertEquals(0, bufferPool.outstanding(), bufferPool::leakReport);
+    }
+
+    private String encrypt(String json) {
+        return Base64.getEncoder().encodeToString(crypto.engine.encrypt(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Should deserialize payload without marker fields as the success type")
+    void testSuccessPayload() {
+        String encrypted = encrypt("{\"id\":\"id-1\",\"value\":\"v\",\"count\":3,\"sensitiveData\":\"s\"}");
+
+        DecryptionResult<SomeSpecificObject> result =
+                decryptionService.decryptAndDeserialize(encrypted, SomeSpecificObject.class, mapper).block();
+
+        assertTrue(result.isSuccess());
+        assertEquals(new SomeSpecificObject("id-1", "v", 3, "s"), result.getSuccessData());
+    }
+
+    @Test
+    @DisplayName("Should route payload with errorCode marker to ErrorDto in a single pass")
+    void testErrorPayload() {
+        String encrypted = encrypt("{\"errorCode\":\"NOT_FOUND\",\"message\":\"missing\"}");
+
+        DecryptionResult<SomeSpecificObject> result =
+                decryptionService.decryptAndDeserialize(encrypted, SomeSpecificObject.class, mapper).block();
+
+        assertTrue(result.isError());
+        assertEquals("NOT_FOUND", result.getErrorDetails().errorCode());
+        assertEquals("missing", result.getErrorDetails().message());
+    }
+
+    @Test
+    @DisplayName("Should round trip through the binary EncryptionService/DecryptionService API")
+    void testBinaryRoundTrip() {
+        EncryptionService encryptionService = crypto.encryptionService;
+        SomeSpecificObject original = new SomeSpecificObject("id-2", "value", 7, "secret");
+
+        byte[] ciphertext = encryptionService.serializeAndEncryptToBytes(original, mapper).block();
+        DecryptionResult<SomeSpecificObject> result =
+                decryptionService.decryptAndDeserialize(ByteBuffer.wrap(ciphertext), SomeSpecificObject.class, mapper).block();
+
+        assertEquals(original, result.getSuccessData());
+    }
+
+    @Test
+    @DisplayName("Should keep per-item outcomes and input order in decryptAndDeserializeMany")
+    void testDecryptMany() {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add(encrypt("{\"id\":\"id-" + i + "\",\"count\":" + i + "}"));
+        }
+        inputs.set(10, "not-valid-ciphertext");
+        inputs.set(20, encrypt("{\"errorCode\":\"GONE\"}"));
+
+        List<BatchItem<SomeSpecificObject>> items = decryptionService
+                .decryptAndDeserializeMany(Flux.fromIterable(inputs), SomeSpecificObject.class, mapper, 4, true)
+                .collectList().block();
+
+        assertEquals(50, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i, items.get(i).index(), "Items should be emitted in input order");
+        }
+        assertTrue(items.get(10).isFailure());
+        assertEquals("GONE", items.get(20).result().getErrorDetails().errorCode());
+        assertEquals(49, items.get(49).result().getSuccessData().count());
+    }
+
+    @Test
+    @DisplayName("Should record stage timers and outcome counters tagged by type and mapper")
+    void testMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        decryptionService.metrics = new PipelineMetrics(registry);
+
+        decryptionService.decryptAndDeserialize(encrypt("{\"id\":\"id-1\"}"), SomeSpecificObject.class, mapper).block();
+        decryptionService.decryptAndDeserialize(encrypt("{\"errorCode\":\"X\"}"), SomeSpecificObject.class, mapper).block();
+
+        assertEquals(1, registry.get("crypto.pipeline.operations").tag("outcome", "success")
+                .tag("type", "SomeSpecificObject").tag("mapper", "LowerCamelCaseStrategy").counter().count());
+        assertEquals(1, registry.get("crypto.pipeline.operations").tag("outcome", "error").counter().count());
+        assertEquals(2, registry.get("crypto.pipeline.stage").tag("stage", "decrypt").timer().count());
+        assertEquals(2, registry.get("crypto.pipeline.scheduler.queue").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should fail with DeserializationException for non-object payloads")
+    void testMalformedPayload() {
+        String encrypted = encrypt("[1,2,3]");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () ->
+                decryptionService.decryptAndDeserialize(encrypted, SomeSpecificObject.class, mapper).block());
+        assertInstanceOf(DeserializationException.class, e);
+    }
+}
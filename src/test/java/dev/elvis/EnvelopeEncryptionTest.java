@@ -0,0 +1,125 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnvelopeEncryptionTest {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper mapper = new ObjectMapperFactory().externalServiceObjectMapper();
+    private Path keyring;
+    private String wrappedV1;
+    private int keyringGeneration;
+    private LocalKeyProvider keyProvider;
+    private CryptoFixture crypto;
+    private EncryptionService encryptionService;
+    private DecryptionService decryptionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        keyring = tempDir.resolve("keyring.json");
+        wrappedV1 = wrap(newDataKey());
+        writeKeyring("orders:1", "\"orders:1\":\"" + wrappedV1 + "\"");
+
+        EnvelopeConfiguration configuration = new EnvelopeConfiguration();
+        configuration.setKeyringFile(keyring.toString());
+        configuration.setActiveKeyRefresh(Duration.ofMillis(1));
+        keyProvider = new LocalKeyProvider(configuration, CryptoFixture.TEST_KEY);
+        DataKeyCache dataKeys = new DataKeyCache(keyProvider, configuration, null);
+
+        crypto = new CryptoFixture();
+        encryptionService = crypto.encryptionService;
+        encryptionService.dataKeys = dataKeys;
+        decryptionService = crypto.decryptionService;
+        decryptionService.dataKeys = dataKeys;
+    }
+
+    @AfterEach
+    void tearDown() {
+        crypto.close();
+    }
+
+    private static byte[] newDataKey() {
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        return key;
+    }
+
+    // Same as LocalKeyProvider#wrap, usable before the provider exists
+    private static String wrap(byte[] dataKey) {
+        return Base64.getEncoder().encodeToString(new AesGcmCryptoEngine(CryptoFixture.TEST_KEY).encrypt(dataKey));
+    }
+
+    private void writeKeyring(String active, String keys) throws IOException {
+        Files.writeString(keyring, "{\"active\":\"" + active + "\",\"keys\":{" + keys + "}}");
+        // Make sure the provider sees a new modification time even on coarse-grained file systems
+        Files.setLastModifiedTime(keyring, FileTime.from(Instant.now().plusSeconds(keyringGeneration++)));
+    }
+
+    @Test
+    @DisplayName("Should tag wrappers with the active key and decrypt them through the data key cache")
+    void testEnvelopeRoundTrip() {
+        SomeSpecificObject original = new SomeSpecificObject("id-1", "value", 1, "secret");
+
+        CryptoWrapper wrapper = encryptionService.serializeAndEncryptEnvelope(original, mapper).block();
+
+        assertEquals("orders", wrapper.keyId());
+        assertEquals(1, wrapper.keyVersion());
+        assertEquals(original, decryptionService.decryptAndDeserialize(wrapper, SomeSpecificObject.class, mapper).block().getSuccessData());
+    }
+
+    @Test
+    @DisplayName("Should keep decrypting old versions after a rotation while encrypting under the new one")
+    void testRotation() throws Exception {
+        SomeSpecificObject original = new SomeSpecificObject("id-2", "value", 2, "secret");
+        CryptoWrapper beforeRotation = encryptionService.serializeAndEncryptEnvelope(original, mapper).block();
+
+        writeKeyring("orders:2", "\"orders:1\":\"" + wrappedV1 + "\",\"orders:2\":\"" + keyProvider.wrap(newDataKey()) + "\"");
+        // The active key is refreshed in the background, wait until the rotation is visible
+        CryptoWrapper afterRotation = beforeRotation;
+        for (int i = 0; i < 100 && afterRotation.keyVersion() == 1; i++) {
+            Thread.sleep(10);
+            afterRotation = encryptionService.serializeAndEncryptEnvelope(original, mapper).block();
+        }
+
+        assertEquals(2, afterRotation.keyVersion());
+        assertEquals(original, decryptionService.decryptAndDeserialize(beforeRotation, SomeSpecificObject.class, mapper).block().getSuccessData());
+        assertEquals(original, decryptionService.decryptAndDeserialize(afterRotation, SomeSpecificObject.class, mapper).block().getSuccessData());
+    }
+
+    @Test
+    @DisplayName("Should fail for an unknown data key and still accept payloads without a key id")
+    void testUnknownKeyAndLegacyPayloads() {
+        SomeSpecificObject original = new SomeSpecificObject("id-3", "value", 3, "secret");
+        CryptoWrapper wrapper = encryptionService.serializeAndEncryptEnvelope(original, mapper).block();
+        CryptoWrapper unknownKey = new CryptoWrapper(wrapper.data(), "orders", 99, null);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> decryptionService.decryptAndDeserialize(unknownKey, SomeSpecificObject.class, mapper).block());
+        assertTrue(error.getCause().getCause() instanceof CryptoException);
+
+        CryptoWrapper legacy = new CryptoWrapper(encryptionService.serializeAndEncrypt(original, mapper).block());
+        assertEquals(original, decryptionService.decryptAndDeserialize(legacy, SomeSpecificObject.class, mapper).block().getSuccessData());
+    }
+}
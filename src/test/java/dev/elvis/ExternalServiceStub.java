@@ -0,0 +1,169 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the external service, on the JDK's built-in HTTP server so tests need no extra dependency.
+ * Serves {@code GET /resources/{id}} as a JSON wrapper or raw ciphertext (by {@code Accept}),
+ * {@code GET /resources/{id}/stream} as chunked raw bytes, and records {@code POST /resources} and
+ * {@code POST /resources/batch} (answered with {@link #bulkResponse} if one was queued, else 204).
+ * GETs can be delayed one by one to simulate a slow tail.
+ */
+class ExternalServiceStub implements AutoCloseable {
+
+    record Recorded(String contentType, Headers headers, byte[] body) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // Wrappers travel in the application's micronaut.serde.property-naming-strategy
+    private final ObjectMapper mapper = new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    private final Map<String, BinaryCryptoWrapper> resources = new ConcurrentHashMap<>();
+    private final Queue<Duration> delays = new ConcurrentLinkedQueue<>();
+    private final List<Recorded> posts = new CopyOnWriteArrayList<>();
+    private final Queue<BulkPostResult> bulkResponses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger gets = new AtomicInteger();
+
+    private ExternalServiceStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/resources", this::handle);
+        // One thread per exchange, so a delayed request does not hold up the hedge sent after it
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    static ExternalServiceStub start() {
+        try {
+            return new ExternalServiceStub();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start external service stub", e);
+        }
+    }
+
+    String url() {
+        return "http://" + server.getAddress().getHostString() + ':' + server.getAddress().getPort();
+    }
+
+    void put(String id, BinaryCryptoWrapper resource) {
+        resources.put(id, resource);
+    }
+
+    /** Delays the next GETs, one entry per request in arrival order. */
+    void delayNextGets(Duration... next) {
+        delays.addAll(List.of(next));
+    }
+
+    int gets() {
+        return gets.get();
+    }
+
+    /** Answers the next bulk POST with {@code result}. */
+    void bulkResponse(BulkPostResult result) {
+        bulkResponses.add(result);
+    }
+
+    List<Recorded> posts() {
+        return posts;
+    }
+
+    void reset() {
+        resources.clear();
+        delays.clear();
+        posts.clear();
+        bulkResponses.clear();
+        gets.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().split("/"); // "", "resources", id, ["stream"]
+            if ("POST".equals(exchange.getRequestMethod()) && path.length == 2) {
+                posts.add(new Recorded(exchange.getRequestHeaders().getFirst("Content-Type"),
+                        exchange.getRequestHeaders(), exchange.getRequestBody().readAllBytes()));
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+            if ("POST".equals(exchange.getRequestMethod()) && path.length == 3 && "batch".equals(path[2])) {
+                posts.add(new Recorded(exchange.getRequestHeaders().getFirst("Content-Type"),
+                        exchange.getRequestHeaders(), exchange.getRequestBody().readAllBytes()));
+                BulkPostResult result = bulkResponses.poll();
+                if (result == null) {
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    send(exchange, 200, WireFormat.JSON, mapper.writeValueAsBytes(result));
+                }
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod()) || path.length < 3) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            gets.incrementAndGet();
+            Duration delay = delays.poll();
+            if (delay != null) {
+                Thread.sleep(delay.toMillis());
+            }
+            BinaryCryptoWrapper resource = resources.get(path[2]);
+            if (resource == null) {
+                send(exchange, 404, WireFormat.JSON, "{\"message\":\"Not Found\"}".getBytes());
+            } else if (path.length == 4 && "stream".equals(path[3])) {
+                streamChunked(exchange, resource.data());
+            } else if (String.valueOf(exchange.getRequestHeaders().getFirst("Accept")).contains(WireFormat.OCTET_STREAM)) {
+                if (resource.key() != null) {
+                    exchange.getResponseHeaders().add(WireFormat.KEY_ID_HEADER, resource.key().id());
+                    exchange.getResponseHeaders().add(WireFormat.KEY_VERSION_HEADER, String.valueOf(resource.key().version()));
+                }
+                if (resource.encoding() != null) {
+                    exchange.getResponseHeaders().add(WireFormat.PAYLOAD_ENCODING_HEADER, resource.encoding());
+                }
+                send(exchange, 200, WireFormat.OCTET_STREAM, resource.data());
+            } else {
+                send(exchange, 200, WireFormat.JSON, mapper.writeValueAsBytes(resource.toCryptoWrapper()));
+            }
+        } catch (InterruptedException e) {
+            // Only happens when the stub shuts down
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void streamChunked(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", WireFormat.OCTET_STREAM);
+        exchange.sendResponseHeaders(200, 0); // 0 = chunked transfer encoding
+        OutputStream out = exchange.getResponseBody();
+        for (int offset = 0; offset < body.length; offset += 1000) {
+            out.write(body, offset, Math.min(1000, body.length - offset));
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package dev.elvis;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FailureLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(FailureLogTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private FailureLog failureLog;
+    private CryptoFixture crypto;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        FailureLogConfiguration configuration = new FailureLogConfiguration();
+        configuration.setPermits(2);
+        configuration.setInterval(Duration.ofSeconds(10));
+        failureLog = new FailureLog(configuration, new PipelineMetrics(registry), clock::get);
+        crypto = new CryptoFixture();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        crypto.close();
+    }
+
+    @Test
+    @DisplayName("Should log a few failures per code and interval, count all of them, and report the skipped ones")
+    void testRateLimitPerCode() {
+        for (int i = 0; i < 5; i++) {
+            failureLog.warn(logger, new CryptoException("bad tag " + i), "Decryption failed for item {}", i);
+        }
+        failureLog.warn(logger, new DeserializationException("not JSON"), "Deserialization failed"); // Own budget
+
+        assertEquals(3, appender.list.size());
+        assertEquals("Decryption failed for item 1", appender.list.get(1).getFormattedMessage());
+        assertEquals("deserialization", keyValue(appender.list.get(2), "code"));
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        failureLog.warn(logger, new CryptoException("bad tag 5"), "Decryption failed for item {}", 5);
+        assertEquals(4, appender.list.size());
+        assertEquals(3L, keyValue(appender.list.get(3), "suppressed"));
+
+        assertEquals(6, registry.get("crypto.pipeline.failures").tag("code", "crypto").counter().count());
+        assertEquals(1, registry.get("crypto.pipeline.failures").tag("code", "deserialization").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should attach the cause chain only to unexpected failures")
+    void testCausesOnlyForInternalFailures() {
+        failureLog.error(logger, new PipelineException(PipelineException.Code.UPSTREAM_EMPTY, "No data", null), "Expected");
+        failureLog.error(logger, new IllegalStateException("bug"), "Unexpected");
+
+        ILoggingEvent expected = appender.list.get(0);
+        assertNull(expected.getThrowableProxy());
+        assertEquals("dev.elvis.PipelineException: No data", keyValue(expected, "error"));
+        ILoggingEvent unexpected = appender.list.get(1);
+        assertEquals("internal", keyValue(unexpected, "code"));
+        assertNotNull(unexpected.getThrowableProxy());
+    }
+
+    @Test
+    @DisplayName("Should create pipeline exceptions without stack traces or suppressed exceptions, and find their code through wrappers")
+    void testStacklessExceptions() {
+        CryptoException failure = new CryptoException("bad tag");
+        failure.addSuppressed(new IllegalStateException("ignored")); // What Mono#block does on error
+
+        assertEquals(0, failure.getStackTrace().length);
+        assertEquals(0, failure.getSuppressed().length);
+        assertEquals(PipelineException.Code.CRYPTO, PipelineException.codeOf(new RuntimeException("wrapper", failure)));
+        assertEquals(PipelineException.Code.INTERNAL, PipelineException.codeOf(new IllegalStateException("bug")));
+    }
+
+    @Test
+    @DisplayName("Should count a failed fetch once, where it is handled, and pass a typed failure through unwrapped")
+    void testFailedFetchCountedOnce() {
+        PipelineMetrics metrics = new PipelineMetrics(registry);
+        DecryptionService decryptionService = crypto.decryptionService;
+        decryptionService.metrics = metrics;
+        MyExternalServiceClient client = mock(MyExternalServiceClient.class);
+        // Not a valid AES-GCM ciphertext for the key: fails authentication in the DecryptionService
+        when(client.getEncryptedResource("id-1")).thenReturn(Mono.just(new CryptoWrapper(Base64.getEncoder().encodeToString(new byte[64]))));
+
+        MyBusinessService service = new MyBusinessService();
+        service.externalClient = client;
+        service.decryptionService = decryptionService;
+        service.metrics = metrics;
+        service.upstreamGuard = new UpstreamGuard(new ExternalServiceConfiguration(), metrics);
+        service.failureLog = failureLog;
+        service.targetCodec = JacksonPayloadCodec.of(new ObjectMapperFactory().externalServiceObjectMapper());
+        PipelineException failure = assertThrows(PipelineException.class, () -> service.getDecryptedData("id-1").block());
+        assertInstanceOf(CryptoException.class, failure.getCause(), "the decryption failure must not be wrapped again");
+
+        assertEquals(1, registry.get("crypto.pipeline.failures").counters().stream().mapToDouble(counter -> counter.count()).sum());
+        assertEquals(1, registry.get("crypto.pipeline.failures").tag("code", "crypto").counter().count());
+    }
+
+    private static Object keyValue(ILoggingEvent event, String key) {
+        List<KeyValuePair> pairs = event.getKeyValuePairs();
+        return pairs == null ? null : pairs.stream().filter(pair -> pair.key.equals(key)).map(pair -> pair.value).findFirst().orElse(null);
+    }
+}
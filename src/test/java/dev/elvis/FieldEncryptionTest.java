@@ -0,0 +1,115 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micronaut.json.JsonMapper;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@MicronautTest(environments = "mock-rabbitmq")
+class FieldEncryptionTest {
+
+    private static final ObjectMapper PLAIN_JSON = new ObjectMapper();
+
+    @Inject @Named("externalService") PayloadCodec wholeObjectCodec;
+    @Inject @Named("externalServiceFields") PayloadCodec fieldCodec;
+    @Inject EncryptionService encryptionService;
+    @Inject DecryptionService decryptionService;
+    @Inject JsonMapper defaultMapper;
+    @Inject EncryptedFieldSerde fieldSerde;
+
+    private final FieldEncryptedObject original = new FieldEncryptedObject("id-1", "value", 3, "secret");
+
+    @Test
+    @DisplayName("Should encrypt only @Encrypted fields, leaving the rest readable without any key")
+    void testFieldLevelRoundTrip() throws IOException {
+        byte[] json = encryptionService.serializeWithEncryptedFields(original, fieldCodec).block();
+
+        JsonNode plain = PLAIN_JSON.readTree(json); // A peer routing on id needs no decryption
+        assertEquals("id-1", plain.get("id").asText());
+        assertEquals("value", plain.get("value").asText());
+        assertEquals(3, plain.get("count").asInt());
+        assertNotEquals("secret", plain.get("sensitiveData").asText());
+
+        DecryptionResult<FieldEncryptedObject> result = decryptionService
+                .deserializeWithEncryptedFields(json, FieldEncryptedObject.class, fieldCodec).block();
+        assertEquals(original, result.getSuccessData());
+
+        byte[] error = encryptionService.serializeWithEncryptedFields(new ErrorDto("GONE", "expired", null), fieldCodec).block();
+        assertEquals("GONE", decryptionService.deserializeWithEncryptedFields(error, FieldEncryptedObject.class, fieldCodec)
+                .block().getErrorDetails().errorCode());
+    }
+
+    @Test
+    @DisplayName("Should leave fields plain inside a whole-object ciphertext and never write them plain elsewhere")
+    void testWholeObjectModeUnchanged() throws IOException {
+        ByteArrayOutputStream inside = new ByteArrayOutputStream();
+        wholeObjectCodec.write(inside, original);
+        assertEquals("{\"id\":\"id-1\",\"value\":\"value\",\"count\":3,\"sensitiveData\":\"secret\"}",
+                inside.toString(StandardCharsets.UTF_8)); // No double encryption
+
+        String ciphertext = encryptionService.serializeAndEncrypt(original, wholeObjectCodec).block();
+        assertEquals(original, decryptionService.decryptAndDeserialize(ciphertext, FieldEncryptedObject.class, wholeObjectCodec)
+                .block().getSuccessData());
+
+        // The framework's own mapper (HTTP bodies, RPC replies) has no envelope around it
+        String framework = new String(defaultMapper.writeValueAsBytes(original), StandardCharsets.UTF_8);
+        assertFalse(framework.contains("secret"), framework);
+        assertEquals(original, defaultMapper.readValue(framework, FieldEncryptedObject.class));
+    }
+
+    @Test
+    @DisplayName("Should fail deserialization when an encrypted field was tampered with")
+    void testTamperedField() throws IOException {
+        JsonNode json = PLAIN_JSON.readTree(encryptionService.serializeWithEncryptedFields(original, fieldCodec).block());
+        String field = json.get("sensitiveData").asText();
+        ((ObjectNode) json).put("sensitiveData",
+                (field.charAt(0) == 'A' ? 'B' : 'A') + field.substring(1));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> decryptionService
+                .deserializeWithEncryptedFields(PLAIN_JSON.writeValueAsBytes(json), FieldEncryptedObject.class, fieldCodec).block());
+        assertInstanceOf(DeserializationException.class, e);
+    }
+
+    @Test
+    @DisplayName("Should fail authentication when encrypted fields are swapped between records")
+    void testSwappedFieldsRejected() throws IOException {
+        FieldEncryptedObject other = new FieldEncryptedObject("id-2", "value", 3, "other secret");
+        JsonNode first = PLAIN_JSON.readTree(encryptionService.serializeWithEncryptedFields(original, fieldCodec).block());
+        JsonNode second = PLAIN_JSON.readTree(encryptionService.serializeWithEncryptedFields(other, fieldCodec).block());
+        String firstSecret = first.get("sensitiveData").asText();
+        ((ObjectNode) first).put("sensitiveData", second.get("sensitiveData").asText());
+        ((ObjectNode) second).put("sensitiveData", firstSecret);
+
+        for (JsonNode swapped : new JsonNode[] {first, second}) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> decryptionService
+                    .deserializeWithEncryptedFields(PLAIN_JSON.writeValueAsBytes(swapped), FieldEncryptedObject.class, fieldCodec).block());
+            assertInstanceOf(DeserializationException.class, e);
+        }
+    }
+
+    @Test
+    @DisplayName("Should bind each field ciphertext to its property name and record id")
+    void testCiphertextBoundToPropertyAndRecord() {
+        String ciphertext = fieldSerde.encrypt("secret", "sensitiveData", "id-1");
+
+        assertEquals("secret", fieldSerde.decrypt(ciphertext, "sensitiveData", "id-1"));
+        assertThrows(CryptoException.class, () -> fieldSerde.decrypt(ciphertext, "value", "id-1"));
+        assertThrows(CryptoException.class, () -> fieldSerde.decrypt(ciphertext, "sensitiveData", "id-2"));
+        assertThrows(CryptoException.class, () -> fieldSerde.decrypt(ciphertext, "sensitiveData", null));
+    }
+}
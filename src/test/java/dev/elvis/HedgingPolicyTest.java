@@ -0,0 +1,102 @@
+package dev.elvis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HedgingPolicyTest {
+
+    private ExternalServiceConfiguration.Hedging configuration;
+
+    @BeforeEach
+    void setUp() {
+        configuration = new ExternalServiceConfiguration.Hedging();
+        configuration.setEnabled(true);
+        configuration.setMinSamples(100);
+        configuration.setWindow(100);
+        configuration.setMinDelay(Duration.ofMillis(5));
+        configuration.setMaxDelay(Duration.ofMillis(50));
+        configuration.setBudget(1);
+    }
+
+    @Test
+    @DisplayName("Should send a hedge after the delay and take whichever answer comes first")
+    void testHedgeWins() {
+        HedgingPolicy policy = new HedgingPolicy(configuration, new PipelineMetrics(null));
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.execute("get", () -> calls.incrementAndGet() == 1
+                        ? Mono.just("primary").delayElement(Duration.ofSeconds(5))
+                        : Mono.just("hedge"))
+                .block(Duration.ofSeconds(2));
+
+        assertEquals("hedge", result);
+        assertEquals(2, calls.get());
+
+        // A fast answer or a fast error wins before the hedge is ever sent
+        calls.set(0);
+        assertEquals("fast", policy.execute("get", () -> {
+            calls.incrementAndGet();
+            return Mono.just("fast");
+        }).block());
+        assertThrows(IllegalStateException.class, () -> policy.execute("get", () -> {
+            calls.incrementAndGet();
+            return Mono.<String>error(new IllegalStateException("404"));
+        }).block());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should keep the hedge delay when hedges win repeatedly, sampling the cancelled primaries")
+    void testRepeatedHedgeWins() {
+        configuration.setMinSamples(10);
+        configuration.setWindow(10);
+        configuration.setMaxDelay(Duration.ofMillis(30));
+        HedgingPolicy policy = new HedgingPolicy(configuration, new PipelineMetrics(null));
+
+        for (int i = 0; i < 10; i++) {
+            AtomicInteger calls = new AtomicInteger();
+            assertEquals("hedge", policy.execute("get", () -> calls.incrementAndGet() == 1
+                            ? Mono.just("primary").delayElement(Duration.ofMillis(200))
+                            : Mono.just("hedge"))
+                    .block(Duration.ofSeconds(2)));
+        }
+
+        // Counting only the instant hedges would collapse the delay to min-delay and hedge every request
+        assertEquals(Duration.ofMillis(30), policy.hedgeDelay());
+    }
+
+    @Test
+    @DisplayName("Should derive the delay from the latency percentile and respect the hedge budget")
+    void testDelayAndBudget() {
+        HedgingPolicy policy = new HedgingPolicy(configuration, new PipelineMetrics(null));
+        assertEquals(Duration.ofMillis(50), policy.hedgeDelay(), "max-delay while warming up");
+
+        for (int i = 1; i <= 100; i++) {
+            policy.recordLatency(Duration.ofMillis(i % 50).toNanos()); // 0..49ms, p95 = 47ms
+        }
+        assertEquals(Duration.ofMillis(47), policy.hedgeDelay());
+        for (int i = 0; i < 100; i++) {
+            policy.recordLatency(Duration.ofMillis(1).toNanos());
+        }
+        // Clamped to min-delay rather than hedging nearly everything
+        assertEquals(Duration.ofMillis(5), policy.hedgeDelay());
+
+        configuration.setBudget(0);
+        HedgingPolicy noBudget = new HedgingPolicy(configuration, new PipelineMetrics(null));
+        AtomicInteger calls = new AtomicInteger();
+        String result = noBudget.execute("get", () -> calls.incrementAndGet() == 1
+                        ? Mono.just("primary").delayElement(Duration.ofMillis(200))
+                        : Mono.just("hedge"))
+                .block(Duration.ofSeconds(2));
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,153 @@
+package dev.elvis;
+
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.test.support.TestPropertyProvider;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest(environments = "mock-rabbitmq")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HttpExternalServiceClientTest implements TestPropertyProvider {
+
+    private final ExternalServiceStub stub = ExternalServiceStub.start();
+
+    @Inject
+    MyExternalServiceClient client;
+
+    @Override
+    public Map<String, String> getProperties() {
+        return Map.of(
+                "micronaut.http.services.external-service.url", stub.url(),
+                "external-service.hedging.enabled", "true",
+                // Stay on max-delay for the whole test instead of a percentile of a handful of samples
+                "external-service.hedging.min-samples", "100000",
+                "external-service.hedging.max-delay", "100ms",
+                "external-service.hedging.budget", "1");
+    }
+
+    @AfterAll
+    void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void resetStub() {
+        stub.reset();
+    }
+
+    @Test
+    @DisplayName("Should fetch JSON and binary wrappers and surface error statuses as HttpClientResponseException")
+    void testGetResource() {
+        byte[] ciphertext = randomBytes(300);
+        stub.put("a b", new BinaryCryptoWrapper(ciphertext, new KeyId("k1", 3), PayloadCompressor.DEFLATE));
+
+        assertInstanceOf(HttpExternalServiceClient.class, client);
+        CryptoWrapper json = client.getEncryptedResource("a b").block();
+        assertEquals(Base64.getEncoder().encodeToString(ciphertext), json.data());
+        assertEquals(new KeyId("k1", 3), json.key());
+
+        // Raw body, metadata from the x-key-* / x-payload-encoding headers
+        BinaryCryptoWrapper binary = client.getEncryptedResourceBinary("a b").block();
+        assertArrayEquals(ciphertext, binary.data());
+        assertEquals(new KeyId("k1", 3), binary.key());
+        assertEquals(PayloadCompressor.DEFLATE, binary.encoding());
+
+        HttpClientResponseException notFound = assertThrows(HttpClientResponseException.class,
+                () -> client.getEncryptedResource("missing").block());
+        assertEquals(404, notFound.getStatus().getCode());
+    }
+
+    @Test
+    @DisplayName("Should answer a slow GET from the hedged request once the hedge delay has passed")
+    void testHedgedGet() {
+        stub.put("slow", new BinaryCryptoWrapper(randomBytes(64)));
+        stub.delayNextGets(Duration.ofSeconds(2));
+
+        long startedAt = System.nanoTime();
+        CryptoWrapper wrapper = client.getEncryptedResource("slow").block();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+
+        assertEquals(64, Base64.getDecoder().decode(wrapper.data()).length);
+        assertEquals(2, stub.gets(), "the slow request should have been hedged");
+        assertTrue(elapsedMillis < 1500, "hedge should win long before the 2s primary, took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    @DisplayName("Should post JSON and binary wrappers with their metadata")
+    void testPost() {
+        byte[] ciphertext = randomBytes(100);
+
+        client.postEncryptedResource(new CryptoWrapper(Base64.getEncoder().encodeToString(ciphertext), new KeyId("k2", 1), null)).block();
+        client.postEncryptedResourceBinary(new BinaryCryptoWrapper(ciphertext, new KeyId("k2", 1), PayloadCompressor.DEFLATE)).block();
+
+        assertEquals(2, stub.posts().size());
+        ExternalServiceStub.Recorded json = stub.posts().get(0);
+        assertTrue(json.contentType().startsWith(WireFormat.JSON));
+        assertTrue(new String(json.body()).contains("\"key_id\":\"k2\""));
+
+        ExternalServiceStub.Recorded binary = stub.posts().get(1);
+        assertEquals(WireFormat.OCTET_STREAM, binary.contentType());
+        assertArrayEquals(ciphertext, binary.body());
+        assertEquals("k2", binary.headers().getFirst(WireFormat.KEY_ID_HEADER));
+        assertEquals("1", binary.headers().getFirst(WireFormat.KEY_VERSION_HEADER));
+        assertEquals(PayloadCompressor.DEFLATE, binary.headers().getFirst(WireFormat.PAYLOAD_ENCODING_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should post envelopes to the bulk endpoint and read back the rejected records")
+    void testBulkPost() {
+        CryptoWrapper envelope = new CryptoWrapper(Base64.getEncoder().encodeToString(randomBytes(200)));
+        stub.bulkResponse(new BulkPostResult(List.of(new BulkPostResult.Rejection(1, new ErrorDto("INVALID", "bad id", null)))));
+
+        BulkPostResult rejected = client.postEncryptedResources(envelope, 3).block();
+        assertEquals(1, rejected.rejectedOrEmpty().size());
+        assertEquals(1, rejected.rejectedOrEmpty().get(0).index());
+        assertEquals("INVALID", rejected.rejectedOrEmpty().get(0).error().errorCode());
+        // No body: everything was accepted
+        assertEquals(List.of(), client.postEncryptedResources(envelope, 3).block().rejectedOrEmpty());
+
+        ExternalServiceStub.Recorded post = stub.posts().get(0);
+        assertTrue(post.contentType().startsWith(WireFormat.JSON));
+        assertEquals("3", post.headers().getFirst(WireFormat.RECORD_COUNT_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should stream a chunked resource without hedging it")
+    void testStream() {
+        byte[] ciphertext = randomBytes(10_000);
+        stub.put("big", new BinaryCryptoWrapper(ciphertext));
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        for (ByteBuffer chunk : client.getEncryptedResourceStream("big").toIterable()) {
+            received.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+
+        assertArrayEquals(ciphertext, received.toByteArray());
+        assertEquals(1, stub.gets());
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -1,8 +1,10 @@
 package dev.elvis;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
 import io.micronaut.context.ApplicationContext;
+import io.micronaut.rabbitmq.bind.RabbitAcknowledgement;
+import io.micronaut.rabbitmq.connect.ChannelPool;
 import io.micronaut.test.annotation.MockBean;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import jakarta.inject.Inject;
@@ -13,9 +15,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
@@ -24,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -39,17 +45,17 @@ class MyRpcListenerTest {
     @Inject
     MyRpcListener listener; // Inject the bean under test
 
-    // Inject the *real* named ObjectMapper bean we want to verify is used for replies
+    // Inject the *real* named codec bean we want to verify is used for replies
     @Inject
-    @Named("externalServiceObjectMapper")
-    ObjectMapper externalServiceObjectMapper;
+    @Named("externalService")
+    PayloadCodec externalServiceCodec;
 
     // Inject the ApplicationContext to potentially grab beans if needed (optional)
     @Inject
     ApplicationContext applicationContext;
 
     // Mock the EncryptionService - we don't want real encryption,
-    // just want to verify what object and mapper it's called with.
+    // just want to verify what object and codec it's called with.
     @Inject
     EncryptionService encryptionServiceMock;
 
@@ -61,24 +67,27 @@ class MyRpcListenerTest {
 
     // Capture arguments passed to the mocked service
     ArgumentCaptor<Object> objectArgumentCaptor;
-    ArgumentCaptor<ObjectMapper> mapperArgumentCaptor;
+    ArgumentCaptor<PayloadCodec> codecArgumentCaptor;
+    // The listener settles every delivery through this
+    RabbitAcknowledgement acknowledgement;
 
     @BeforeEach
     void setUp() {
         // Reset mock before each test (good practice)
         reset(encryptionServiceMock);
+        acknowledgement = mock(RabbitAcknowledgement.class);
 
         // Setup argument captors
         objectArgumentCaptor = ArgumentCaptor.forClass(Object.class);
-        mapperArgumentCaptor = ArgumentCaptor.forClass(ObjectMapper.class);
+        codecArgumentCaptor = ArgumentCaptor.forClass(PayloadCodec.class);
 
         // Define mock behavior: when serializeAndEncrypt is called, capture args and return dummy success
-        when(encryptionServiceMock.serializeAndEncrypt(objectArgumentCaptor.capture(), mapperArgumentCaptor.capture()))
+        when(encryptionServiceMock.serializeAndEncrypt(objectArgumentCaptor.capture(), codecArgumentCaptor.capture()))
                 .thenReturn(Mono.just("dummy-encrypted-base64-string"));
     }
 
     @Test
-    @DisplayName("Should process request, decode field, and call EncryptionService with correct object and CAMEL_CASE mapper")
+    @DisplayName("Should process request, decode field, and call EncryptionService with correct object and CAMEL_CASE codec")
     void testProcessRpcRequest_SuccessFlow() throws Exception {
         // --- Arrange ---
 
@@ -102,16 +111,16 @@ class MyRpcListenerTest {
 
         // --- Act ---
         // Call the listener method directly
-        CryptoWrapper result = listener.processRpcRequestAutoDeserializeSnake(inputRequestData, mockProperties).block(); // Using block() for simplicity in test
+        CryptoWrapper result = listener.processRpcRequestAutoDeserializeSnake(inputRequestData, mockProperties, acknowledgement).block(); // Using block() for simplicity in test
 
         // --- Assert ---
 
         // 1. Verify EncryptionService was called exactly once
-        verify(encryptionServiceMock, times(1)).serializeAndEncrypt(any(), any(ObjectMapper.class));
+        verify(encryptionServiceMock, times(1)).serializeAndEncrypt(any(), any(PayloadCodec.class));
 
         // 2. Get captured arguments
         Object capturedObject = objectArgumentCaptor.getValue();
-        ObjectMapper capturedMapper = mapperArgumentCaptor.getValue();
+        PayloadCodec capturedCodec = codecArgumentCaptor.getValue();
 
         // 3. Verify the object passed to encryption service
         assertNotNull(capturedObject, "Object passed to encryption service should not be null");
@@ -125,14 +134,16 @@ class MyRpcListenerTest {
         assertEquals(inputRequestData.value(), objectToEncrypt.value());
         assertEquals(inputRequestData.count(), objectToEncrypt.count());
 
-        // 4. Verify the ObjectMapper instance passed to encryption service
-        assertNotNull(capturedMapper, "ObjectMapper passed to encryption service should not be null");
+        // 4. Verify the codec instance passed to encryption service
+        assertNotNull(capturedCodec, "Codec passed to encryption service should not be null");
         // Check if it's the exact bean instance we injected (verifies @Named injection worked correctly)
-        assertSame(externalServiceObjectMapper, capturedMapper, "Should use the @Named('externalServiceObjectMapper') bean");
+        assertSame(externalServiceCodec, capturedCodec, "Should use the @Named('externalService') codec");
 
-        // 5. Verify the configuration of the captured mapper (indirectly)
-        // Serialize the captured object *using the captured mapper* to check naming strategy
-        String jsonOutput = capturedMapper.writeValueAsString(objectToEncrypt);
+        // 5. Verify the configuration of the captured codec (indirectly)
+        // Serialize the captured object *using the captured codec* to check naming strategy
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        capturedCodec.write(json, objectToEncrypt);
+        String jsonOutput = json.toString(StandardCharsets.UTF_8);
         assertTrue(jsonOutput.contains("\"id\":\"id-123\""), "JSON output should use CAMEL_CASE keys (id)");
         assertTrue(jsonOutput.contains("\"value\":\"Test Value\""), "JSON output should use CAMEL_CASE keys (value)");
         assertTrue(jsonOutput.contains("\"count\":99"), "JSON output should use CAMEL_CASE keys (count)");
@@ -142,10 +153,11 @@ class MyRpcListenerTest {
         // 6. Verify the listener's return value matches the mock's return
         assertNotNull(result);
         assertEquals("dummy-encrypted-base64-string", result.data(), "Listener should return the encrypted string from the service");
+        verify(acknowledgement).ack();
     }
 
     @Test
-    @DisplayName("Should return empty Mono if decoding fails")
+    @DisplayName("Should reject without requeue if decoding fails")
     void testProcessRpcRequest_DecodingFailure() {
         // --- Arrange ---
         SomeSpecificObject inputRequestData = new SomeSpecificObject(
@@ -154,26 +166,105 @@ class MyRpcListenerTest {
         AMQP.BasicProperties mockProperties = new AMQP.BasicProperties.Builder().correlationId("corr-fail").build();
 
         // --- Act ---
-        Mono<CryptoWrapper> resultMono = listener.processRpcRequestAutoDeserializeSnake(inputRequestData, mockProperties);
+        CryptoWrapper result = listener.processRpcRequestAutoDeserializeSnake(inputRequestData, mockProperties, acknowledgement).block();
 
         // --- Assert ---
-        // Verify the Mono completes empty (no reply sent)
-        assertNull(resultMono.block(), "Mono should complete empty on decoding failure");
+        // Verify the message is rejected (dead-lettered) instead of the reply being dropped, and not requeued
+        assertNull(result);
+        verify(acknowledgement).nack(false, false);
+        verify(acknowledgement, never()).ack();
         // Verify encryption service was NOT called
-        verify(encryptionServiceMock, never()).serializeAndEncrypt(any(), any());
+        verify(encryptionServiceMock, never()).serializeAndEncrypt(any(), any(PayloadCodec.class));
     }
 
     @Test
-    @DisplayName("Should return empty Mono if input data is null")
+    @DisplayName("Should reject without requeue if input data is null")
     void testProcessRpcRequest_NullInput() {
         // --- Arrange ---
         AMQP.BasicProperties mockProperties = new AMQP.BasicProperties.Builder().correlationId("corr-null").build();
 
         // --- Act ---
-        Mono<CryptoWrapper> resultMono = listener.processRpcRequestAutoDeserializeSnake(null, mockProperties); // Pass null input
+        Mono<CryptoWrapper> resultMono = listener.processRpcRequestAutoDeserializeSnake(null, mockProperties, acknowledgement); // Pass null input
 
         // --- Assert ---
-        assertNull(resultMono.block(), "Mono should complete empty on null input");
-        verify(encryptionServiceMock, never()).serializeAndEncrypt(any(), any());
+        assertNull(resultMono.block());
+        verify(acknowledgement).nack(false, false);
+        verify(encryptionServiceMock, never()).serializeAndEncrypt(any(), any(PayloadCodec.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should publish a raw ciphertext reply with key and encoding headers when the requester accepts octet-stream")
+    void testProcessRpcRequest_BinaryReply() throws Exception {
+        byte[] ciphertext = {1, 2, 3, 4};
+        when(encryptionServiceMock.serializeAndEncryptToWrapper(any(), any(PayloadCodec.class)))
+                .thenReturn(Mono.just(new BinaryCryptoWrapper(ciphertext, new KeyId("key-1", 3), "deflate")));
+        Channel channel = mock(Channel.class);
+        ChannelPool channelPool = mock(ChannelPool.class);
+        when(channelPool.getChannel()).thenReturn(channel);
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .correlationId("corr-bin")
+                .replyTo("test-reply-queue")
+                .headers(Map.of(WireFormat.ACCEPT_HEADER, WireFormat.OCTET_STREAM))
+                .build();
+        SomeSpecificObject request = new SomeSpecificObject("id-bin", "Binary", 1,
+                Base64.getEncoder().encodeToString("secret".getBytes(StandardCharsets.UTF_8)));
+
+        ChannelPool previous = listener.channelPool; // Null here: rabbitmq.enabled=false
+        listener.channelPool = channelPool;
+        try {
+            // Published by the listener itself, so nothing is left for the framework to send
+            assertNull(listener.processRpcRequestAutoDeserializeSnake(request, properties, acknowledgement).block());
+        } finally {
+            listener.channelPool = previous;
+        }
+
+        ArgumentCaptor<AMQP.BasicProperties> replyProperties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        ArgumentCaptor<byte[]> replyBody = ArgumentCaptor.forClass(byte[].class);
+        verify(channel).basicPublish(eq(""), eq("test-reply-queue"), replyProperties.capture(), replyBody.capture());
+        verify(channelPool).returnChannel(channel);
+        verify(acknowledgement).ack(); // Only after the reply was published
+        verify(encryptionServiceMock, never()).serializeAndEncrypt(any(), any(PayloadCodec.class));
+        assertEquals("corr-bin", replyProperties.getValue().getCorrelationId());
+        assertEquals(WireFormat.OCTET_STREAM, replyProperties.getValue().getContentType());
+
+        BinaryCryptoWrapper reply = WireFormat.fromAmqp(replyProperties.getValue(), replyBody.getValue());
+        assertArrayEquals(ciphertext, reply.data());
+        assertEquals(new KeyId("key-1", 3), reply.key());
+        assertEquals("deflate", reply.encoding());
+    }
+
+    @Test
+    @DisplayName("Should answer through the framework when the delivery has no properties, even with a channel pool")
+    void testProcessRpcRequest_NullPropertiesWithChannelPool() {
+        SomeSpecificObject request = new SomeSpecificObject("id-np", "No properties", 1,
+                Base64.getEncoder().encodeToString("secret".getBytes(StandardCharsets.UTF_8)));
+
+        ChannelPool previous = listener.channelPool;
+        listener.channelPool = mock(ChannelPool.class);
+        CryptoWrapper result;
+        try {
+            result = listener.processRpcRequestAutoDeserializeSnake(request, null, acknowledgement).block();
+        } finally {
+            listener.channelPool = previous;
+        }
+
+        assertNotNull(result);
+        assertEquals("dummy-encrypted-base64-string", result.data());
+        verify(acknowledgement).ack();
+    }
+
+    @Test
+    @DisplayName("Should requeue a request shed by the bounded crypto strategy instead of dead-lettering it")
+    void testProcessRpcRequest_ShedIsRequeued() {
+        when(encryptionServiceMock.serializeAndEncrypt(any(), any(PayloadCodec.class)))
+                .thenReturn(Mono.error(new CryptoOverloadedException("Crypto execution queue is full, request shed", null)));
+        SomeSpecificObject request = new SomeSpecificObject("id-shed", "Shed", 1,
+                Base64.getEncoder().encodeToString("secret".getBytes(StandardCharsets.UTF_8)));
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder().correlationId("corr-shed").replyTo("test-reply-queue").build();
+
+        assertNull(listener.processRpcRequestAutoDeserializeSnake(request, properties, acknowledgement).block());
+
+        verify(acknowledgement).nack(false, true);
+        verify(acknowledgement, never()).ack();
+    }
+}
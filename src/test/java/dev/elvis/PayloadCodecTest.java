@@ -0,0 +1,111 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.type.Argument;
+import io.micronaut.serde.config.DeserializationConfiguration;
+import io.micronaut.serde.config.SerdeConfiguration;
+import io.micronaut.serde.config.SerializationConfiguration;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest(environments = "mock-rabbitmq")
+class PayloadCodecTest {
+
+    @Inject @Named("externalService") PayloadCodec codec;
+    @Inject @Named("externalServiceObjectMapper") ObjectMapper jacksonMapper;
+    @Inject EncryptionService encryptionService;
+    @Inject DecryptionService decryptionService;
+    @Inject io.micronaut.serde.ObjectMapper serdeMapper;
+    @Inject SerdeConfiguration serdeConfiguration;
+    @Inject SerializationConfiguration serializationConfiguration;
+    @Inject DeserializationConfiguration deserializationConfiguration;
+
+    private static String write(PayloadCodec codec, Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(out, value);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should write exactly the JSON of the reflective CAMEL_CASE mapper")
+    void testSameJsonAsJackson() throws IOException {
+        for (Object value : new Object[]{
+                new SomeSpecificObject("id-1", "value", 3, "secret"),
+                new SomeSpecificObject("id-2", null, 0, null), // Nulls are written, not dropped
+                new ErrorDto("NOT_FOUND", "missing", Map.of("retryAfter", 5)),
+                new CryptoWrapper("ZGF0YQ==")}) { // @JsonInclude(NON_NULL) still applies
+            assertEquals(jacksonMapper.writeValueAsString(value), write(codec, value));
+        }
+        assertEquals("serde-lower-camel-case", codec.name());
+    }
+
+    @Test
+    @DisplayName("Should interoperate with the Jackson overloads and honour a per-codec naming strategy")
+    void testRoundTripAndNaming() throws IOException {
+        SomeSpecificObject original = new SomeSpecificObject("id-1", "value", 3, "secret");
+
+        String viaSerde = encryptionService.serializeAndEncrypt(original, codec).block();
+        assertEquals(original, decryptionService.decryptAndDeserialize(viaSerde, SomeSpecificObject.class, jacksonMapper).block().getSuccessData());
+        String viaJackson = encryptionService.serializeAndEncrypt(original, jacksonMapper).block();
+        assertEquals(original, decryptionService.decryptAndDeserialize(viaJackson, SomeSpecificObject.class, codec).block().getSuccessData());
+
+        String error = encryptionService.serializeAndEncrypt(new ErrorDto("GONE", "expired", null), codec).block();
+        assertEquals("GONE", decryptionService.decryptAndDeserialize(error, SomeSpecificObject.class, codec).block().getErrorDetails().errorCode());
+
+        PayloadCodec snakeCase = SerdePayloadCodec.create(serdeMapper, serdeConfiguration, serializationConfiguration,
+                deserializationConfiguration, "SNAKE_CASE");
+        assertTrue(write(snakeCase, original).contains("\"sensitive_data\":\"secret\""));
+        assertTrue(write(codec, original).contains("\"sensitiveData\":\"secret\""), "Codecs must not share naming");
+    }
+
+    @Test
+    @DisplayName("Should encrypt and decrypt generic types through typed handles on either codec")
+    void testTypedHandles() {
+        List<SomeSpecificObject> records = List.of(new SomeSpecificObject("id-1", "a", 1, "s1"), new SomeSpecificObject("id-2", "b", 2, null));
+
+        EncryptionService.Encoder<List<SomeSpecificObject>> encoder = encryptionService.encoder(Argument.listOf(SomeSpecificObject.class), codec);
+        DecryptionService.Decoder<List<SomeSpecificObject>> decoder = decryptionService.decoder(Argument.listOf(SomeSpecificObject.class), codec);
+        String encrypted = encoder.encrypt(records).block();
+        assertEquals(records, decoder.decrypt(encrypted).block().getSuccessData());
+        assertEquals(records, decoder.decrypt(encoder.encryptEnvelope(records).block()).block().getSuccessData());
+
+        // Jackson: TypeReference, and the element type survives (no LinkedHashMap elements)
+        DecryptionService.Decoder<List<SomeSpecificObject>> jacksonDecoder =
+                decryptionService.decoder(new TypeReference<List<SomeSpecificObject>>() {}, jacksonMapper);
+        assertEquals(records, jacksonDecoder.decrypt(encrypted).block().getSuccessData());
+        String viaJackson = encryptionService.encoder(new TypeReference<List<SomeSpecificObject>>() {}, jacksonMapper).encrypt(records).block();
+        assertEquals(records, decoder.decrypt(viaJackson).block().getSuccessData());
+
+        // Error payloads still win, and a single-object type still rejects a root array
+        String error = encryptionService.serializeAndEncrypt(new ErrorDto("GONE", "expired", null), codec).block();
+        assertEquals("GONE", decoder.decrypt(error).block().getErrorDetails().errorCode());
+        assertThrows(DeserializationException.class,
+                () -> decryptionService.decryptAndDeserialize(encrypted, SomeSpecificObject.class, codec).block());
+    }
+
+    @Test
+    @DisplayName("Should resolve Jackson readers and writers once per mapper and type")
+    void testJacksonBindingsCached() {
+        JacksonPayloadCodec jackson = JacksonPayloadCodec.of(jacksonMapper);
+        assertSame(jackson, JacksonPayloadCodec.of(jacksonMapper));
+        assertSame(jackson.bind(Argument.listOf(SomeSpecificObject.class)), jackson.bind(Argument.listOf(SomeSpecificObject.class)));
+        assertNotSame(jackson.bind(Argument.listOf(SomeSpecificObject.class)), jackson.bind(Argument.listOf(ErrorDto.class)));
+        assertNotSame(jackson, JacksonPayloadCodec.of(new ObjectMapper()));
+    }
+}
@@ -0,0 +1,93 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayloadCompressorTest {
+
+    private final ObjectMapper mapper = new ObjectMapperFactory().externalServiceObjectMapper();
+    private CompressionConfiguration configuration;
+    private CryptoFixture crypto;
+    private EncryptionService encryptionService;
+    private DecryptionService decryptionService;
+
+    @BeforeEach
+    void setUp() {
+        configuration = new CompressionConfiguration();
+        configuration.setEnabled(true);
+        configuration.setMinSize(256);
+        crypto = new CryptoFixture(new BufferPool(new BufferPoolConfiguration()), configuration);
+        encryptionService = crypto.encryptionService;
+        decryptionService = crypto.decryptionService;
+    }
+
+    @AfterEach
+    void tearDown() {
+        crypto.close();
+    }
+
+    @Test
+    @DisplayName("Should deflate payloads above the threshold, flag them and restore them on decryption")
+    void testCompressedRoundTrip() {
+        SomeSpecificObject large = new SomeSpecificObject("id-1", "value", 1, "repetitive text ".repeat(200));
+        SomeSpecificObject small = new SomeSpecificObject("id-2", "value", 2, "short");
+
+        CryptoWrapper compressed = encryptionService.serializeAndEncryptEnvelope(large, mapper).block();
+        CryptoWrapper uncompressed = encryptionService.serializeAndEncryptEnvelope(small, mapper).block();
+
+        assertEquals(PayloadCompressor.DEFLATE, compressed.encoding());
+        assertTrue(compressed.data().length() < "repetitive text ".length() * 200 / 4, "Ciphertext should shrink with the JSON");
+        assertNull(uncompressed.encoding());
+        assertEquals(large, decryptionService.decryptAndDeserialize(compressed, SomeSpecificObject.class, mapper).block().getSuccessData());
+        assertEquals(small, decryptionService.decryptAndDeserialize(uncompressed, SomeSpecificObject.class, mapper).block().getSuccessData());
+    }
+
+    @Test
+    @DisplayName("Should fail authentication when the compression flag is stripped or added")
+    void testEncodingAuthenticated() {
+        CryptoWrapper compressed = encryptionService.serializeAndEncryptEnvelope(
+                new SomeSpecificObject("id-1", "value", 1, "repetitive text ".repeat(200)), mapper).block();
+        CryptoWrapper uncompressed = encryptionService.serializeAndEncryptEnvelope(
+                new SomeSpecificObject("id-2", "value", 2, "short"), mapper).block();
+        CryptoWrapper stripped = new CryptoWrapper(compressed.data(), compressed.key(), null);
+        CryptoWrapper added = new CryptoWrapper(uncompressed.data(), uncompressed.key(), PayloadCompressor.DEFLATE);
+
+        RuntimeException strippedError = assertThrows(RuntimeException.class,
+                () -> decryptionService.decryptAndDeserialize(stripped, SomeSpecificObject.class, mapper).block());
+        RuntimeException addedError = assertThrows(RuntimeException.class,
+                () -> decryptionService.decryptAndDeserialize(added, SomeSpecificObject.class, mapper).block());
+        assertEquals(PipelineException.Code.CRYPTO, PipelineException.codeOf(strippedError));
+        assertEquals(PipelineException.Code.CRYPTO, PipelineException.codeOf(addedError));
+    }
+
+    @Test
+    @DisplayName("Should skip incompressible input and reject corrupt or oversized inflation")
+    void testLimits() {
+        PayloadCompressor compressor = new PayloadCompressor(configuration);
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        assertNull(compressor.compress(ByteBuffer.wrap(random)), "Incompressible input must be sent as is");
+
+        byte[] zeros = new byte[64 * 1024];
+        ByteBuffer bomb = compressor.compress(ByteBuffer.wrap(zeros));
+        configuration.setMaxInflatedSize(16 * 1024);
+        assertThrows(DeserializationException.class, () -> compressor.decompress(bomb.duplicate()));
+
+        configuration.setMaxInflatedSize(1024 * 1024);
+        assertEquals(zeros.length, compressor.decompress(bomb.duplicate()).remaining());
+        byte[] truncated = Arrays.copyOf(bomb.array(), bomb.remaining() / 2);
+        assertThrows(DeserializationException.class, () -> compressor.decompress(ByteBuffer.wrap(truncated)));
+    }
+}
@@ -0,0 +1,205 @@
+package dev.elvis;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import io.micronaut.json.JsonMapper;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@MicronautTest(environments = "mock-rabbitmq")
+class RpcBatchConsumerTest {
+
+    @Inject RpcRequestHandler requestHandler;
+    @Inject JsonMapper jsonMapper;
+    @Inject DecryptionService decryptionService;
+    @Inject BufferPool bufferPool;
+
+    // In-process stand-in for the broker: records publishes, acks and nacks
+    private Channel channel;
+    private RpcBatchConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        channel = mock(Channel.class);
+        consumer = new RpcBatchConsumer();
+        consumer.requestHandler = requestHandler;
+        consumer.jsonMapper = jsonMapper;
+        consumer.configuration = new RpcConsumerConfiguration();
+    }
+
+    @AfterEach
+    void noLeakedBuffers() {
+        assertEquals(0, bufferPool.outstanding(), bufferPool::leakReport);
+    }
+
+    private Delivery delivery(long tag, String replyTo, byte[] body) {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .correlationId("corr-" + tag)
+                .replyTo(replyTo)
+                .build();
+        return new Delivery(new Envelope(tag, false, "", MyRpcListener.REQUEST_QUEUE), properties, body);
+    }
+
+    private byte[] request(String id) throws IOException {
+        String encoded = Base64.getEncoder().encodeToString(("secret " + id).getBytes(StandardCharsets.UTF_8));
+        return jsonMapper.writeValueAsBytes(new SomeSpecificObject(id, "value", 1, encoded));
+    }
+
+    @Test
+    @DisplayName("Should reply to every request and settle the batch with a single multi-ack")
+    void testBatchMultiAck() throws IOException {
+        List<Delivery> batch = new ArrayList<>();
+        for (int tag = 1; tag <= 10; tag++) {
+            batch.add(delivery(tag, "reply-queue", request("id-" + tag)));
+        }
+
+        consumer.processBatch(channel, batch).block();
+
+        ArgumentCaptor<AMQP.BasicProperties> replyProperties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        ArgumentCaptor<byte[]> replyBodies = ArgumentCaptor.forClass(byte[].class);
+        verify(channel, times(10)).basicPublish(eq(""), eq("reply-queue"), replyProperties.capture(), replyBodies.capture());
+        assertEquals("corr-1", replyProperties.getAllValues().get(0).getCorrelationId());
+        assertNotNull(jsonMapper.readValue(replyBodies.getValue(), CryptoWrapper.class).data());
+        verify(channel, times(1)).basicAck(10, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Should dead-letter malformed requests and multi-ack the successful ones afterwards")
+    void testFailedDeliveriesAreNacked() throws IOException {
+        List<Delivery> batch = List.of(
+                delivery(1, "reply-queue", request("id-1")),
+                delivery(2, "reply-queue", "{not json".getBytes(StandardCharsets.UTF_8)),
+                delivery(3, null, request("id-3")), // No replyTo: processed and acked without a reply
+                delivery(4, "reply-queue", jsonMapper.writeValueAsBytes(new SomeSpecificObject("id-4", "v", 1, "!!not-base64!!"))));
+
+        consumer.processBatch(channel, batch).block();
+
+        verify(channel, times(1)).basicPublish(anyString(), anyString(), any(), any(byte[].class));
+        InOrder settlement = inOrder(channel);
+        settlement.verify(channel).basicNack(2, false, false);
+        settlement.verify(channel).basicNack(4, false, false);
+        settlement.verify(channel).basicAck(3, true);
+    }
+
+    @Test
+    @DisplayName("Should reply with raw ciphertext when the requester accepts application/octet-stream")
+    void testBinaryReply() throws IOException {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .correlationId("corr-1")
+                .replyTo("reply-queue")
+                .headers(Map.of(WireFormat.ACCEPT_HEADER, WireFormat.OCTET_STREAM))
+                .build();
+        Delivery delivery = new Delivery(new Envelope(1, false, "", MyRpcListener.REQUEST_QUEUE), properties, request("id-1"));
+
+        consumer.processBatch(channel, List.of(delivery)).block();
+
+        ArgumentCaptor<AMQP.BasicProperties> replyProperties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        ArgumentCaptor<byte[]> replyBodies = ArgumentCaptor.forClass(byte[].class);
+        verify(channel).basicPublish(eq(""), eq("reply-queue"), replyProperties.capture(), replyBodies.capture());
+        assertEquals(WireFormat.OCTET_STREAM, replyProperties.getValue().getContentType());
+        assertNull(replyProperties.getValue().getContentEncoding()); // Compression is off by default
+
+        BinaryCryptoWrapper reply = WireFormat.fromAmqp(replyProperties.getValue(), replyBodies.getValue());
+        DecryptionResult<SomeSpecificObject> result = decryptionService
+                .decryptAndDeserialize(reply, SomeSpecificObject.class, requestHandler.externalServiceCodec)
+                .block();
+        assertNotNull(result);
+        assertEquals("id-1", result.getSuccessData().id());
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    @DisplayName("Should reply with field-level encrypted JSON when the requester opts in")
+    void testFieldLevelReply() throws IOException {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .correlationId("corr-1")
+                .replyTo("reply-queue")
+                .headers(Map.of(WireFormat.ENCRYPTION_HEADER, WireFormat.FIELD_LEVEL))
+                .build();
+        Delivery delivery = new Delivery(new Envelope(1, false, "", MyRpcListener.REQUEST_QUEUE), properties, request("id-1"));
+
+        consumer.processBatch(channel, List.of(delivery)).block();
+
+        ArgumentCaptor<AMQP.BasicProperties> replyProperties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        ArgumentCaptor<byte[]> replyBodies = ArgumentCaptor.forClass(byte[].class);
+        verify(channel).basicPublish(eq(""), eq("reply-queue"), replyProperties.capture(), replyBodies.capture());
+        assertTrue(WireFormat.acceptsFieldLevel(replyProperties.getValue()));
+        String json = new String(replyBodies.getValue(), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"id\":\"id-1\""), json);
+        assertFalse(json.contains("secret id-1"), json);
+
+        DecryptionResult<FieldEncryptedObject> result = decryptionService
+                .deserializeWithEncryptedFields(replyBodies.getValue(), FieldEncryptedObject.class, requestHandler.externalServiceFieldCodec)
+                .block();
+        assertNotNull(result);
+        assertEquals("secret id-1", result.getSuccessData().sensitiveData());
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    @DisplayName("Should keep consuming when a batch closes while the previous one is still being processed")
+    void testBatchSlowerThanMaxWait() throws Exception {
+        consumer.configuration.setBatchSize(2);
+        consumer.configuration.setBatchMaxWait(Duration.ofMillis(10));
+        RpcRequestHandler slowHandler = mock(RpcRequestHandler.class);
+        // Each batch takes five times batch-max-wait
+        when(slowHandler.handle(any(), anyString(), any()))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(50)).thenReturn(new CryptoWrapper("ciphertext")));
+        consumer.requestHandler = slowHandler;
+        ArgumentCaptor<Consumer> broker = ArgumentCaptor.forClass(Consumer.class);
+        when(channel.basicConsume(eq(MyRpcListener.REQUEST_QUEUE), eq(false), broker.capture())).thenReturn("consumer-1");
+
+        Disposable consuming = consumer.consume(channel);
+        try {
+            for (long tag = 1; tag <= 6; tag++) {
+                Delivery delivery = delivery(tag, null, request("id-" + tag));
+                broker.getValue().handleDelivery("consumer-1", delivery.getEnvelope(), delivery.getProperties(), delivery.getBody());
+                Thread.sleep(15); // Past batch-max-wait, so each delivery closes a batch while another is processing
+            }
+
+            verify(channel, timeout(5000)).basicAck(6, true);
+        } finally {
+            consuming.dispose();
+        }
+        verify(channel, never()).basicRecover(anyBoolean());
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+}
@@ -0,0 +1,155 @@
+package dev.elvis;
+
+import io.micronaut.context.annotation.Property;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@MicronautTest(environments = "mock-rabbitmq")
+@Property(name = "rpc.idempotency.enabled", value = "true")
+class RpcIdempotencyTest {
+
+    @Inject RpcRequestHandler requestHandler;
+    @Inject RpcIdempotency idempotency;
+
+    private final SomeSpecificObject request = new SomeSpecificObject("id-1", "value", 1,
+            Base64.getEncoder().encodeToString("secret".getBytes(StandardCharsets.UTF_8)));
+
+    @Test
+    @DisplayName("Should answer a redelivered request with the first reply of the same wire format")
+    void testRedeliveryReplaysReply() {
+        CryptoWrapper first = requestHandler.handle(request, "cid-replay", "reply-queue").block();
+        // AES-GCM uses a fresh nonce per encryption, so equal ciphertext means it was not encrypted again
+        assertEquals(first, requestHandler.handle(request, "cid-replay", "reply-queue").block());
+        assertNotEquals(first.data(), requestHandler.handle(request, "cid-other", "reply-queue").block().data());
+
+        // Binary replies are remembered separately from JSON ones
+        byte[] binary = requestHandler.handleBinary(request, "cid-replay", "reply-queue").block().data();
+        assertFalse(Arrays.equals(Base64.getDecoder().decode(first.data()), binary));
+        assertArrayEquals(binary, requestHandler.handleBinary(request, "cid-replay", "reply-queue").block().data());
+    }
+
+    @Test
+    @DisplayName("Should key requests without a correlation id by their content")
+    void testContentHashKey() {
+        CryptoWrapper first = requestHandler.handle(request, RpcRequestHandler.UNKNOWN_CORRELATION_ID).block();
+        assertEquals(first, requestHandler.handle(request, null).block());
+
+        String hashed = idempotency.key(RpcIdempotency.ReplyFormat.JSON, null, null, request);
+        assertTrue(hashed.startsWith("json:"), hashed);
+        assertEquals(hashed, idempotency.key(RpcIdempotency.ReplyFormat.JSON, null, null,
+                new SomeSpecificObject("id-1", "value", 1, request.sensitiveData())));
+        assertNotEquals(hashed, idempotency.key(RpcIdempotency.ReplyFormat.JSON, null, null,
+                new SomeSpecificObject("id-1", "value", 2, request.sensitiveData())));
+        assertNotEquals(hashed, idempotency.key(RpcIdempotency.ReplyFormat.BINARY, null, null, request));
+        // Length-prefixed fields: moving a character between neighbours changes the key
+        assertNotEquals(idempotency.key(RpcIdempotency.ReplyFormat.JSON, null, null, new SomeSpecificObject("ab", "c", 0, null)),
+                idempotency.key(RpcIdempotency.ReplyFormat.JSON, null, null, new SomeSpecificObject("a", "bc", 0, null)));
+        assertNotEquals(idempotency.key(RpcIdempotency.ReplyFormat.JSON, null, null, new SomeSpecificObject("", "", 0, null)),
+                idempotency.key(RpcIdempotency.ReplyFormat.JSON, null, null, new SomeSpecificObject(null, null, 0, null)));
+    }
+
+    @Test
+    @DisplayName("Should process a reused correlation id again when the request or requester differs")
+    void testCorrelationIdCollision() {
+        SomeSpecificObject otherRequest = new SomeSpecificObject("id-2", "other", 2, request.sensitiveData());
+        CryptoWrapper first = requestHandler.handle(request, "cid-collision", "reply-queue").block();
+
+        CryptoWrapper otherContent = requestHandler.handle(otherRequest, "cid-collision", "reply-queue").block();
+        CryptoWrapper otherRequester = requestHandler.handle(request, "cid-collision", "other-reply-queue").block();
+
+        assertNotEquals(first.data(), otherContent.data());
+        assertNotEquals(first.data(), otherRequester.data());
+        assertEquals(first, requestHandler.handle(request, "cid-collision", "reply-queue").block());
+        assertNotEquals(idempotency.key(RpcIdempotency.ReplyFormat.JSON, "cid-collision", "reply-queue", request),
+                idempotency.key(RpcIdempotency.ReplyFormat.JSON, "cid-collision", "reply-queue", otherRequest));
+    }
+
+    @Test
+    @DisplayName("Should process requests normally when the idempotency store fails")
+    void testStoreFailureDegrades() {
+        RpcIdempotency degraded = new RpcIdempotency();
+        degraded.metrics = new PipelineMetrics(null);
+        degraded.store = new IdempotencyStore() {
+            @Override
+            public Mono<CryptoWrapper> find(String key) {
+                return Mono.error(new IllegalStateException("store down"));
+            }
+
+            @Override
+            public Mono<Void> save(String key, CryptoWrapper reply) {
+                return Mono.error(new IllegalStateException("store down"));
+            }
+        };
+        AtomicInteger processed = new AtomicInteger();
+        CryptoWrapper reply = new CryptoWrapper("ciphertext");
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(reply, degraded.reply("json:degraded", () -> {
+                processed.incrementAndGet();
+                return Mono.just(reply);
+            }).block());
+        }
+        assertEquals(2, processed.get(), "Nothing could be remembered, so the redelivery is processed again");
+        assertEquals(0, degraded.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should let concurrent duplicates wait for the request already in flight")
+    void testCollapsesInFlightDuplicates() {
+        AtomicInteger processed = new AtomicInteger();
+        Sinks.One<CryptoWrapper> encryption = Sinks.one();
+        CryptoWrapper reply = new CryptoWrapper("ciphertext");
+
+        Mono<List<CryptoWrapper>> replies = Flux.range(0, 10)
+                .flatMap(i -> idempotency.reply("json:collapse", () -> {
+                    processed.incrementAndGet();
+                    return encryption.asMono();
+                }))
+                .collectList()
+                .cache();
+        replies.subscribe();
+        assertEquals(1, idempotency.inFlightCount());
+        encryption.tryEmitValue(reply);
+
+        assertEquals(10, replies.block().size());
+        assertTrue(replies.block().stream().allMatch(reply::equals));
+        assertEquals(1, processed.get());
+        assertEquals(0, idempotency.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should not remember failures, so a retried request is processed again")
+    void testFailuresAreNotRemembered() {
+        AtomicInteger processed = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> idempotency.reply("json:retry", () -> {
+            processed.incrementAndGet();
+            return Mono.error(new IllegalStateException("busy"));
+        }).block());
+
+        CryptoWrapper reply = new CryptoWrapper("ciphertext");
+        assertEquals(reply, idempotency.reply("json:retry", () -> {
+            processed.incrementAndGet();
+            return Mono.just(reply);
+        }).block());
+        assertEquals(2, processed.get());
+        assertEquals(0, idempotency.inFlightCount());
+    }
+}
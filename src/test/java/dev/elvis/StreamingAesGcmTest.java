@@ -0,0 +1,142 @@
+package dev.elvis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingAesGcmTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    private final StreamingAesGcm streamingAead = new StreamingAesGcm(CryptoFixture.TEST_KEY, SEGMENT_SIZE);
+    private final CryptoFixture crypto = new CryptoFixture();
+
+    @AfterEach
+    void tearDown() {
+        crypto.close();
+    }
+
+    /** Splits the ciphertext at random points to mimic arbitrary network chunking. */
+    private static List<ByteBuffer> randomChunks(byte[] data, long seed) {
+        Random random = new Random(seed);
+        List<ByteBuffer> chunks = new ArrayList<>();
+        int offset = 0;
+        while (offset < data.length) {
+            int n = Math.min(data.length - offset, 1 + random.nextInt(100));
+            chunks.add(ByteBuffer.wrap(Arrays.copyOfRange(data, offset, offset + n)));
+            offset += n;
+        }
+        return chunks;
+    }
+
+    private byte[] decryptAll(List<ByteBuffer> chunks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingAesGcm.Decryptor decryptor = streamingAead.newDecryptor();
+        chunks.forEach(chunk -> decryptor.update(chunk, p -> out.write(p.array(), p.position(), p.remaining())));
+        decryptor.doFinal(p -> out.write(p.array(), p.position(), p.remaining()));
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("Should round trip payloads of any length across arbitrary chunk boundaries")
+    void testRoundTrip() {
+        for (int length : new int[]{0, 1, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE * 3, 1000}) {
+            byte[] plaintext = new byte[length];
+            new Random(length).nextBytes(plaintext);
+
+            byte[] ciphertext = streamingAead.encrypt(plaintext);
+
+            assertArrayEquals(plaintext, decryptAll(randomChunks(ciphertext, length)), "length " + length);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse streams longer than the segment limit instead of wrapping the nonce counter")
+    void testSegmentLimit() {
+        StreamingAesGcm limited = new StreamingAesGcm(CryptoFixture.TEST_KEY, SEGMENT_SIZE, 3);
+
+        byte[] threeSegments = limited.encrypt(new byte[SEGMENT_SIZE * 3]);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingAesGcm.Decryptor decryptor = limited.newDecryptor();
+        decryptor.update(ByteBuffer.wrap(threeSegments), p -> out.write(p.array(), p.position(), p.remaining()));
+        decryptor.doFinal(p -> out.write(p.array(), p.position(), p.remaining()));
+        assertEquals(SEGMENT_SIZE * 3, out.size());
+
+        assertThrows(CryptoException.class, () -> limited.encrypt(new byte[SEGMENT_SIZE * 3 + 1]));
+        byte[] fourSegments = streamingAead.encrypt(new byte[SEGMENT_SIZE * 3 + 1]);
+        assertThrows(CryptoException.class, () -> {
+            StreamingAesGcm.Decryptor tooLong = limited.newDecryptor();
+            tooLong.update(ByteBuffer.wrap(fourSegments), p -> { });
+            tooLong.doFinal(p -> { });
+        });
+    }
+
+    @Test
+    @DisplayName("Should detect truncation at a segment boundary and tampering")
+    void testTruncationAndTampering() {
+        byte[] ciphertext = streamingAead.encrypt(new byte[SEGMENT_SIZE * 3]);
+
+        // Drop the final segment: the previous one was sealed as non-final, so it must not authenticate as last
+        byte[] truncated = Arrays.copyOf(ciphertext, StreamingAesGcm.HEADER_LENGTH + 2 * (SEGMENT_SIZE + StreamingAesGcm.TAG_LENGTH));
+        assertThrows(CryptoException.class, () -> decryptAll(List.of(ByteBuffer.wrap(truncated))));
+
+        ciphertext[StreamingAesGcm.HEADER_LENGTH + 5] ^= 1;
+        assertThrows(CryptoException.class, () -> decryptAll(List.of(ByteBuffer.wrap(ciphertext))));
+    }
+
+    @Test
+    @DisplayName("Should derive a key per stream from the header salt and refuse the old fixed-key version")
+    void testPerStreamKey() {
+        byte[] first = streamingAead.encrypt(new byte[SEGMENT_SIZE]);
+        byte[] second = streamingAead.encrypt(new byte[SEGMENT_SIZE]);
+        assertFalse(Arrays.equals(Arrays.copyOf(first, StreamingAesGcm.HEADER_LENGTH), Arrays.copyOf(second, StreamingAesGcm.HEADER_LENGTH)));
+
+        // The second stream's salt with the first stream's nonce prefix and segments: wrong key, so no authentication
+        byte[] otherSalt = first.clone();
+        System.arraycopy(second, 5, otherSalt, 5, StreamingAesGcm.SALT_LENGTH);
+        assertThrows(CryptoException.class, () -> decryptAll(List.of(ByteBuffer.wrap(otherSalt))));
+
+        byte[] version1 = first.clone();
+        version1[0] = 1;
+        assertThrows(CryptoException.class, () -> decryptAll(List.of(ByteBuffer.wrap(version1))));
+    }
+
+    @Test
+    @DisplayName("Should emit one DecryptionResult per array element through DecryptionService.decryptStream")
+    void testDecryptStreamArray() {
+        ObjectMapper mapper = new ObjectMapperFactory().externalServiceObjectMapper();
+        DecryptionService decryptionService = crypto.decryptionService;
+        decryptionService.streamingAead = () -> streamingAead;
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 20; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\":\"id-").append(i).append("\",\"value\":\"long value ").append(i).append("\"}");
+        }
+        json.append(",{\"errorCode\":\"PARTIAL\"}]");
+        byte[] ciphertext = streamingAead.encrypt(json.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<DecryptionResult<SomeSpecificObject>> results = decryptionService
+                .decryptStream(Flux.fromIterable(randomChunks(ciphertext, 7)), SomeSpecificObject.class, mapper)
+                .collectList().block();
+
+        assertEquals(21, results.size());
+        assertEquals("id-19", results.get(19).getSuccessData().id());
+        assertTrue(results.get(20).isError());
+    }
+}
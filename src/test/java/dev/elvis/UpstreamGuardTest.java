@@ -0,0 +1,134 @@
+package dev.elvis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamGuardTest {
+
+    private ExternalServiceConfiguration configuration;
+    private final AtomicLong clock = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        configuration = new ExternalServiceConfiguration();
+        configuration.getLimiter().setInitialLimit(4);
+        configuration.getLimiter().setMinLimit(1);
+        configuration.getLimiter().setMaxLimit(100);
+        configuration.getCircuitBreaker().setWindow(10);
+        configuration.getCircuitBreaker().setMinimumCalls(4);
+        configuration.getCircuitBreaker().setHalfOpenCalls(2);
+        configuration.getCircuitBreaker().setOpenDuration(Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Should reject calls beyond the concurrency limit and admit again once one finishes")
+    void testConcurrencyLimit() {
+        UpstreamGuard guard = new UpstreamGuard(configuration, new PipelineMetrics(null), clock::get);
+        List<Disposable> inFlight = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            inFlight.add(guard.guard("fetch", Mono::never).subscribe());
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        UpstreamRejectedException rejected = assertThrows(UpstreamRejectedException.class,
+                () -> guard.guard("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).block());
+        assertEquals(UpstreamRejectedException.Reason.CONCURRENCY_LIMIT, rejected.getReason());
+        assertEquals(0, calls.get(), "a rejected call must not reach the upstream");
+
+        inFlight.get(0).dispose(); // Cancellation frees the slot
+        assertEquals(1, guard.guard("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).block());
+        inFlight.forEach(Disposable::dispose);
+    }
+
+    @Test
+    @DisplayName("Should park waiting calls beyond the concurrency limit and admit them one per released permit")
+    void testWaitingForPermit() {
+        UpstreamGuard guard = new UpstreamGuard(configuration, new PipelineMetrics(null), clock::get);
+        List<Disposable> inFlight = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            inFlight.add(guard.guard("fetch", Mono::never).subscribe());
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> results = new ArrayList<>();
+        Disposable cancelled = guard.guardWaiting("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).subscribe(results::add);
+        guard.guardWaiting("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).subscribe(results::add);
+        guard.guardWaiting("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).subscribe(results::add);
+        assertEquals(0, calls.get(), "waiting calls must not reach the upstream before a permit is free");
+
+        cancelled.dispose(); // A cancelled waiter must not swallow the next wakeup
+        inFlight.get(0).dispose();
+        assertEquals(List.of(1, 2), results, "each waiter releases its permit on completion, waking the next");
+        inFlight.add(guard.guard("fetch", Mono::never).subscribe()); // Takes the freed slot back
+        assertThrows(UpstreamRejectedException.class, () -> guard.guard("fetch", Mono::empty).block(),
+                "plain guard still fails fast while the limit is taken");
+        inFlight.forEach(Disposable::dispose);
+    }
+
+    @Test
+    @DisplayName("Should open the circuit on upstream failures, fail fast, and close after successful trial calls")
+    void testCircuitBreaker() {
+        configuration.getLimiter().setEnabled(false);
+        UpstreamGuard guard = new UpstreamGuard(configuration, new PipelineMetrics(null), clock::get);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RuntimeException.class, () -> guard.guard("fetch", () -> Mono.error(new TimeoutException("slow"))).block());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.circuitState());
+
+        AtomicInteger calls = new AtomicInteger();
+        UpstreamRejectedException rejected = assertThrows(UpstreamRejectedException.class,
+                () -> guard.guard("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).block());
+        assertEquals(UpstreamRejectedException.Reason.CIRCUIT_OPEN, rejected.getReason());
+        assertEquals(0, calls.get());
+
+        // After open-duration two trial calls probe the upstream; both succeed, so the circuit closes
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        guard.guard("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).block();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.circuitState());
+        guard.guard("fetch", () -> Mono.fromCallable(calls::incrementAndGet)).block();
+        assertEquals(CircuitBreaker.State.CLOSED, guard.circuitState());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should grow the limit while latency is stable and shrink it when latency or drops rise")
+    void testGradientLimit() {
+        configuration.getLimiter().setInitialLimit(10);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(configuration.getLimiter());
+        long rtt = Duration.ofMillis(10).toNanos();
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(rtt, limiter.limit());
+        }
+        int grown = limiter.limit();
+        assertTrue(grown > 10, "stable latency at full utilisation should raise the limit, got " + grown);
+
+        // Samples from a barely used limit say nothing about a higher one
+        limiter.onSample(rtt, 1);
+        assertEquals(grown, limiter.limit());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(rtt * 5, limiter.limit());
+        }
+        int shrunk = limiter.limit();
+        assertTrue(shrunk < grown / 2, "latency 5x the average should cut the limit, got " + shrunk + " from " + grown);
+
+        limiter.onDropped();
+        assertTrue(limiter.limit() < shrunk || limiter.limit() == 1);
+    }
+}
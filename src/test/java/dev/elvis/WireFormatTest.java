@@ -0,0 +1,31 @@
+package dev.elvis;
+
+import com.rabbitmq.client.AMQP;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WireFormatTest {
+
+    @Test
+    @DisplayName("Should read a missing key version as 0 and reject one that is not a number")
+    void testFromAmqpKeyVersion() {
+        AMQP.BasicProperties withoutVersion = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(WireFormat.KEY_ID_HEADER, "key-1"))
+                .build();
+        AMQP.BasicProperties textVersion = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(WireFormat.KEY_ID_HEADER, "key-1", WireFormat.KEY_VERSION_HEADER, "7"))
+                .build();
+        AMQP.BasicProperties invalidVersion = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(WireFormat.KEY_ID_HEADER, "key-1", WireFormat.KEY_VERSION_HEADER, "seven"))
+                .build();
+
+        assertEquals(new KeyId("key-1", 0), WireFormat.fromAmqp(withoutVersion, new byte[0]).key());
+        assertEquals(new KeyId("key-1", 7), WireFormat.fromAmqp(textVersion, new byte[0]).key());
+        assertThrows(CryptoException.class, () -> WireFormat.fromAmqp(invalidVersion, new byte[0]));
+    }
+}